@@ -55,7 +55,7 @@ const AITutorPage = () => {
       const res = await tutorApi.getTutorSessions();
       if (!res.success) throw new Error(res.error || "Failed to load sessions");
 
-      const sessions = res.data || [];
+      const sessions = res.data?.content || [];
       let session: TutorSession | undefined = sessions.find((s) => s.id === saved) || sessions[0];
 
       // Create a session if none exist
@@ -68,8 +68,13 @@ const AITutorPage = () => {
       setSessionId(session.id);
       if (typeof window !== "undefined") localStorage.setItem(SESSION_KEY, session.id);
 
-      // Initialize messages
-      const initialMessages: UiMessage[] = (session.messages || []).map(toUi);
+      // Initialize messages with the latest page of history
+      let history: ChatMessage[] = [];
+      if (session.messageCount > 0) {
+        const page = await tutorApi.getTutorMessages(session.id);
+        if (page.success && page.data) history = page.data.content;
+      }
+      const initialMessages: UiMessage[] = history.map(toUi);
       if (initialMessages.length === 0) {
         // Provide a friendly greeting if empty
         initialMessages.push({
@@ -108,20 +113,23 @@ const AITutorPage = () => {
     };
     setMessages((prev) => [...prev, userMsg]);
 
+    // Placeholder assistant bubble that fills in as tokens stream in
+    const pendingId = `stream-${Date.now()}`;
+    setMessages((prev) => [...prev, { id: pendingId, type: "ai", content: "", timestamp: new Date() }]);
+
     try {
       setSending(true);
-      const res = await tutorApi.sendMessage(sessionId, userText);
+      const res = await tutorApi.streamMessage(sessionId, userText, (delta) => {
+        setMessages((prev) =>
+          prev.map((m) => (m.id === pendingId ? { ...m, content: m.content + delta } : m))
+        );
+      });
       if (!res.success || !res.data) throw new Error(res.error || "Failed to send message");
 
-      const reply = res.data; // Expect assistant reply from backend
-      if (reply.content) {
-        const ui = toUi(reply);
-        // If backend echoes user role, ignore; only render assistant
-        if (ui.type === "ai") {
-          setMessages((prev) => [...prev, ui]);
-        }
-      }
+      const ui = toUi(res.data);
+      setMessages((prev) => prev.map((m) => (m.id === pendingId ? ui : m)));
     } catch (e) {
+      setMessages((prev) => prev.filter((m) => m.id !== pendingId || m.content));
       setError(e instanceof Error ? e.message : "Network error");
     } finally {
       setSending(false);
@@ -123,7 +123,8 @@ export interface Discussion {
   authorName: string;
   title: string;
   content: string;
-  replies: Reply[];
+  replies?: Reply[] | null; // not included in listings; use getDiscussionReplies
+  replyCount: number;
   likes: number;
   isLiked?: boolean;
   createdAt: string;
@@ -152,11 +153,28 @@ export interface TutorSession {
   id: string;
   userId: string;
   subject: string;
-  messages: ChatMessage[];
+  courseId?: string | null; // prompts of course sessions include excerpts of the course PDF
+  messages?: ChatMessage[] | null; // not included in listings; use getTutorMessages
+  messageCount: number;
   createdAt: string;
   updatedAt: string;
 }
 
+// Search types
+export type SearchType = 'course' | 'discussion' | 'pdf';
+
+export interface SearchHit {
+  type: SearchType;
+  id: string;
+  courseId?: string | null;
+  page?: number | null; // 1-based PDF page for 'pdf' hits
+  title: string;
+  snippet: string;
+  titleHighlights: [number, number][]; // [start, end) ranges within title
+  snippetHighlights: [number, number][]; // [start, end) ranges within snippet
+  score: number;
+}
+
 // Generic API client
 class ApiClient {
   private baseUrl: string;
@@ -389,6 +407,11 @@ class ApiClient {
     });
   }
 
+  async getDiscussionReplies(discussionId: string, page = 0, size = 20): Promise<ApiResponse<{ content: Reply[]; totalElements: number }>> {
+    const params = new URLSearchParams({ page: page.toString(), size: size.toString() });
+    return this.request<{ content: Reply[]; totalElements: number }>(`/discussions/${discussionId}/replies?${params}`);
+  }
+
   async replyToDiscussion(discussionId: string, content: string): Promise<ApiResponse<Reply>> {
     return this.request<Reply>(`/discussions/${discussionId}/replies`, {
       method: 'POST',
@@ -402,15 +425,82 @@ class ApiClient {
     });
   }
 
+  // Pushes discussion.created / reply.created / likes.changed events until the signal aborts.
+  // Pass a courseId (or nothing, for every course) or a discussionId for a single thread.
+  async subscribeDiscussionEvents(
+    scope: { courseId?: string; discussionId?: string },
+    onEvent: (event: string, payload: unknown) => void,
+    signal: AbortSignal
+  ): Promise<ApiResponse<void>> {
+    const headers: Record<string, string> = { Accept: 'text/event-stream' };
+    if (this.token) {
+      headers.Authorization = `Bearer ${this.token}`;
+    }
+    const path = scope.discussionId
+      ? `/discussions/${scope.discussionId}/events`
+      : `/discussions/events${scope.courseId ? `?courseId=${encodeURIComponent(scope.courseId)}` : ''}`;
+
+    try {
+      const response = await fetch(`${this.baseUrl}${path}`, { headers, signal });
+      if (!response.ok || !response.body) {
+        return { success: false, error: `HTTP error! status: ${response.status}` };
+      }
+
+      const reader = response.body.getReader();
+      const decoder = new TextDecoder();
+      let buffer = '';
+      for (;;) {
+        const { value, done: finished } = await reader.read();
+        if (finished) break;
+        buffer += decoder.decode(value, { stream: true });
+        let sep: number;
+        while ((sep = buffer.indexOf('\n\n')) >= 0) {
+          const frame = buffer.slice(0, sep);
+          buffer = buffer.slice(sep + 2);
+          let event = 'message';
+          const data: string[] = [];
+          for (const line of frame.split('\n')) {
+            if (line.startsWith('event:')) event = line.slice(6).trim();
+            else if (line.startsWith('data:')) data.push(line.slice(5));
+          }
+          if (data.length === 0) continue; // keepalive comment
+          onEvent(event, JSON.parse(data.join('\n')));
+        }
+      }
+      return { success: true };
+    } catch (error) {
+      if (signal.aborted) return { success: true };
+      return {
+        success: false,
+        error: error instanceof Error ? error.message : 'Network error',
+      };
+    }
+  }
+
+  // Search endpoint
+  async search(q: string, type?: SearchType, page = 0, size = 10, courseId?: string): Promise<ApiResponse<{ content: SearchHit[]; totalElements: number }>> {
+    const params = new URLSearchParams({ q, page: page.toString(), size: size.toString() });
+    if (type) params.append('type', type);
+    if (courseId) params.append('courseId', courseId);
+    return this.request<{ content: SearchHit[]; totalElements: number }>(`/search?${params}`);
+  }
+
   // AI Tutor endpoints
-  async getTutorSessions(): Promise<ApiResponse<TutorSession[]>> {
-    return this.request<TutorSession[]>('/ai-tutor/sessions');
+  async getTutorSessions(page = 0, size = 20): Promise<ApiResponse<{ content: TutorSession[]; totalElements: number }>> {
+    const params = new URLSearchParams({ page: page.toString(), size: size.toString() });
+    return this.request<{ content: TutorSession[]; totalElements: number }>(`/ai-tutor/sessions?${params}`);
+  }
+
+  // Page 0 holds the newest messages, oldest-first within the page
+  async getTutorMessages(sessionId: string, page = 0, size = 50): Promise<ApiResponse<{ content: ChatMessage[]; totalElements: number }>> {
+    const params = new URLSearchParams({ page: page.toString(), size: size.toString() });
+    return this.request<{ content: ChatMessage[]; totalElements: number }>(`/ai-tutor/sessions/${sessionId}/messages?${params}`);
   }
 
-  async createTutorSession(subject: string): Promise<ApiResponse<TutorSession>> {
+  async createTutorSession(subject: string, courseId?: string): Promise<ApiResponse<TutorSession>> {
     return this.request<TutorSession>('/ai-tutor/sessions', {
       method: 'POST',
-      body: JSON.stringify({ subject }),
+      body: JSON.stringify({ subject, courseId }),
     });
   }
 
@@ -420,6 +510,64 @@ class ApiClient {
       body: JSON.stringify({ content: message }),
     });
   }
+
+  // Streams the tutor reply as SSE: onToken gets each text delta, the resolved value is the stored message
+  async streamMessage(
+    sessionId: string,
+    message: string,
+    onToken: (delta: string) => void
+  ): Promise<ApiResponse<ChatMessage>> {
+    const headers: Record<string, string> = {
+      'Content-Type': 'application/json',
+      Accept: 'text/event-stream',
+    };
+    if (this.token) {
+      headers.Authorization = `Bearer ${this.token}`;
+    }
+
+    try {
+      const response = await fetch(`${this.baseUrl}/ai-tutor/sessions/${sessionId}/messages/stream`, {
+        method: 'POST',
+        headers,
+        body: JSON.stringify({ content: message }),
+      });
+      if (!response.ok || !response.body) {
+        return { success: false, error: `HTTP error! status: ${response.status}` };
+      }
+
+      const reader = response.body.getReader();
+      const decoder = new TextDecoder();
+      let buffer = '';
+      let done: ChatMessage | undefined;
+      for (;;) {
+        const { value, done: finished } = await reader.read();
+        if (finished) break;
+        buffer += decoder.decode(value, { stream: true });
+        let sep: number;
+        while ((sep = buffer.indexOf('\n\n')) >= 0) {
+          const frame = buffer.slice(0, sep);
+          buffer = buffer.slice(sep + 2);
+          let event = 'message';
+          const data: string[] = [];
+          for (const line of frame.split('\n')) {
+            if (line.startsWith('event:')) event = line.slice(6).trim();
+            else if (line.startsWith('data:')) data.push(line.slice(5));
+          }
+          if (data.length === 0) continue;
+          const payload = JSON.parse(data.join('\n'));
+          if (event === 'token') onToken(payload.text);
+          else if (event === 'done') done = payload as ChatMessage;
+          else if (event === 'error') return { success: false, error: payload.message };
+        }
+      }
+      return done ? { success: true, data: done } : { success: false, error: 'Stream ended unexpectedly' };
+    } catch (error) {
+      return {
+        success: false,
+        error: error instanceof Error ? error.message : 'Network error',
+      };
+    }
+  }
 }
 
 // Create and export the API client instance
@@ -473,14 +621,30 @@ export const communityApi = {
     apiClient.getDiscussions(courseId, page, size),
   createDiscussion: (discussion: { courseId?: string; title: string; content: string }) => 
     apiClient.createDiscussion(discussion),
+  getDiscussionReplies: (discussionId: string, page?: number, size?: number) =>
+    apiClient.getDiscussionReplies(discussionId, page, size),
   replyToDiscussion: (discussionId: string, content: string) => 
     apiClient.replyToDiscussion(discussionId, content),
   likeDiscussion: (discussionId: string) => apiClient.likeDiscussion(discussionId),
+  subscribeDiscussionEvents: (
+    scope: { courseId?: string; discussionId?: string },
+    onEvent: (event: string, payload: unknown) => void,
+    signal: AbortSignal
+  ) => apiClient.subscribeDiscussionEvents(scope, onEvent, signal),
+};
+
+export const searchApi = {
+  search: (q: string, type?: SearchType, page?: number, size?: number, courseId?: string) =>
+    apiClient.search(q, type, page, size, courseId),
 };
 
 export const tutorApi = {
-  getTutorSessions: () => apiClient.getTutorSessions(),
-  createTutorSession: (subject: string) => apiClient.createTutorSession(subject),
+  getTutorSessions: (page?: number, size?: number) => apiClient.getTutorSessions(page, size),
+  getTutorMessages: (sessionId: string, page?: number, size?: number) =>
+    apiClient.getTutorMessages(sessionId, page, size),
+  createTutorSession: (subject: string, courseId?: string) => apiClient.createTutorSession(subject, courseId),
   sendMessage: (sessionId: string, message: string) => 
     apiClient.sendMessage(sessionId, message),
+  streamMessage: (sessionId: string, message: string, onToken: (delta: string) => void) =>
+    apiClient.streamMessage(sessionId, message, onToken),
 };
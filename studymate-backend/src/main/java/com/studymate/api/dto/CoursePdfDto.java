@@ -0,0 +1,10 @@
+package com.studymate.api.dto;
+
+public class CoursePdfDto {
+    public String courseId;
+    public String fileName;
+    public String contentType;
+    public long size; // bytes
+    public String etag;
+    public String updatedAt;
+}
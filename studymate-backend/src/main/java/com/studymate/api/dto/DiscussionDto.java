@@ -9,7 +9,8 @@ public class DiscussionDto {
     public String authorName;
     public String title;
     public String content;
-    public List<ReplyDto> replies;
+    public List<ReplyDto> replies; // null in listings; page through /api/discussions/{id}/replies
+    public int replyCount;
     public int likes;
     public Boolean isLiked;
     public String createdAt;
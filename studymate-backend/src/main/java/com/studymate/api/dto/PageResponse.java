@@ -4,7 +4,8 @@ import java.util.List;
 
 public class PageResponse<T> {
     public List<T> content;
-    public long totalElements;
+    public long totalElements; // -1 on cursor pages after the first
+    public String nextCursor; // only set in cursor mode; null on the last page
 
     public PageResponse() {}
 
@@ -12,4 +13,9 @@ public class PageResponse<T> {
         this.content = content;
         this.totalElements = totalElements;
     }
+
+    public PageResponse(List<T> content, long totalElements, String nextCursor) {
+        this(content, totalElements);
+        this.nextCursor = nextCursor;
+    }
 }
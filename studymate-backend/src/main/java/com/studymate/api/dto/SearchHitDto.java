@@ -0,0 +1,15 @@
+package com.studymate.api.dto;
+
+import java.util.List;
+
+public class SearchHitDto {
+    public String type; // "course", "discussion" or "pdf"
+    public String id;
+    public String courseId; // owning course of a discussion or PDF, null otherwise
+    public Integer page; // 1-based PDF page of a "pdf" hit, null otherwise
+    public String title;
+    public String snippet; // excerpt of the body around the first match
+    public List<int[]> titleHighlights; // [start, end) character ranges of matched terms in title
+    public List<int[]> snippetHighlights; // same, relative to snippet
+    public double score;
+}
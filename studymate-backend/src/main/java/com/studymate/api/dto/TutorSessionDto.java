@@ -6,7 +6,9 @@ public class TutorSessionDto {
     public String id;
     public String userId;
     public String subject;
-    public List<ChatMessageDto> messages;
+    public String courseId; // null for sessions not tied to a course
+    public List<ChatMessageDto> messages; // null in listings; page through /sessions/{id}/messages
+    public int messageCount;
     public String createdAt;
     public String updatedAt;
 }
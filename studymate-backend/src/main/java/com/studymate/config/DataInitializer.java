@@ -1,8 +1,12 @@
 package com.studymate.config;
 
 import com.studymate.api.dto.CourseDto;
+import com.studymate.api.dto.LessonDto;
 import com.studymate.entity.CourseEntity;
+import com.studymate.entity.LessonEntity;
 import com.studymate.repository.CourseRepository;
+import com.studymate.repository.LessonRepository;
+import com.studymate.service.SearchService;
 import com.studymate.util.SampleData;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
@@ -10,6 +14,10 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @Component
@@ -17,14 +25,22 @@ import java.util.UUID;
 public class DataInitializer implements ApplicationRunner {
 
     private final CourseRepository courseRepository;
+    private final LessonRepository lessonRepository;
+    private final SearchService search;
 
-    public DataInitializer(CourseRepository courseRepository) {
+    public DataInitializer(CourseRepository courseRepository, LessonRepository lessonRepository, SearchService search) {
         this.courseRepository = courseRepository;
+        this.lessonRepository = lessonRepository;
+        this.search = search;
     }
 
     @Override
     public void run(ApplicationArguments args) throws Exception {
-        if (courseRepository.count() > 0) return;
+        if (courseRepository.count() == 0) seedCourses();
+        seedLessons();
+    }
+
+    private void seedCourses() {
         // Seed courses from SampleData
         for (CourseDto c : SampleData.courses.values()) {
             CourseEntity e = new CourseEntity();
@@ -35,12 +51,36 @@ public class DataInitializer implements ApplicationRunner {
             e.setCategory(c.category);
             e.setDifficulty(c.difficulty);
             e.setDuration(c.duration);
-            e.setEnrolledStudents(c.enrolledStudents);
+            // counted from course_enrollments from here on
+            e.setEnrolledStudents(0);
             e.setRating(c.rating);
             e.setThumbnail(c.thumbnail);
             e.setCreatedAt(c.createdAt != null ? OffsetDateTime.parse(c.createdAt) : OffsetDateTime.now());
             e.setUpdatedAt(c.updatedAt != null ? OffsetDateTime.parse(c.updatedAt) : e.getCreatedAt());
-            courseRepository.save(e);
+            search.indexCourse(courseRepository.save(e));
+        }
+    }
+
+    // Courses without lessons get the sample outline: new databases, ones seeded before lessons were
+    // stored, and courses added since
+    private void seedLessons() {
+        List<LessonDto> outline = SampleData.lessonsByCourse.values().iterator().next();
+        Set<UUID> seeded = new HashSet<>(lessonRepository.findCourseIdsWithLessons());
+        List<LessonEntity> lessons = new ArrayList<>();
+        for (CourseEntity course : courseRepository.findAll()) {
+            if (seeded.contains(course.getId())) continue;
+            for (LessonDto l : outline) {
+                LessonEntity e = new LessonEntity();
+                e.setCourseId(course.getId());
+                e.setPosition(l.order);
+                e.setTitle(l.title);
+                e.setDescription(l.description);
+                e.setContent(l.content);
+                e.setVideoUrl(l.videoUrl);
+                e.setDurationMinutes(l.duration);
+                lessons.add(e);
+            }
         }
+        if (!lessons.isEmpty()) lessonRepository.saveAll(lessons);
     }
 }
@@ -0,0 +1,63 @@
+package com.studymate.config;
+
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.handler.timeout.WriteTimeoutHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared WebClient for Gemini: one sized connection pool plus connect/read/write/response timeouts,
+ * so a slow upstream fails calls instead of piling them up.
+ */
+@Configuration
+public class GeminiClientConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider geminiConnectionProvider(
+            @Value("${app.ai.http.max-connections:50}") int maxConnections,
+            @Value("${app.ai.http.pending-acquire-max:200}") int pendingAcquireMax,
+            @Value("${app.ai.http.pending-acquire-timeout:10s}") Duration pendingAcquireTimeout,
+            @Value("${app.ai.http.max-idle-time:30s}") Duration maxIdleTime,
+            @Value("${app.ai.http.max-life-time:5m}") Duration maxLifeTime
+    ) {
+        return ConnectionProvider.builder("gemini")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMax)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(maxIdleTime)
+                .build();
+    }
+
+    @Bean
+    public WebClient geminiWebClient(
+            ConnectionProvider geminiConnectionProvider,
+            // overridable so a local stub LLM server can stand in for Gemini
+            @Value("${gemini.baseUrl:https://generativelanguage.googleapis.com}") String baseUrl,
+            @Value("${app.ai.http.connect-timeout:5s}") Duration connectTimeout,
+            @Value("${app.ai.http.response-timeout:60s}") Duration responseTimeout,
+            @Value("${app.ai.http.read-timeout:60s}") Duration readTimeout,
+            @Value("${app.ai.http.write-timeout:10s}") Duration writeTimeout
+    ) {
+        HttpClient http = HttpClient.create(geminiConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(responseTimeout)
+                .doOnConnected(conn -> conn
+                        .addHandlerLast(new ReadTimeoutHandler(readTimeout.toMillis(), TimeUnit.MILLISECONDS))
+                        .addHandlerLast(new WriteTimeoutHandler(writeTimeout.toMillis(), TimeUnit.MILLISECONDS)));
+        return WebClient.builder()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(http))
+                .build();
+    }
+}
@@ -0,0 +1,113 @@
+package com.studymate.controller;
+
+import com.studymate.security.CurrentUserResolver;
+import com.studymate.security.JwtUtil;
+import com.studymate.service.CourseMaterialIndex;
+import com.studymate.service.DiscussionEventBus;
+import com.studymate.service.GeminiService;
+import com.studymate.service.LessonService;
+import com.studymate.service.LlmCallLimiter;
+import com.studymate.service.PdfTextIndexer;
+import com.studymate.service.SearchService;
+import com.studymate.service.TutorMessageLog;
+import com.studymate.service.TutorRateLimiter;
+import com.studymate.service.TutorResponseCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminController {
+
+    private final JwtUtil jwtUtil;
+    private final CurrentUserResolver currentUser;
+    private final LlmCallLimiter llmLimiter;
+    private final TutorResponseCache responseCache;
+    private final GeminiService gemini;
+    private final TutorRateLimiter tutorLimiter;
+    private final TutorMessageLog messageLog;
+    private final DiscussionEventBus discussionEvents;
+    private final SearchService search;
+    private final PdfTextIndexer pdfText;
+    private final CourseMaterialIndex materials;
+    private final LessonService lessons;
+
+    public AdminController(JwtUtil jwtUtil, CurrentUserResolver currentUser, LlmCallLimiter llmLimiter,
+                           TutorResponseCache responseCache, GeminiService gemini, TutorRateLimiter tutorLimiter,
+                           TutorMessageLog messageLog, DiscussionEventBus discussionEvents,
+                           SearchService search, PdfTextIndexer pdfText, CourseMaterialIndex materials,
+                           LessonService lessons) {
+        this.jwtUtil = jwtUtil;
+        this.currentUser = currentUser;
+        this.llmLimiter = llmLimiter;
+        this.responseCache = responseCache;
+        this.gemini = gemini;
+        this.tutorLimiter = tutorLimiter;
+        this.messageLog = messageLog;
+        this.discussionEvents = discussionEvents;
+        this.search = search;
+        this.pdfText = pdfText;
+        this.materials = materials;
+        this.lessons = lessons;
+    }
+
+    // Hit/miss counters of the in-process caches
+    @GetMapping("/cache-stats")
+    public ResponseEntity<Map<String, Object>> cacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("jwtClaims", jwtUtil.cacheStats());
+        stats.put("identities", currentUser.cacheStats());
+        return ResponseEntity.ok(stats);
+    }
+
+    // Gemini call gate (running, queued, rejected), circuit breaker, response cache hit rates,
+    // coalesced calls, the chat message write-behind log and course material retrieval
+    @GetMapping("/ai-stats")
+    public ResponseEntity<Map<String, Object>> aiStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("limiter", llmLimiter.stats());
+        stats.put("responseCache", responseCache.stats());
+        stats.put("coalescing", gemini.coalescingStats());
+        stats.put("circuitBreaker", gemini.breakerStats());
+        stats.put("messageLog", messageLog.stats());
+        stats.put("courseMaterial", materials.stats());
+        return ResponseEntity.ok(stats);
+    }
+
+    // Open discussion event streams and events dropped for slow clients
+    @GetMapping("/community-stats")
+    public ResponseEntity<Map<String, Object>> communityStats() {
+        return ResponseEntity.ok(Map.of("events", discussionEvents.stats()));
+    }
+
+    // Index size plus the PDF text pipeline: running and queued jobs, PDFs still pending, outcomes
+    @GetMapping("/search-stats")
+    public ResponseEntity<Map<String, Object>> searchStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(search.stats());
+        stats.put("pdfText", pdfText.stats());
+        return ResponseEntity.ok(stats);
+    }
+
+    // Lesson list cache and the completion write-behind: queued, coalesced and batched writes
+    @GetMapping("/lesson-stats")
+    public ResponseEntity<Map<String, Object>> lessonStats() {
+        return ResponseEntity.ok(lessons.stats());
+    }
+
+    // Reloads the search index from the database; the current index keeps serving until the swap
+    @PostMapping("/search/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildSearch() {
+        return ResponseEntity.ok(Map.of("documents", search.rebuild()));
+    }
+
+    // Per-user AI tutor usage today: heaviest users first, plus rate-limit and quota rejections
+    @GetMapping("/ai-usage")
+    public ResponseEntity<Map<String, Object>> aiUsage(@RequestParam(name = "limit", defaultValue = "50") int limit) {
+        return ResponseEntity.ok(tutorLimiter.usage(Math.max(1, Math.min(limit, 500))));
+    }
+}
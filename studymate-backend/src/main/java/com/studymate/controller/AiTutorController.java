@@ -1,73 +1,170 @@
 package com.studymate.controller;
 
 import com.studymate.api.dto.ChatMessageDto;
+import com.studymate.api.dto.PageResponse;
 import com.studymate.api.dto.TutorSessionDto;
+import com.studymate.security.CurrentUser;
+import com.studymate.security.CurrentUserResolver;
 import com.studymate.service.GeminiService;
-import com.studymate.util.SampleData;
+import com.studymate.service.LlmBusyException;
+import com.studymate.service.TutorRateLimiter;
+import com.studymate.service.TutorSessionService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.time.OffsetDateTime;
-import java.util.*;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/ai-tutor")
 public class AiTutorController {
 
     private final GeminiService geminiService;
+    private final TutorSessionService sessions;
+    private final TutorRateLimiter rateLimiter;
+    private final CurrentUserResolver currentUser;
 
-    public AiTutorController(GeminiService geminiService) {
+    public AiTutorController(GeminiService geminiService, TutorSessionService sessions,
+                             TutorRateLimiter rateLimiter, CurrentUserResolver currentUser) {
         this.geminiService = geminiService;
+        this.sessions = sessions;
+        this.rateLimiter = rateLimiter;
+        this.currentUser = currentUser;
     }
 
+    // The caller's sessions, most recently active first; messages are paged separately
     @GetMapping("/sessions")
-    public ResponseEntity<List<TutorSessionDto>> listSessions() {
-        return ResponseEntity.ok(new ArrayList<>(SampleData.tutorSessions.values()));
+    public ResponseEntity<PageResponse<TutorSessionDto>> listSessions(
+            @RequestParam(name = "page", defaultValue = "0") int page,
+            @RequestParam(name = "size", defaultValue = "20") int size) {
+        Optional<UUID> userId = currentUserId();
+        if (userId.isEmpty()) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        return ResponseEntity.ok(sessions.list(userId.get(), page, size));
     }
 
-    record CreateSessionRequest(String subject) {}
+    record CreateSessionRequest(String subject, String courseId) {}
 
+    // A session with a courseId gets excerpts of that course's PDF in its prompts
     @PostMapping("/sessions")
     public ResponseEntity<TutorSessionDto> createSession(@RequestBody CreateSessionRequest req) {
-        TutorSessionDto ts = new TutorSessionDto();
-        ts.id = UUID.randomUUID().toString();
-        ts.userId = "demo-user";
-        ts.subject = req.subject();
-        ts.messages = new ArrayList<>();
-        ts.createdAt = OffsetDateTime.now().toString();
-        ts.updatedAt = OffsetDateTime.now().toString();
-        SampleData.tutorSessions.put(ts.id, ts);
-        return ResponseEntity.ok(ts);
+        Optional<UUID> userId = currentUserId();
+        if (userId.isEmpty()) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        UUID courseId;
+        try {
+            courseId = req.courseId() == null || req.courseId().isBlank() ? null : UUID.fromString(req.courseId());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return sessions.create(userId.get(), req.subject(), courseId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.badRequest().build());
+    }
+
+    // Page 0 is the newest messages, returned oldest-first
+    @GetMapping("/sessions/{id}/messages")
+    public ResponseEntity<PageResponse<ChatMessageDto>> listMessages(@PathVariable("id") String sessionId,
+            @RequestParam(name = "page", defaultValue = "0") int page,
+            @RequestParam(name = "size", defaultValue = "50") int size) {
+        Optional<UUID> userId = currentUserId();
+        if (userId.isEmpty()) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        return sessions.messages(userId.get(), sessionId, page, size)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     record SendMessageRequest(String content) {}
 
+    // Async: the servlet thread is released while Gemini works; the reply is written when the Mono completes
     @PostMapping("/sessions/{id}/messages")
-    public ResponseEntity<ChatMessageDto> sendMessage(@PathVariable("id") String sessionId,
-                                                      @RequestBody SendMessageRequest req) {
-        TutorSessionDto ts = SampleData.tutorSessions.get(sessionId);
-        if (ts == null) return ResponseEntity.notFound().build();
-
-        // Save user message
-        ChatMessageDto userMsg = new ChatMessageDto();
-        userMsg.id = UUID.randomUUID().toString();
-        userMsg.role = "user";
-        userMsg.content = req.content();
-        userMsg.timestamp = OffsetDateTime.now().toString();
-        ts.messages.add(userMsg);
-
-        // Generate assistant reply via Gemini
-        ChatMessageDto aiMsg = new ChatMessageDto();
-        aiMsg.id = UUID.randomUUID().toString();
-        aiMsg.role = "assistant";
-        String aiText = geminiService.generateText(req.content());
-        aiMsg.content = aiText;
-        aiMsg.timestamp = OffsetDateTime.now().toString();
-        ts.messages.add(aiMsg);
-
-        ts.updatedAt = OffsetDateTime.now().toString();
-        SampleData.tutorSessions.put(ts.id, ts);
-
-        return ResponseEntity.ok(aiMsg);
+    public Mono<ResponseEntity<ChatMessageDto>> sendMessage(@PathVariable("id") String sessionId,
+                                                            @RequestBody SendMessageRequest req) {
+        Optional<UUID> userId = currentUserId();
+        if (userId.isEmpty()) return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+        String user = userId.get().toString();
+        var decision = rateLimiter.tryAcquire(user);
+        if (!decision.allowed()) return Mono.just(tooManyRequests(decision));
+
+        // Retrieves course excerpts, stores the user message and builds the bounded context
+        // (rolling summary + recent window); no request thread waits for the query embedding
+        return sessions.beginTurn(userId.get(), sessionId, req.content())
+                .flatMap(found -> found.map(turn -> reply(user, turn))
+                        .orElseGet(() -> Mono.just(ResponseEntity.notFound().build())))
+                .onErrorResume(LlmBusyException.class, e -> Mono.just(serviceUnavailable()));
+    }
+
+    private Mono<ResponseEntity<ChatMessageDto>> reply(String user, TutorSessionService.Turn turn) {
+        // only answers Gemini produced for this request count against the quota
+        return geminiService.generate(turn.subject(), turn.prompt(),
+                        answer -> rateLimiter.recordUsage(user, turn.prompt(), answer))
+                // storing the reply is blocking JDBC, keep it off the WebClient event loop
+                .publishOn(Schedulers.boundedElastic())
+                .map(aiText -> ResponseEntity.ok(sessions.appendReply(turn.sessionId(), aiText)));
+    }
+
+    record TokenEvent(String text) {}
+
+    /**
+     * SSE variant of sendMessage: "token" events carry text deltas as Gemini produces them, then a
+     * single "done" event carries the stored assistant message. The assistant message is only appended
+     * to the session once the stream completes.
+     */
+    @PostMapping(path = "/sessions/{id}/messages/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Mono<ResponseEntity<Flux<ServerSentEvent<Object>>>> streamMessage(@PathVariable("id") String sessionId,
+                                                                             @RequestBody SendMessageRequest req) {
+        Optional<UUID> userId = currentUserId();
+        if (userId.isEmpty()) return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+        String user = userId.get().toString();
+        var decision = rateLimiter.tryAcquire(user);
+        if (!decision.allowed()) return Mono.just(tooManyRequests(decision));
+
+        // the status is only known once the turn has started, so the SSE response itself is deferred
+        return sessions.beginTurn(userId.get(), sessionId, req.content())
+                .map(found -> found.map(turn -> ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM)
+                                .body(streamReply(user, turn)))
+                        .orElseGet(() -> ResponseEntity.notFound().build()))
+                .onErrorResume(LlmBusyException.class, e -> Mono.just(serviceUnavailable()));
+    }
+
+    private Flux<ServerSentEvent<Object>> streamReply(String user, TutorSessionService.Turn turn) {
+        StringBuilder full = new StringBuilder();
+        Flux<ServerSentEvent<Object>> tokens = geminiService.stream(turn.subject(), turn.prompt(),
+                        answer -> rateLimiter.recordUsage(user, turn.prompt(), answer))
+                .map(delta -> {
+                    full.append(delta);
+                    return ServerSentEvent.<Object>builder(new TokenEvent(delta)).event("token").build();
+                });
+        Flux<ServerSentEvent<Object>> done = Mono.fromSupplier(() -> {
+            ChatMessageDto aiMsg = sessions.appendReply(turn.sessionId(), full.toString());
+            return ServerSentEvent.<Object>builder(aiMsg).event("done").build();
+        }).subscribeOn(Schedulers.boundedElastic()).flux();
+        return tokens.concatWith(done)
+                .onErrorResume(LlmBusyException.class, e -> Flux.just(
+                        ServerSentEvent.<Object>builder(Map.of("message", e.getMessage())).event("error").build()));
+    }
+
+    private Optional<UUID> currentUserId() {
+        return currentUser.current().map(CurrentUser::id);
+    }
+
+    // 503 with Retry-After: the LLM call queue or the message log is full
+    private static <T> ResponseEntity<T> serviceUnavailable() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .build();
+    }
+
+    // 429 with Retry-After: the per-user request rate or the daily token quota is exhausted
+    private static <T> ResponseEntity<T> tooManyRequests(TutorRateLimiter.Decision decision) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(decision.retryAfterSeconds()))
+                .build();
     }
 }
@@ -4,6 +4,7 @@ import com.studymate.api.dto.AuthMessage;
 import com.studymate.api.dto.UserDto;
 import com.studymate.entity.UserEntity;
 import com.studymate.repository.UserRepository;
+import com.studymate.security.CurrentUserResolver;
 import com.studymate.security.JwtUtil;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -21,11 +22,14 @@ public class AuthController {
     private final UserRepository users;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final CurrentUserResolver currentUser;
 
-    public AuthController(UserRepository users, PasswordEncoder passwordEncoder, JwtUtil jwtUtil) {
+    public AuthController(UserRepository users, PasswordEncoder passwordEncoder, JwtUtil jwtUtil,
+                          CurrentUserResolver currentUser) {
         this.users = users;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtil = jwtUtil;
+        this.currentUser = currentUser;
     }
 
     record LoginRequest(String email, String password) {}
@@ -74,6 +78,7 @@ public class AuthController {
         var u = ou.get();
         u.setLastLogin(OffsetDateTime.now());
         users.save(u);
+        currentUser.invalidate(u.getId());
         String token = jwtUtil.generateToken(u.getEmail(), Map.of("role", u.getRole(), "uid", u.getId().toString()));
         AuthMessage msg = new AuthMessage();
         msg.token = token;
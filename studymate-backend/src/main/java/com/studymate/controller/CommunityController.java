@@ -3,118 +3,141 @@ package com.studymate.controller;
 import com.studymate.api.dto.DiscussionDto;
 import com.studymate.api.dto.PageResponse;
 import com.studymate.api.dto.ReplyDto;
-import com.studymate.entity.UserEntity;
-import com.studymate.repository.UserRepository;
-import com.studymate.util.SampleData;
+import com.studymate.security.CurrentUser;
+import com.studymate.security.CurrentUserResolver;
+import com.studymate.service.DiscussionEvent;
+import com.studymate.service.DiscussionEventBus;
+import com.studymate.service.DiscussionService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
-import java.time.OffsetDateTime;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/discussions")
 public class CommunityController {
 
-    private final UserRepository userRepository;
+    private final DiscussionService discussions;
+    private final DiscussionEventBus events;
+    private final CurrentUserResolver currentUser;
+    private final Duration heartbeat;
 
-    public CommunityController(UserRepository userRepository) {
-        this.userRepository = userRepository;
+    public CommunityController(DiscussionService discussions, DiscussionEventBus events, CurrentUserResolver currentUser,
+                               @Value("${app.community.events.heartbeat:15s}") Duration heartbeat) {
+        this.discussions = discussions;
+        this.events = events;
+        this.currentUser = currentUser;
+        this.heartbeat = heartbeat;
     }
 
     @GetMapping
     public ResponseEntity<PageResponse<DiscussionDto>> list(
             @RequestParam(required = false) String courseId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor
     ) {
-        List<DiscussionDto> all = new ArrayList<>(SampleData.discussions.values());
-        if (courseId != null && !courseId.isBlank()) {
-            all = all.stream()
-                    .filter(d -> courseId.equals(d.courseId))
-                    .collect(Collectors.toList());
+        UUID viewer = currentUser.current().map(CurrentUser::id).orElse(null);
+        try {
+            return ResponseEntity.ok(cursor != null
+                    ? discussions.listAfter(courseId, cursor, size, viewer)
+                    : discussions.list(courseId, page, size, viewer));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
-        long total = all.size();
-        int from = Math.min(page * size, all.size());
-        int to = Math.min(from + size, all.size());
-        List<DiscussionDto> slice = all.subList(from, to);
-        return ResponseEntity.ok(new PageResponse<>(slice, total));
     }
 
     record CreateDiscussion(String courseId, String title, String content) {}
 
     @PostMapping
     public ResponseEntity<DiscussionDto> create(@RequestBody CreateDiscussion req) {
-        DiscussionDto d = new DiscussionDto();
-        d.id = UUID.randomUUID().toString();
-        d.courseId = req.courseId();
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth != null && auth.getName() != null) {
-            Optional<UserEntity> userOpt = userRepository.findByEmail(auth.getName());
-            if (userOpt.isPresent()) {
-                UserEntity user = userOpt.get();
-                d.authorId = user.getId().toString();
-                d.authorName = user.getUsername();
-            } else {
-                d.authorId = "demo-user";
-                d.authorName = "Anonymous";
-            }
-        } else {
-            d.authorId = "demo-user";
-            d.authorName = "Anonymous";
+        Optional<CurrentUser> user = currentUser.current();
+        if (user.isEmpty()) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        try {
+            return ResponseEntity.ok(discussions.create(user.get(), req.courseId(), req.title(), req.content()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
-        d.title = req.title();
-        d.content = req.content();
-        d.replies = new ArrayList<>();
-        d.likes = 0;
-        d.isLiked = false;
-        d.createdAt = OffsetDateTime.now().toString();
-        SampleData.discussions.put(d.id, d);
-        return ResponseEntity.ok(d);
+    }
+
+    // Oldest first; list responses no longer embed replies
+    @GetMapping("/{discussionId}/replies")
+    public ResponseEntity<PageResponse<ReplyDto>> replies(@PathVariable String discussionId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return discussions.replies(discussionId, page, size)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     record ReplyRequest(String content) {}
 
     @PostMapping("/{discussionId}/replies")
     public ResponseEntity<ReplyDto> reply(@PathVariable String discussionId, @RequestBody ReplyRequest req) {
-        DiscussionDto d = SampleData.discussions.get(discussionId);
-        if (d == null) return ResponseEntity.notFound().build();
-        ReplyDto r = new ReplyDto();
-        r.id = UUID.randomUUID().toString();
-        r.discussionId = discussionId;
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth != null && auth.getName() != null) {
-            Optional<UserEntity> userOpt = userRepository.findByEmail(auth.getName());
-            if (userOpt.isPresent()) {
-                UserEntity user = userOpt.get();
-                r.authorId = user.getId().toString();
-                r.authorName = user.getUsername();
-            } else {
-                r.authorId = "demo-user";
-                r.authorName = "Anonymous";
-            }
-        } else {
-            r.authorId = "demo-user";
-            r.authorName = "Anonymous";
-        }
-        r.content = req.content();
-        r.likes = 0;
-        r.isLiked = false;
-        r.createdAt = OffsetDateTime.now().toString();
-        d.replies.add(r);
-        return ResponseEntity.ok(r);
+        Optional<CurrentUser> user = currentUser.current();
+        if (user.isEmpty()) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        return discussions.reply(user.get(), discussionId, req.content())
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    // Idempotent per user: liking twice counts once
     @PostMapping("/{discussionId}/like")
     public ResponseEntity<Void> like(@PathVariable String discussionId) {
-        DiscussionDto d = SampleData.discussions.get(discussionId);
-        if (d != null) {
-            d.likes = d.likes + 1;
-            d.isLiked = true;
+        Optional<CurrentUser> user = currentUser.current();
+        if (user.isEmpty()) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        return discussions.like(user.get().id(), discussionId)
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @DeleteMapping("/{discussionId}/like")
+    public ResponseEntity<Void> unlike(@PathVariable String discussionId) {
+        Optional<CurrentUser> user = currentUser.current();
+        if (user.isEmpty()) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        return discussions.unlike(user.get().id(), discussionId)
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Push channel for the discussion list: new discussions, replies and like totals, for one course or
+     * (without courseId) for all of them. Event names are the {@link DiscussionEvent} types.
+     */
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<Object>>> events(@RequestParam(required = false) String courseId) {
+        String topic;
+        try {
+            topic = courseId == null || courseId.isBlank()
+                    ? DiscussionEventBus.ALL
+                    : DiscussionEventBus.courseTopic(UUID.fromString(courseId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
-        return ResponseEntity.ok().build();
+        return sse(topic);
+    }
+
+    // Replies and like totals of a single thread
+    @GetMapping(path = "/{discussionId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<Object>>> discussionEvents(@PathVariable String discussionId) {
+        if (!discussions.exists(discussionId)) return ResponseEntity.notFound().build();
+        return sse(DiscussionEventBus.discussionTopic(UUID.fromString(discussionId)));
+    }
+
+    // Comment frames keep idle connections from being cut by proxies
+    private ResponseEntity<Flux<ServerSentEvent<Object>>> sse(String topic) {
+        Flux<ServerSentEvent<Object>> updates = events.subscribe(topic)
+                .map(e -> ServerSentEvent.<Object>builder(e.payload()).event(e.type()).build());
+        Flux<ServerSentEvent<Object>> keepalive = Flux.interval(heartbeat)
+                .map(i -> ServerSentEvent.<Object>builder().comment("keepalive").build());
+        return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(updates.mergeWith(keepalive.takeUntilOther(events.stopped())));
     }
 }
@@ -1,24 +1,42 @@
 package com.studymate.controller;
 
 import com.studymate.api.dto.CourseDto;
+import com.studymate.api.dto.CoursePdfDto;
 import com.studymate.api.dto.LessonDto;
 import com.studymate.api.dto.PageResponse;
-import com.studymate.entity.CoursePdfEntity;
+import com.studymate.repository.CoursePdfMetadata;
+import com.studymate.security.CurrentUser;
+import com.studymate.security.CurrentUserResolver;
+import com.studymate.service.CoursePdfDownload;
 import com.studymate.service.CourseService;
+import com.studymate.service.LessonService;
+import com.studymate.storage.BlobTooLargeException;
+import com.studymate.storage.Sendfile;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/courses")
 public class CourseController {
     private final CourseService courseService;
+    private final LessonService lessonService;
+    private final CurrentUserResolver currentUser;
 
-    public CourseController(CourseService courseService) {
+    public CourseController(CourseService courseService, LessonService lessonService, CurrentUserResolver currentUser) {
         this.courseService = courseService;
+        this.lessonService = lessonService;
+        this.currentUser = currentUser;
     }
 
     @GetMapping
@@ -26,14 +44,18 @@ public class CourseController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) String category,
-            @RequestParam(required = false) Boolean enrolled
+            @RequestParam(required = false) Boolean enrolled,
+            @RequestParam(required = false) String cursor
     ) {
-        List<CourseDto> all = courseService.list(page, size, category);
-        long total = courseService.count(category);
-        int from = Math.min(page * size, all.size());
-        int to = Math.min(from + size, all.size());
-        List<CourseDto> slice = all.subList(from, to);
-        return ResponseEntity.ok(new PageResponse<>(slice, total));
+        // Passing `cursor` (empty for the first page) opts into keyset paging; page is ignored then
+        if (cursor != null) {
+            try {
+                return ResponseEntity.ok(courseService.listAfter(cursor, size, category));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        return ResponseEntity.ok(courseService.list(page, size, category));
     }
 
     @GetMapping("/{courseId}")
@@ -45,40 +67,139 @@ public class CourseController {
 
     @PostMapping("/{courseId}/enroll")
     public ResponseEntity<Void> enroll(@PathVariable String courseId) {
-        // No-op for now
-        return ResponseEntity.ok().build();
+        Optional<CurrentUser> user = currentUser.current();
+        if (user.isEmpty()) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        return courseService.enroll(user.get().id(), courseId)
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @DeleteMapping("/{courseId}/enroll")
+    public ResponseEntity<Void> unenroll(@PathVariable String courseId) {
+        Optional<CurrentUser> user = currentUser.current();
+        if (user.isEmpty()) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        return courseService.unenroll(user.get().id(), courseId)
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.notFound().build();
     }
 
+    // isCompleted is only filled in for a signed-in user
     @GetMapping("/{courseId}/lessons")
     public ResponseEntity<List<LessonDto>> lessons(@PathVariable String courseId) {
-        // TODO: move lessons to DB; keeping sample behavior
-        List<LessonDto> lessons = List.of();
-        return ResponseEntity.ok(lessons);
+        UUID viewer = currentUser.current().map(CurrentUser::id).orElse(null);
+        return lessonService.lessons(courseId, viewer)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    // Idempotent; the completion is written behind in batches
     @PostMapping("/{courseId}/lessons/{lessonId}/complete")
     public ResponseEntity<Void> completeLesson(@PathVariable String courseId, @PathVariable String lessonId) {
-        // No-op for now
-        return ResponseEntity.ok().build();
+        Optional<CurrentUser> user = currentUser.current();
+        if (user.isEmpty()) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        return lessonService.complete(user.get().id(), courseId, lessonId)
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.notFound().build();
     }
 
     // Upload course PDF
     @PostMapping(path = "/{courseId}/pdf", consumes = "multipart/form-data")
     public ResponseEntity<Void> uploadPdf(@PathVariable String courseId, @RequestPart("file") MultipartFile file) throws Exception {
-        courseService.uploadPdf(courseId, file);
+        try {
+            courseService.uploadPdf(courseId, file);
+        } catch (BlobTooLargeException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        } catch (IllegalArgumentException e) {
+            // malformed course id
+            return ResponseEntity.badRequest().build();
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        }
         return ResponseEntity.ok().build();
     }
 
-    // Download/stream course PDF
+    // Raw upload: the request body is the PDF and is streamed to storage without multipart spooling
+    @PutMapping(path = "/{courseId}/pdf", consumes = {"application/pdf", "application/octet-stream"})
+    public ResponseEntity<Void> putPdf(@PathVariable String courseId,
+                                       @RequestHeader(value = "X-File-Name", required = false) String fileName,
+                                       HttpServletRequest request) throws Exception {
+        long declared = request.getContentLengthLong();
+        // Reject on Content-Length before a single body byte is read
+        if (declared > courseService.getMaxPdfBytes()) return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        try {
+            courseService.uploadPdf(courseId, fileName != null ? fileName : courseId + ".pdf", request.getContentType(),
+                    declared, request.getInputStream());
+        } catch (BlobTooLargeException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().build();
+    }
+
+    // PDF metadata only; answered from course_pdfs without opening the payload
+    @GetMapping(path = "/{courseId}/pdf/metadata")
+    public ResponseEntity<CoursePdfDto> pdfMetadata(@PathVariable String courseId) {
+        return courseService.getPdfMetadata(courseId)
+                .map(m -> {
+                    var d = new CoursePdfDto();
+                    d.courseId = m.courseId().toString();
+                    d.fileName = m.fileName();
+                    d.contentType = m.contentType() != null ? m.contentType() : "application/pdf";
+                    d.size = m.size();
+                    d.etag = m.etag();
+                    d.updatedAt = m.updatedAt() != null ? m.updatedAt().toString() : null;
+                    return ResponseEntity.ok().eTag(m.etag()).body(d);
+                })
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @RequestMapping(path = "/{courseId}/pdf", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> headPdf(@PathVariable String courseId) {
+        Optional<CoursePdfMetadata> pdf = courseService.getPdfMetadata(courseId);
+        if (pdf.isEmpty()) return ResponseEntity.notFound().build();
+        var headers = pdfHeaders(courseId, pdf.get());
+        headers.setContentLength(pdf.get().size());
+        return ResponseEntity.ok().headers(headers).build();
+    }
+
+    // Download/stream course PDF; Range, If-None-Match and If-Modified-Since are handled by Spring MVC.
+    // Plain full-file GETs of blob-store PDFs go out through Tomcat sendfile instead.
     @GetMapping(path = "/{courseId}/pdf")
-    public ResponseEntity<byte[]> downloadPdf(@PathVariable String courseId) {
-        Optional<CoursePdfEntity> pdf = courseService.getPdf(courseId);
+    public ResponseEntity<Resource> downloadPdf(@PathVariable String courseId, ServletWebRequest request) throws IOException {
+        Optional<CoursePdfDownload> pdf = courseService.getPdf(courseId);
         if (pdf.isEmpty()) return ResponseEntity.notFound().build();
-        var p = pdf.get();
-        return ResponseEntity.ok()
-                .header("Content-Type", p.getContentType() != null ? p.getContentType() : "application/pdf")
-                .header("Content-Disposition", "inline; filename=\"" + (p.getFileName() != null ? p.getFileName() : (courseId + ".pdf")) + "\"")
-                .body(p.getData());
+        var meta = pdf.get().metadata();
+        var content = pdf.get().content();
+        var headers = pdfHeaders(courseId, meta);
+
+        var servletRequest = request.getRequest();
+        if (content.isFile() && servletRequest.getHeader(HttpHeaders.RANGE) == null && Sendfile.isSupported(servletRequest)) {
+            // checkNotModified writes ETag/Last-Modified (or the 304) itself
+            long lastModified = headers.getLastModified();
+            headers.remove(HttpHeaders.ETAG);
+            headers.remove(HttpHeaders.LAST_MODIFIED);
+            if (request.checkNotModified(meta.etag(), lastModified)) return null;
+            var response = request.getResponse();
+            headers.forEach((name, values) -> values.forEach(v -> response.addHeader(name, v)));
+            response.setContentLengthLong(meta.size());
+            Sendfile.send(servletRequest, content.getFile(), meta.size());
+            return null;
+        }
+        return ResponseEntity.ok().headers(headers).body(content);
     }
-}
 
+    private static HttpHeaders pdfHeaders(String courseId, CoursePdfMetadata meta) {
+        var headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(meta.contentType() != null ? meta.contentType() : "application/pdf"));
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.setContentDisposition(ContentDisposition.inline()
+                .filename(meta.fileName() != null ? meta.fileName() : (courseId + ".pdf"))
+                .build());
+        headers.setETag(meta.etag());
+        if (meta.updatedAt() != null) headers.setLastModified(meta.updatedAt().toInstant());
+        return headers;
+    }
+}
@@ -0,0 +1,37 @@
+package com.studymate.controller;
+
+import com.studymate.api.dto.PageResponse;
+import com.studymate.api.dto.SearchHitDto;
+import com.studymate.service.SearchService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+    private final SearchService searchService;
+
+    public SearchController(SearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    // Ranked full-text hits over courses, discussions and PDF pages; type=course|discussion|pdf and
+    // courseId narrow the results
+    @GetMapping
+    public ResponseEntity<PageResponse<SearchHitDto>> search(
+            @RequestParam String q,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) UUID courseId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        if (type != null && !type.equals(SearchService.COURSE) && !type.equals(SearchService.DISCUSSION)
+                && !type.equals(SearchService.PDF)) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (q.length() > 200) return ResponseEntity.badRequest().build();
+        return ResponseEntity.ok(searchService.search(q, type, courseId, page, size));
+    }
+}
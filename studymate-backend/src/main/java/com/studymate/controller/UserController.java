@@ -3,6 +3,8 @@ package com.studymate.controller;
 import com.studymate.api.dto.UserDto;
 import com.studymate.entity.UserEntity;
 import com.studymate.repository.UserRepository;
+import com.studymate.security.CurrentUser;
+import com.studymate.security.CurrentUserResolver;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -10,16 +12,17 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.OffsetDateTime;
 import java.util.Optional;
-import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
 
     private final UserRepository userRepository;
+    private final CurrentUserResolver currentUser;
 
-    public UserController(UserRepository userRepository) {
+    public UserController(UserRepository userRepository, CurrentUserResolver currentUser) {
         this.userRepository = userRepository;
+        this.currentUser = currentUser;
     }
 
     @GetMapping("/me")
@@ -28,24 +31,14 @@ public class UserController {
         if (auth == null || auth.getName() == null) {
             return ResponseEntity.status(401).build();
         }
-        
-        String email = auth.getName();
-        Optional<UserEntity> userOpt = userRepository.findByEmail(email);
-        
+
+        Optional<CurrentUser> userOpt = currentUser.current();
+
         if (userOpt.isEmpty()) {
             return ResponseEntity.status(404).build();
         }
-        
-        UserEntity user = userOpt.get();
-        UserDto u = new UserDto();
-        u.id = user.getId().toString();
-        u.username = user.getUsername();
-        u.fullName = user.getFullName();
-        u.email = user.getEmail();
-        u.profilePicture = user.getProfilePicture();
-        u.createdAt = user.getCreatedAt() != null ? user.getCreatedAt().toString() : OffsetDateTime.now().toString();
-        u.lastLogin = user.getLastLogin() != null ? user.getLastLogin().toString() : null;
-        return ResponseEntity.ok(u);
+
+        return ResponseEntity.ok(toDto(userOpt.get()));
     }
 
     @PutMapping("/me")
@@ -54,32 +47,36 @@ public class UserController {
         if (auth == null || auth.getName() == null) {
             return ResponseEntity.status(401).build();
         }
-        
-        String email = auth.getName();
-        Optional<UserEntity> userOpt = userRepository.findByEmail(email);
-        
+
+        Optional<UserEntity> userOpt = currentUser.currentEntity();
+
         if (userOpt.isEmpty()) {
             return ResponseEntity.status(404).build();
         }
-        
+
         UserEntity user = userOpt.get();
-        
+
         // Update allowed fields
         if (updates.fullName != null) user.setFullName(updates.fullName);
         if (updates.username != null) user.setUsername(updates.username);
         if (updates.profilePicture != null) user.setProfilePicture(updates.profilePicture);
-        
+
         userRepository.save(user);
-        
+        currentUser.invalidate(user.getId());
+
         // Return updated user data
+        return ResponseEntity.ok(toDto(CurrentUser.of(user)));
+    }
+
+    private static UserDto toDto(CurrentUser user) {
         UserDto u = new UserDto();
-        u.id = user.getId().toString();
-        u.username = user.getUsername();
-        u.fullName = user.getFullName();
-        u.email = user.getEmail();
-        u.profilePicture = user.getProfilePicture();
-        u.createdAt = user.getCreatedAt() != null ? user.getCreatedAt().toString() : OffsetDateTime.now().toString();
-        u.lastLogin = user.getLastLogin() != null ? user.getLastLogin().toString() : null;
-        return ResponseEntity.ok(u);
+        u.id = user.id().toString();
+        u.username = user.username();
+        u.fullName = user.fullName();
+        u.email = user.email();
+        u.profilePicture = user.profilePicture();
+        u.createdAt = user.createdAt() != null ? user.createdAt().toString() : OffsetDateTime.now().toString();
+        u.lastLogin = user.lastLogin() != null ? user.lastLogin().toString() : null;
+        return u;
     }
 }
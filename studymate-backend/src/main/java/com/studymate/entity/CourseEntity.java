@@ -22,6 +22,8 @@ public class CourseEntity {
     private String difficulty;
     @Column(name = "duration_hours", nullable = false)
     private Integer duration; // hours
+    // maintained by EnrollmentCounter; never written back from a loaded entity, which would drop its flushes
+    @Column(name = "enrolled_students", updatable = false)
     private Integer enrolledStudents;
     private Double rating;
     private String thumbnail;
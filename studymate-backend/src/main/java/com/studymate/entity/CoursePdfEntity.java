@@ -1,8 +1,13 @@
 package com.studymate.entity;
 
 import jakarta.persistence.*;
+import java.time.OffsetDateTime;
 import java.util.UUID;
 
+/**
+ * PDF metadata only. The payload lives in the blob store under {@code blobKey}; rows that predate it
+ * keep a legacy {@code data} BYTEA column which is deliberately unmapped and read in chunks via JDBC.
+ */
 @Entity
 @Table(name = "course_pdfs")
 public class CoursePdfEntity {
@@ -16,9 +21,14 @@ public class CoursePdfEntity {
     @Column(name = "content_type")
     private String contentType;
 
-    @Lob
-    @Column(name = "data", nullable = false)
-    private byte[] data;
+    @Column(name = "blob_key", length = 64)
+    private String blobKey;
+
+    @Column(name = "size_bytes")
+    private Long sizeBytes;
+
+    @Column(name = "updated_at")
+    private OffsetDateTime updatedAt;
 
     public UUID getCourseId() { return courseId; }
     public void setCourseId(UUID courseId) { this.courseId = courseId; }
@@ -26,6 +36,10 @@ public class CoursePdfEntity {
     public void setFileName(String fileName) { this.fileName = fileName; }
     public String getContentType() { return contentType; }
     public void setContentType(String contentType) { this.contentType = contentType; }
-    public byte[] getData() { return data; }
-    public void setData(byte[] data) { this.data = data; }
+    public String getBlobKey() { return blobKey; }
+    public void setBlobKey(String blobKey) { this.blobKey = blobKey; }
+    public Long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(Long sizeBytes) { this.sizeBytes = sizeBytes; }
+    public OffsetDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(OffsetDateTime updatedAt) { this.updatedAt = updatedAt; }
 }
@@ -0,0 +1,46 @@
+package com.studymate.entity;
+
+import jakarta.persistence.*;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "discussion_replies")
+public class DiscussionReplyEntity {
+    @Id
+    @Column(name = "id", nullable = false, updatable = false)
+    private UUID id;
+
+    @Column(name = "discussion_id", nullable = false, updatable = false)
+    private UUID discussionId;
+
+    @Column(name = "author_id", updatable = false)
+    private UUID authorId;
+
+    @Column(name = "author_name")
+    private String authorName;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String content;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private OffsetDateTime createdAt;
+
+    @PrePersist
+    public void prePersist() {
+        if (id == null) id = UUID.randomUUID();
+        createdAt = OffsetDateTime.now();
+    }
+
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+    public UUID getDiscussionId() { return discussionId; }
+    public void setDiscussionId(UUID discussionId) { this.discussionId = discussionId; }
+    public UUID getAuthorId() { return authorId; }
+    public void setAuthorId(UUID authorId) { this.authorId = authorId; }
+    public String getAuthorName() { return authorName; }
+    public void setAuthorName(String authorName) { this.authorName = authorName; }
+    public String getContent() { return content; }
+    public void setContent(String content) { this.content = content; }
+    public OffsetDateTime getCreatedAt() { return createdAt; }
+}
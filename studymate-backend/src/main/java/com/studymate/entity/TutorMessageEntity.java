@@ -0,0 +1,48 @@
+package com.studymate.entity;
+
+import jakarta.persistence.*;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/** Append-only: rows are inserted once and never updated. */
+@Entity
+@Table(name = "tutor_messages")
+public class TutorMessageEntity {
+    @Id
+    @Column(name = "id", nullable = false, updatable = false)
+    private UUID id;
+
+    @Column(name = "session_id", nullable = false, updatable = false)
+    private UUID sessionId;
+
+    // assigned by the database (BIGSERIAL), so it follows insert order
+    @Column(name = "seq", insertable = false, updatable = false)
+    private Long seq;
+
+    @Column(nullable = false, updatable = false, length = 16)
+    private String role; // user | assistant
+
+    @Column(nullable = false, updatable = false, columnDefinition = "text")
+    private String content;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private OffsetDateTime createdAt;
+
+    @PrePersist
+    public void prePersist() {
+        if (id == null) id = UUID.randomUUID();
+        if (createdAt == null) createdAt = OffsetDateTime.now();
+    }
+
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+    public UUID getSessionId() { return sessionId; }
+    public void setSessionId(UUID sessionId) { this.sessionId = sessionId; }
+    public Long getSeq() { return seq; }
+    public String getRole() { return role; }
+    public void setRole(String role) { this.role = role; }
+    public String getContent() { return content; }
+    public void setContent(String content) { this.content = content; }
+    public OffsetDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(OffsetDateTime createdAt) { this.createdAt = createdAt; }
+}
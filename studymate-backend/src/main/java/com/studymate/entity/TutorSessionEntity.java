@@ -0,0 +1,86 @@
+package com.studymate.entity;
+
+import jakarta.persistence.*;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+@Entity
+@Table(name = "tutor_sessions")
+public class TutorSessionEntity {
+    @Id
+    @Column(name = "id", nullable = false, updatable = false)
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private UUID userId;
+
+    private String subject;
+
+    // set at creation; prompts of course sessions are grounded in the course PDF
+    @Column(name = "course_id", updatable = false)
+    private UUID courseId;
+
+    // only ever bumped in place by TutorMessageLog's flusher, so concurrent turns cannot lose increments
+    @Column(name = "message_count", nullable = false, updatable = false)
+    private Integer messageCount = 0;
+
+    @Column(columnDefinition = "text")
+    private String summary;
+
+    @Column(name = "summarized_through", nullable = false)
+    private Long summarizedThrough = 0L;
+
+    // guards summary/summarizedThrough, which a turn reads and rewrites; null until persisted
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+
+    @PrePersist
+    public void prePersist() {
+        if (id == null) id = UUID.randomUUID();
+        createdAt = OffsetDateTime.now();
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate
+    public void preUpdate() {
+        updatedAt = OffsetDateTime.now();
+    }
+
+    /** Summary lines, oldest first; stored newline-separated. */
+    public List<String> getSummaryLines() {
+        if (summary == null || summary.isEmpty()) return new ArrayList<>();
+        return new ArrayList<>(Arrays.asList(summary.split("\n")));
+    }
+
+    public void setSummaryLines(List<String> lines) {
+        this.summary = lines.isEmpty() ? null : String.join("\n", lines);
+    }
+
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+    public UUID getUserId() { return userId; }
+    public void setUserId(UUID userId) { this.userId = userId; }
+    public String getSubject() { return subject; }
+    public void setSubject(String subject) { this.subject = subject; }
+    public UUID getCourseId() { return courseId; }
+    public void setCourseId(UUID courseId) { this.courseId = courseId; }
+    public Integer getMessageCount() { return messageCount; }
+    public String getSummary() { return summary; }
+    public void setSummary(String summary) { this.summary = summary; }
+    public Long getSummarizedThrough() { return summarizedThrough; }
+    public void setSummarizedThrough(Long summarizedThrough) { this.summarizedThrough = summarizedThrough; }
+    public OffsetDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(OffsetDateTime createdAt) { this.createdAt = createdAt; }
+    public OffsetDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(OffsetDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,392 @@
+package com.studymate.pdf;
+
+import com.studymate.pdf.PdfParser.Name;
+import com.studymate.pdf.PdfParser.Ref;
+import com.studymate.pdf.PdfParser.Stream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Random access to the objects of a PDF file that is memory-mapped, not read onto the heap. Objects
+ * are located by scanning for "N G obj" headers rather than trusting the xref table, which also
+ * copes with damaged files; objects inside compressed object streams are indexed on first miss.
+ * Parsed objects are cached in a small LRU, stream data is decoded on demand and capped.
+ */
+final class PdfDocument implements Closeable {
+    private static final int CACHE_SIZE = 4096;
+    private static final int MAX_OBJECT_STREAMS_CACHED = 4;
+
+    private record Compressed(int streamNum, int index) {}
+
+    private final FileChannel channel;
+    private final ByteBuffer buf;
+    private final int size;
+    private final int maxObjectStreamBytes;
+    private final Map<Integer, Integer> offsets = new HashMap<>();
+    private Map<Integer, Compressed> compressed;
+    private final Map<Integer, Object> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Object> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private final Map<Integer, ObjectStream> objectStreams = new LinkedHashMap<>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, ObjectStream> eldest) {
+            return size() > MAX_OBJECT_STREAMS_CACHED;
+        }
+    };
+
+    private record ObjectStream(ByteBuffer data, int first, int[] nums, int[] offsets) {}
+
+    private PdfDocument(FileChannel channel, MappedByteBuffer buf, int maxObjectStreamBytes) {
+        this.channel = channel;
+        this.buf = buf;
+        this.size = buf.limit();
+        this.maxObjectStreamBytes = maxObjectStreamBytes;
+        scanObjects();
+    }
+
+    /** {@code maxObjectStreamBytes} caps the decoded size of each compressed object stream held in memory. */
+    static PdfDocument open(Path file, int maxObjectStreamBytes) throws IOException {
+        var channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("PDF too large to map");
+            return new PdfDocument(channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()),
+                    maxObjectStreamBytes);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    boolean isEncrypted() {
+        int at = lastIndexOf("/Encrypt");
+        if (at < 0) return false;
+        var parser = new PdfParser(buf, at + 8, size, true);
+        Object value = parser.next();
+        return value instanceof Ref || value instanceof Map;
+    }
+
+    /** Calls {@code visitor} for every leaf of the page tree in document order, with inherited resources. */
+    void forEachPage(Consumer<Page> visitor) throws IOException {
+        Map<String, Object> catalog = dict(resolve(rootRef()));
+        if (catalog == null) throw new IOException("PDF has no document catalog");
+        Deque<Object[]> stack = new ArrayDeque<>();
+        stack.push(new Object[]{catalog.get("Pages"), null});
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        while (!stack.isEmpty()) {
+            Object[] entry = stack.pop();
+            Map<String, Object> node = dict(resolve(entry[0]));
+            if (node == null || !visited.add(node)) continue;
+            Object resources = node.containsKey("Resources") ? node.get("Resources") : entry[1];
+            List<?> kids = list(resolve(node.get("Kids")));
+            if (kids != null && !"Page".equals(name(node.get("Type")))) {
+                for (int i = kids.size() - 1; i >= 0; i--) stack.push(new Object[]{kids.get(i), resources});
+            } else {
+                visitor.accept(new Page(node, dict(resolve(resources))));
+            }
+        }
+    }
+
+    record Page(Map<String, Object> dict, Map<String, Object> resources) {}
+
+    Object resolve(Object o) {
+        for (int hops = 0; o instanceof Ref ref && hops < 16; hops++) o = lookup(ref.num());
+        return o;
+    }
+
+    Map<String, Object> dict(Object o) {
+        o = resolve(o);
+        if (o instanceof Stream s) return s.dict();
+        return o instanceof Map<?, ?> ? castMap(o) : null;
+    }
+
+    List<?> list(Object o) {
+        o = resolve(o);
+        return o instanceof List<?> l ? l : null;
+    }
+
+    static String name(Object o) {
+        return o instanceof Name n ? n.value() : null;
+    }
+
+    double number(Object o, double fallback) {
+        o = resolve(o);
+        return o instanceof Number n ? n.doubleValue() : fallback;
+    }
+
+    /**
+     * Decoded stream data, or null when a filter is unsupported. At most {@code maxBytes} decoded
+     * bytes are produced; anything beyond is dropped.
+     */
+    byte[] streamData(Stream stream, int maxBytes) {
+        ByteBuffer raw = rawData(stream);
+        Object filter = resolve(stream.dict().get("Filter"));
+        List<Object> filters = filter == null ? List.of() : filter instanceof List<?> l ? new ArrayList<>(l) : List.of(filter);
+        byte[] data = new byte[raw.remaining()];
+        raw.get(data);
+        for (Object f : filters) {
+            String fname = name(resolve(f));
+            if (fname == null) return null;
+            data = switch (fname) {
+                case "FlateDecode", "Fl" -> inflate(data, maxBytes);
+                case "ASCIIHexDecode", "AHx" -> asciiHex(data);
+                case "ASCII85Decode", "A85" -> ascii85(data);
+                default -> null;
+            };
+            if (data == null) return null;
+        }
+        return data.length > maxBytes ? Arrays.copyOf(data, maxBytes) : data;
+    }
+
+    private ByteBuffer rawData(Stream stream) {
+        int start = stream.start();
+        int length = (int) number(stream.dict().get("Length"), -1);
+        int end = start + length;
+        if (length < 0 || end > size || !endstreamNear(end)) {
+            int found = indexOf("endstream", start);
+            end = found < 0 ? size : found;
+        }
+        return buf.duplicate().position(start).limit(Math.max(start, end)).slice();
+    }
+
+    private boolean endstreamNear(int at) {
+        var parser = new PdfParser(buf, at, Math.min(size, at + 32), false);
+        return parser.next() instanceof PdfParser.Operator op && op.value().equals("endstream");
+    }
+
+    private Object lookup(int num) {
+        if (cache.containsKey(num)) return cache.get(num);
+        Object value = null;
+        Integer offset = offsets.get(num);
+        if (offset != null) {
+            value = parseIndirect(offset);
+        } else {
+            if (compressed == null) indexObjectStreams();
+            Compressed c = compressed.get(num);
+            if (c != null) value = fromObjectStream(c);
+        }
+        cache.put(num, value);
+        return value;
+    }
+
+    private Object parseIndirect(int offset) {
+        var parser = new PdfParser(buf, offset, size, true);
+        parser.next(); // num
+        parser.next(); // gen
+        parser.next(); // obj
+        Object value = parser.next();
+        return value == PdfParser.EOF ? null : value;
+    }
+
+    // Finds "<num> <gen> obj" headers; later definitions (incremental updates) win
+    private void scanObjects() {
+        int i = indexOf("obj", 0);
+        while (i >= 0) {
+            int end = i + 3;
+            if (i > 0 && PdfParser.isWhitespace(byteAt(i - 1)) && (end >= size || !PdfParser.isRegular(byteAt(end)))) {
+                int p = i - 1;
+                while (p >= 0 && PdfParser.isWhitespace(byteAt(p))) p--;
+                int genEnd = p + 1;
+                while (p >= 0 && PdfParser.isDigit(byteAt(p))) p--;
+                int genStart = p + 1;
+                if (genStart < genEnd && p >= 0 && PdfParser.isWhitespace(byteAt(p))) {
+                    while (p >= 0 && PdfParser.isWhitespace(byteAt(p))) p--;
+                    int numEnd = p + 1;
+                    while (p >= 0 && PdfParser.isDigit(byteAt(p))) p--;
+                    int numStart = p + 1;
+                    if (numStart < numEnd && numEnd - numStart < 10 && (p < 0 || !PdfParser.isRegular(byteAt(p)))) {
+                        offsets.put((int) digits(numStart, numEnd), numStart);
+                    }
+                }
+            }
+            i = indexOf("obj", end);
+        }
+    }
+
+    private void indexObjectStreams() {
+        compressed = new HashMap<>();
+        for (var e : offsets.entrySet()) {
+            Object o = parseIndirect(e.getValue());
+            if (o instanceof Stream s && "ObjStm".equals(name(s.dict().get("Type")))) {
+                var objStm = objectStream(e.getKey(), s);
+                if (objStm == null) continue;
+                for (int i = 0; i < objStm.nums().length; i++) {
+                    compressed.putIfAbsent(objStm.nums()[i], new Compressed(e.getKey(), i));
+                }
+            }
+        }
+    }
+
+    private Object fromObjectStream(Compressed c) {
+        ObjectStream objStm = objectStreams.get(c.streamNum());
+        if (objStm == null) {
+            Object o = parseIndirect(offsets.get(c.streamNum()));
+            if (!(o instanceof Stream s)) return null;
+            objStm = objectStream(c.streamNum(), s);
+            if (objStm == null) return null;
+        }
+        int start = objStm.first() + objStm.offsets()[c.index()];
+        if (start < 0 || start >= objStm.data().limit()) return null;
+        Object value = new PdfParser(objStm.data(), start, objStm.data().limit(), true).next();
+        return value == PdfParser.EOF ? null : value;
+    }
+
+    private ObjectStream objectStream(int num, Stream s) {
+        byte[] data = streamData(s, maxObjectStreamBytes);
+        if (data == null) return null;
+        int first = Math.max(0, (int) number(s.dict().get("First"), 0));
+        int headerBytes = Math.min(first, data.length);
+        // /N is untrusted: each "num offset" pair takes at least 4 header bytes, so never size beyond that
+        int n = Math.max(0, Math.min((int) number(s.dict().get("N"), 0), (headerBytes + 1) / 4));
+        var bytes = ByteBuffer.wrap(data);
+        var header = new PdfParser(bytes, 0, headerBytes, false);
+        int[] nums = new int[n], offs = new int[n];
+        for (int i = 0; i < n; i++) {
+            if (!(header.next() instanceof Number objNum) || !(header.next() instanceof Number off)) {
+                nums = Arrays.copyOf(nums, i);
+                offs = Arrays.copyOf(offs, i);
+                break;
+            }
+            nums[i] = objNum.intValue();
+            offs[i] = off.intValue();
+        }
+        var objStm = new ObjectStream(bytes, first, nums, offs);
+        objectStreams.put(num, objStm);
+        return objStm;
+    }
+
+    // Trailer dictionaries and xref streams both carry /Root; the last one written is current
+    private Ref rootRef() throws IOException {
+        int at = size;
+        while ((at = lastIndexOf("/Root", at - 1)) >= 0) {
+            Object value = new PdfParser(buf, at + 5, size, true).next();
+            if (value instanceof Ref ref) return ref;
+        }
+        throw new IOException("PDF trailer has no /Root");
+    }
+
+    private static byte[] inflate(byte[] data, int maxBytes) {
+        var inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            var out = new ByteArrayOutputStream(Math.min(maxBytes, Math.max(1024, data.length * 4)));
+            byte[] chunk = new byte[16 * 1024];
+            while (!inflater.finished() && out.size() < maxBytes) {
+                int n = inflater.inflate(chunk);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                out.write(chunk, 0, Math.min(n, maxBytes - out.size()));
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            return null;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] asciiHex(byte[] data) {
+        var out = new ByteArrayOutputStream(data.length / 2);
+        int high = -1;
+        for (byte b : data) {
+            if (b == '>') break;
+            int v = PdfParser.hex(b);
+            if (v < 0) continue;
+            if (high < 0) {
+                high = v;
+            } else {
+                out.write(high << 4 | v);
+                high = -1;
+            }
+        }
+        if (high >= 0) out.write(high << 4);
+        return out.toByteArray();
+    }
+
+    private static byte[] ascii85(byte[] data) {
+        var out = new ByteArrayOutputStream(data.length);
+        long tuple = 0;
+        int count = 0;
+        for (int i = 0; i < data.length; i++) {
+            int c = data[i] & 0xff;
+            if (c == '~') break;
+            if (PdfParser.isWhitespace(c)) continue;
+            if (c == 'z' && count == 0) {
+                for (int k = 0; k < 4; k++) out.write(0);
+                continue;
+            }
+            if (c < '!' || c > 'u') return null;
+            tuple = tuple * 85 + (c - '!');
+            if (++count == 5) {
+                for (int k = 3; k >= 0; k--) out.write((int) (tuple >> (8 * k)) & 0xff);
+                tuple = 0;
+                count = 0;
+            }
+        }
+        if (count > 1) {
+            for (int k = count; k < 5; k++) tuple = tuple * 85 + 84;
+            for (int k = 3; k > 3 - (count - 1); k--) out.write((int) (tuple >> (8 * k)) & 0xff);
+        }
+        return out.toByteArray();
+    }
+
+    private int indexOf(String needle, int from) {
+        int first = needle.charAt(0);
+        outer:
+        for (int i = Math.max(0, from); i <= size - needle.length(); i++) {
+            if (byteAt(i) != first) continue;
+            for (int k = 1; k < needle.length(); k++) {
+                if (byteAt(i + k) != needle.charAt(k)) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private int lastIndexOf(String needle) {
+        return lastIndexOf(needle, size - needle.length());
+    }
+
+    private int lastIndexOf(String needle, int from) {
+        outer:
+        for (int i = Math.min(from, size - needle.length()); i >= 0; i--) {
+            for (int k = 0; k < needle.length(); k++) {
+                if (byteAt(i + k) != needle.charAt(k)) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private int byteAt(int i) {
+        return buf.get(i) & 0xff;
+    }
+
+    private long digits(int from, int to) {
+        long v = 0;
+        for (int i = from; i < to; i++) v = v * 10 + (byteAt(i) - '0');
+        return v;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> castMap(Object o) {
+        return (Map<String, Object>) o;
+    }
+}
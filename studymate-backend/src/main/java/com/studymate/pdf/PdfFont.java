@@ -0,0 +1,207 @@
+package com.studymate.pdf;
+
+import com.studymate.pdf.PdfParser.Name;
+import com.studymate.pdf.PdfParser.Operator;
+import com.studymate.pdf.PdfParser.Stream;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps the bytes of a shown string to Unicode for one font. A ToUnicode CMap wins when present;
+ * otherwise simple fonts fall back to their base encoding plus /Differences glyph names. Composite
+ * (Type0) fonts without a ToUnicode map cannot be decoded and yield no text.
+ */
+final class PdfFont {
+    private static final int MAX_CMAP_BYTES = 4 << 20;
+    // mappings written per CMap, overwrites included; a real font needs at most one per code
+    private static final int MAX_CMAP_ENTRIES = 1 << 17;
+    private static final Charset WIN_ANSI = Charset.forName("windows-1252");
+    private static final Map<String, String> GLYPHS = Map.ofEntries(
+            Map.entry("space", " "), Map.entry("exclam", "!"), Map.entry("quotedbl", "\""),
+            Map.entry("numbersign", "#"), Map.entry("dollar", "$"), Map.entry("percent", "%"),
+            Map.entry("ampersand", "&"), Map.entry("quotesingle", "'"), Map.entry("quoteright", "\u2019"),
+            Map.entry("quoteleft", "\u2018"), Map.entry("quotedblleft", "\u201c"), Map.entry("quotedblright", "\u201d"),
+            Map.entry("parenleft", "("), Map.entry("parenright", ")"), Map.entry("asterisk", "*"),
+            Map.entry("plus", "+"), Map.entry("comma", ","), Map.entry("hyphen", "-"), Map.entry("minus", "-"),
+            Map.entry("period", "."), Map.entry("slash", "/"), Map.entry("colon", ":"), Map.entry("semicolon", ";"),
+            Map.entry("less", "<"), Map.entry("equal", "="), Map.entry("greater", ">"), Map.entry("question", "?"),
+            Map.entry("at", "@"), Map.entry("bracketleft", "["), Map.entry("backslash", "\\"),
+            Map.entry("bracketright", "]"), Map.entry("underscore", "_"), Map.entry("braceleft", "{"),
+            Map.entry("bar", "|"), Map.entry("braceright", "}"), Map.entry("endash", "\u2013"),
+            Map.entry("emdash", "\u2014"), Map.entry("bullet", "\u2022"), Map.entry("ellipsis", "\u2026"),
+            Map.entry("fi", "fi"), Map.entry("fl", "fl"), Map.entry("ff", "ff"), Map.entry("ffi", "ffi"),
+            Map.entry("ffl", "ffl"), Map.entry("zero", "0"), Map.entry("one", "1"), Map.entry("two", "2"),
+            Map.entry("three", "3"), Map.entry("four", "4"), Map.entry("five", "5"), Map.entry("six", "6"),
+            Map.entry("seven", "7"), Map.entry("eight", "8"), Map.entry("nine", "9"));
+
+    private final Map<Integer, String> toUnicode;
+    private final int codeBytes;
+    private final String[] simple;
+
+    private PdfFont(Map<Integer, String> toUnicode, int codeBytes, String[] simple) {
+        this.toUnicode = toUnicode;
+        this.codeBytes = codeBytes;
+        this.simple = simple;
+    }
+
+    static PdfFont of(PdfDocument doc, Map<String, Object> font) {
+        boolean composite = "Type0".equals(PdfDocument.name(font.get("Subtype")));
+        if (doc.resolve(font.get("ToUnicode")) instanceof Stream cmap) {
+            byte[] data = doc.streamData(cmap, MAX_CMAP_BYTES);
+            if (data != null) {
+                Map<Integer, String> map = new HashMap<>();
+                int bytes = parseCMap(data, map);
+                if (!map.isEmpty()) return new PdfFont(map, composite ? Math.max(bytes, 2) : Math.max(bytes, 1), null);
+            }
+        }
+        if (composite) return new PdfFont(null, 2, null);
+        return new PdfFont(null, 1, simpleEncoding(doc, font));
+    }
+
+    String decode(byte[] bytes) {
+        StringBuilder out = new StringBuilder(bytes.length);
+        if (toUnicode != null) {
+            for (int i = 0; i + codeBytes <= bytes.length; i += codeBytes) {
+                int code = 0;
+                for (int k = 0; k < codeBytes; k++) code = code << 8 | (bytes[i + k] & 0xff);
+                String s = toUnicode.get(code);
+                if (s != null) out.append(s);
+            }
+        } else if (simple != null) {
+            for (byte b : bytes) {
+                String s = simple[b & 0xff];
+                if (s != null) out.append(s);
+            }
+        }
+        return out.toString();
+    }
+
+    private static String[] simpleEncoding(PdfDocument doc, Map<String, Object> font) {
+        String[] table = new String[256];
+        String base = WIN_ANSI.decode(ByteBuffer.wrap(allBytes())).toString();
+        Object encoding = doc.resolve(font.get("Encoding"));
+        Map<String, Object> encodingDict = encoding instanceof Map<?, ?> ? doc.dict(encoding) : null;
+        String baseName = encoding instanceof Name n ? n.value()
+                : encodingDict != null ? PdfDocument.name(encodingDict.get("BaseEncoding")) : null;
+        if ("MacRomanEncoding".equals(baseName) && Charset.isSupported("x-MacRoman")) {
+            base = Charset.forName("x-MacRoman").decode(ByteBuffer.wrap(allBytes())).toString();
+        }
+        for (int i = 32; i < 256; i++) {
+            char c = base.charAt(i);
+            if (c != '\ufffd' && !Character.isISOControl(c)) table[i] = String.valueOf(c);
+        }
+        List<?> differences = encodingDict != null ? doc.list(encodingDict.get("Differences")) : null;
+        if (differences != null) {
+            int code = 0;
+            for (Object o : differences) {
+                if (o instanceof Number n) {
+                    code = n.intValue();
+                } else if (o instanceof Name glyph && code >= 0 && code < 256) {
+                    table[code++] = glyphToUnicode(glyph.value());
+                }
+            }
+        }
+        return table;
+    }
+
+    private static byte[] allBytes() {
+        byte[] all = new byte[256];
+        for (int i = 0; i < 256; i++) all[i] = (byte) i;
+        return all;
+    }
+
+    static String glyphToUnicode(String glyph) {
+        if (glyph.length() == 1) return glyph;
+        String known = GLYPHS.get(glyph);
+        if (known != null) return known;
+        try {
+            if (glyph.startsWith("uni") && glyph.length() == 7) {
+                return String.valueOf((char) Integer.parseInt(glyph.substring(3), 16));
+            }
+            if (glyph.startsWith("u") && glyph.length() >= 5 && glyph.length() <= 7) {
+                return new String(Character.toChars(Integer.parseInt(glyph.substring(1), 16)));
+            }
+        } catch (IllegalArgumentException ignored) {
+            // not a Unicode-style name
+        }
+        return null;
+    }
+
+    // Reads bfchar/bfrange mappings, at most MAX_CMAP_ENTRIES of them; returns the code width in bytes
+    // from the codespace ranges
+    private static int parseCMap(byte[] data, Map<Integer, String> map) {
+        var parser = new PdfParser(ByteBuffer.wrap(data), 0, data.length, false);
+        int codeBytes = 1;
+        int budget = MAX_CMAP_ENTRIES;
+        String section = null;
+        List<Object> operands = new ArrayList<>();
+        for (Object o = parser.next(); o != PdfParser.EOF; o = parser.next()) {
+            if (!(o instanceof Operator op)) {
+                if (section != null) operands.add(o);
+                continue;
+            }
+            switch (op.value()) {
+                case "begincodespacerange", "beginbfchar", "beginbfrange" -> {
+                    section = op.value();
+                    operands.clear();
+                }
+                case "endcodespacerange" -> {
+                    for (Object range : operands) {
+                        if (range instanceof byte[] b) codeBytes = Math.max(codeBytes, b.length);
+                    }
+                    section = null;
+                }
+                case "endbfchar" -> {
+                    for (int i = 0; i + 1 < operands.size() && budget > 0; i += 2) {
+                        if (operands.get(i) instanceof byte[] src) {
+                            map.put(code(src), unicode(operands.get(i + 1)));
+                            budget--;
+                        }
+                    }
+                    section = null;
+                }
+                case "endbfrange" -> {
+                    for (int i = 0; i + 2 < operands.size() && budget > 0; i += 3) {
+                        if (!(operands.get(i) instanceof byte[] lo) || !(operands.get(i + 1) instanceof byte[] hi)) continue;
+                        int from = code(lo), to = Math.min(code(hi), from + Math.min(0xffff, budget - 1));
+                        if (to >= from) budget -= to - from + 1;
+                        Object dst = operands.get(i + 2);
+                        if (dst instanceof List<?> list) {
+                            for (int c = from; c <= to && c - from < list.size(); c++) map.put(c, unicode(list.get(c - from)));
+                        } else if (dst instanceof byte[] start && start.length >= 2) {
+                            String first = new String(start, StandardCharsets.UTF_16BE);
+                            for (int c = from; c <= to; c++) {
+                                int offset = c - from;
+                                map.put(c, first.substring(0, first.length() - 1)
+                                        + (char) (first.charAt(first.length() - 1) + offset));
+                            }
+                        }
+                    }
+                    section = null;
+                }
+                default -> {
+                    // other CMap operators (usecmap, def...) carry nothing we need
+                }
+            }
+        }
+        return codeBytes;
+    }
+
+    private static int code(byte[] bytes) {
+        int code = 0;
+        for (byte b : bytes) code = code << 8 | (b & 0xff);
+        return code;
+    }
+
+    private static String unicode(Object dst) {
+        if (dst instanceof byte[] b) return new String(b, StandardCharsets.UTF_16BE);
+        if (dst instanceof Name n) return glyphToUnicode(n.value());
+        return null;
+    }
+}
@@ -0,0 +1,321 @@
+package com.studymate.pdf;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tokenizer and object parser for PDF syntax over a {@link ByteBuffer} slice. Names become
+ * {@link Name}, strings raw {@code byte[]}, numbers {@code Double}, arrays {@code List}, dictionaries
+ * {@code Map<String, Object>}; anything else that is not a known keyword comes back as an
+ * {@link Operator} (content-stream operators, "obj", "endobj"...). Indirect references are only
+ * recognised when {@code refs} is on, since content streams never contain them.
+ */
+final class PdfParser {
+    record Name(String value) {}
+
+    record Ref(int num, int gen) {}
+
+    record Operator(String value) {}
+
+    /** A stream object: its dictionary and where its raw data starts in the enclosing buffer. */
+    record Stream(Map<String, Object> dict, int start) {}
+
+    static final Object EOF = new Object();
+    private static final Object END_ARRAY = new Object();
+    private static final Object END_DICT = new Object();
+    private static final int MAX_DEPTH = 64;
+
+    private final ByteBuffer buf;
+    private final int limit;
+    private final boolean refs;
+    private int pos;
+
+    PdfParser(ByteBuffer buf, int pos, int limit, boolean refs) {
+        this.buf = buf;
+        this.pos = pos;
+        this.limit = limit;
+        this.refs = refs;
+    }
+
+    int position() {
+        return pos;
+    }
+
+    /** Next object or operator, {@link #EOF} at the end of the slice. */
+    Object next() {
+        return next(0);
+    }
+
+    private Object next(int depth) {
+        if (depth > MAX_DEPTH) throw new IllegalStateException("PDF object nesting too deep");
+        skipWhitespace();
+        // braces only delimit PostScript calculator functions, which carry no text; skipped iteratively
+        // so a long run of them cannot exhaust the stack
+        while (pos < limit && (byteAt(pos) == '{' || byteAt(pos) == '}')) {
+            pos++;
+            skipWhitespace();
+        }
+        if (pos >= limit) return EOF;
+        int c = byteAt(pos);
+        switch (c) {
+            case '/':
+                pos++;
+                return new Name(readName());
+            case '(':
+                pos++;
+                return readLiteralString();
+            case '[': {
+                pos++;
+                List<Object> items = new ArrayList<>();
+                for (Object o = next(depth + 1); o != END_ARRAY && o != EOF; o = next(depth + 1)) items.add(o);
+                return items;
+            }
+            case ']':
+                pos++;
+                return END_ARRAY;
+            case '<':
+                if (pos + 1 < limit && byteAt(pos + 1) == '<') {
+                    pos += 2;
+                    return readDictOrStream(depth);
+                }
+                pos++;
+                return readHexString();
+            case '>':
+                pos += pos + 1 < limit && byteAt(pos + 1) == '>' ? 2 : 1;
+                return END_DICT;
+            default:
+                if (c == '+' || c == '-' || c == '.' || (c >= '0' && c <= '9')) return readNumberOrRef();
+                return keyword(readRegular());
+        }
+    }
+
+    private Object readDictOrStream(int depth) {
+        Map<String, Object> dict = new LinkedHashMap<>();
+        while (true) {
+            Object key = next(depth + 1);
+            if (key == END_DICT || key == EOF) break;
+            if (!(key instanceof Name name)) continue;
+            Object value = next(depth + 1);
+            if (value == END_DICT || value == EOF) break;
+            dict.put(name.value(), value);
+        }
+        int mark = pos;
+        skipWhitespace();
+        if (startsWith("stream")) {
+            pos += 6;
+            if (pos < limit && byteAt(pos) == '\r') pos++;
+            if (pos < limit && byteAt(pos) == '\n') pos++;
+            return new Stream(dict, pos);
+        }
+        pos = mark;
+        return dict;
+    }
+
+    private Object readNumberOrRef() {
+        int start = pos;
+        Double number = readNumber();
+        if (number == null) return keyword(readRegular());
+        if (!refs || number != Math.rint(number) || byteAt(start) == '+' || byteAt(start) == '-') return number;
+        int mark = pos;
+        skipWhitespace();
+        int genStart = pos;
+        while (pos < limit && isDigit(byteAt(pos))) pos++;
+        if (pos > genStart && pos < limit && isWhitespace(byteAt(pos))) {
+            int gen = (int) parseLong(genStart, pos);
+            skipWhitespace();
+            if (pos < limit && byteAt(pos) == 'R' && (pos + 1 >= limit || !isRegular(byteAt(pos + 1)))) {
+                pos++;
+                return new Ref(number.intValue(), gen);
+            }
+        }
+        pos = mark;
+        return number;
+    }
+
+    private Double readNumber() {
+        int start = pos;
+        if (byteAt(pos) == '+' || byteAt(pos) == '-') pos++;
+        boolean digits = false, dot = false;
+        while (pos < limit) {
+            int c = byteAt(pos);
+            if (isDigit(c)) digits = true;
+            else if (c == '.' && !dot) dot = true;
+            else break;
+            pos++;
+        }
+        if (!digits) {
+            pos = start;
+            return null;
+        }
+        String text = ascii(start, pos);
+        try {
+            return Double.parseDouble(text.startsWith("+") ? text.substring(1) : text);
+        } catch (NumberFormatException e) {
+            return 0.0;
+        }
+    }
+
+    private Object keyword(String word) {
+        switch (word) {
+            case "true": return Boolean.TRUE;
+            case "false": return Boolean.FALSE;
+            case "null": return null;
+            case "":
+                pos++; // stray delimiter
+                return new Operator("");
+            default: return new Operator(word);
+        }
+    }
+
+    private String readName() {
+        StringBuilder name = new StringBuilder();
+        while (pos < limit && isRegular(byteAt(pos))) {
+            int c = byteAt(pos++);
+            if (c == '#' && pos + 1 < limit && hex(byteAt(pos)) >= 0 && hex(byteAt(pos + 1)) >= 0) {
+                c = hex(byteAt(pos)) << 4 | hex(byteAt(pos + 1));
+                pos += 2;
+            }
+            name.append((char) c);
+        }
+        return name.toString();
+    }
+
+    private byte[] readLiteralString() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int nesting = 1;
+        while (pos < limit) {
+            int c = byteAt(pos++);
+            if (c == '(') {
+                nesting++;
+            } else if (c == ')') {
+                if (--nesting == 0) break;
+            } else if (c == '\\' && pos < limit) {
+                c = byteAt(pos++);
+                switch (c) {
+                    case 'n' -> c = '\n';
+                    case 'r' -> c = '\r';
+                    case 't' -> c = '\t';
+                    case 'b' -> c = '\b';
+                    case 'f' -> c = '\f';
+                    case '\r' -> {
+                        if (pos < limit && byteAt(pos) == '\n') pos++;
+                        continue;
+                    }
+                    case '\n' -> {
+                        continue;
+                    }
+                    default -> {
+                        if (c >= '0' && c <= '7') {
+                            int value = c - '0';
+                            for (int i = 0; i < 2 && pos < limit && byteAt(pos) >= '0' && byteAt(pos) <= '7'; i++) {
+                                value = value * 8 + (byteAt(pos++) - '0');
+                            }
+                            c = value & 0xff;
+                        }
+                    }
+                }
+            }
+            out.write(c);
+        }
+        return out.toByteArray();
+    }
+
+    private byte[] readHexString() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int high = -1;
+        while (pos < limit) {
+            int c = byteAt(pos++);
+            if (c == '>') break;
+            int v = hex(c);
+            if (v < 0) continue;
+            if (high < 0) {
+                high = v;
+            } else {
+                out.write(high << 4 | v);
+                high = -1;
+            }
+        }
+        if (high >= 0) out.write(high << 4);
+        return out.toByteArray();
+    }
+
+    private String readRegular() {
+        int start = pos;
+        while (pos < limit && isRegular(byteAt(pos))) pos++;
+        return ascii(start, pos);
+    }
+
+    /** Skips inline image data after an ID operator, up to and including the closing EI. */
+    void skipInlineImage() {
+        if (pos < limit && isWhitespace(byteAt(pos))) pos++;
+        while (pos + 1 < limit) {
+            if (byteAt(pos) == 'E' && byteAt(pos + 1) == 'I' && isWhitespace(byteAt(pos - 1))
+                    && (pos + 2 >= limit || !isRegular(byteAt(pos + 2)))) {
+                pos += 2;
+                return;
+            }
+            pos++;
+        }
+        pos = limit;
+    }
+
+    void skipWhitespace() {
+        while (pos < limit) {
+            int c = byteAt(pos);
+            if (c == '%') {
+                while (pos < limit && byteAt(pos) != '\n' && byteAt(pos) != '\r') pos++;
+            } else if (isWhitespace(c)) {
+                pos++;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private boolean startsWith(String word) {
+        if (pos + word.length() > limit) return false;
+        for (int i = 0; i < word.length(); i++) {
+            if (byteAt(pos + i) != word.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private int byteAt(int i) {
+        return buf.get(i) & 0xff;
+    }
+
+    private long parseLong(int from, int to) {
+        long v = 0;
+        for (int i = from; i < to; i++) v = v * 10 + (byteAt(i) - '0');
+        return v;
+    }
+
+    private String ascii(int from, int to) {
+        char[] chars = new char[to - from];
+        for (int i = from; i < to; i++) chars[i - from] = (char) byteAt(i);
+        return new String(chars);
+    }
+
+    static boolean isWhitespace(int c) {
+        return c == 0 || c == 9 || c == 10 || c == 12 || c == 13 || c == 32;
+    }
+
+    static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    static boolean isRegular(int c) {
+        return !isWhitespace(c) && "()<>[]{}/%".indexOf(c) < 0;
+    }
+
+    static int hex(int c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+        return -1;
+    }
+}
@@ -0,0 +1,200 @@
+package com.studymate.pdf;
+
+import com.studymate.pdf.PdfParser.Name;
+import com.studymate.pdf.PdfParser.Operator;
+import com.studymate.pdf.PdfParser.Stream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Plain-text extraction from PDF files, one page at a time: only the current page's content streams
+ * are decoded, and both the decoded bytes and the collected text are capped per page, so memory stays
+ * bounded whatever the file size. Text comes from the show-text operators (Tj, TJ, ', ") of the page
+ * and of the form XObjects it draws; line breaks follow text-positioning moves. Fonts are decoded via
+ * ToUnicode maps or their simple encodings. Encrypted files are rejected.
+ * <p>
+ * This is a pragmatic extractor for searchable text, not a layout engine: reading order is content
+ * stream order, and images (scans) yield nothing.
+ */
+public final class PdfTextExtractor {
+    private static final int MAX_FORM_DEPTH = 4;
+
+    @FunctionalInterface
+    public interface PageHandler {
+        void page(int pageNumber, String text) throws IOException;
+    }
+
+    private final int maxPageChars;
+    private final int maxStreamBytes;
+
+    public PdfTextExtractor(int maxPageChars, int maxStreamBytes) {
+        this.maxPageChars = maxPageChars;
+        this.maxStreamBytes = maxStreamBytes;
+    }
+
+    /** Calls {@code handler} for every page (1-based) in order; returns the number of pages. */
+    public int extract(Path pdf, PageHandler handler) throws IOException {
+        try (var doc = PdfDocument.open(pdf, maxStreamBytes)) {
+            if (doc.isEncrypted()) throw new IOException("Encrypted PDFs are not supported");
+            Map<Object, PdfFont> fonts = new IdentityHashMap<>();
+            int[] pages = {0};
+            IOException[] failure = {null};
+            doc.forEachPage(page -> {
+                if (failure[0] != null) return;
+                try {
+                    handler.page(++pages[0], pageText(doc, page, fonts));
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) throw failure[0];
+            return pages[0];
+        }
+    }
+
+    private String pageText(PdfDocument doc, PdfDocument.Page page, Map<Object, PdfFont> fonts) {
+        var text = new TextBuilder(maxPageChars);
+        Object contents = doc.resolve(page.dict().get("Contents"));
+        List<?> streams = contents instanceof List<?> l ? l : contents == null ? List.of() : List.of(contents);
+        for (Object s : streams) {
+            if (text.full()) break;
+            if (doc.resolve(s) instanceof Stream stream) {
+                byte[] data = doc.streamData(stream, maxStreamBytes);
+                if (data != null) interpret(doc, data, page.resources(), fonts, text, 0);
+            }
+        }
+        return text.toString();
+    }
+
+    private void interpret(PdfDocument doc, byte[] content, Map<String, Object> resources,
+                           Map<Object, PdfFont> fonts, TextBuilder text, int depth) {
+        var parser = new PdfParser(ByteBuffer.wrap(content), 0, content.length, false);
+        List<Object> operands = new ArrayList<>();
+        PdfFont font = null;
+        double lastY = Double.NaN;
+        for (Object o = parser.next(); o != PdfParser.EOF && !text.full(); o = parser.next()) {
+            if (!(o instanceof Operator op)) {
+                if (operands.size() < 64) operands.add(o);
+                continue;
+            }
+            switch (op.value()) {
+                case "BT" -> lastY = Double.NaN;
+                case "ET" -> text.space();
+                case "Tf" -> {
+                    if (!operands.isEmpty() && operands.get(0) instanceof Name name) font = font(doc, resources, name, fonts);
+                }
+                case "Td", "TD" -> {
+                    double ty = number(operands, 1);
+                    if (ty != 0) text.newline();
+                    else if (number(operands, 0) > 0) text.space();
+                }
+                case "Tm" -> {
+                    double y = number(operands, 5);
+                    if (!Double.isNaN(lastY) && y != lastY) text.newline();
+                    else text.space();
+                    lastY = y;
+                }
+                case "T*" -> text.newline();
+                case "Tj" -> show(font, operands, 0, text);
+                case "'" -> {
+                    text.newline();
+                    show(font, operands, 0, text);
+                }
+                case "\"" -> {
+                    text.newline();
+                    show(font, operands, 2, text);
+                }
+                case "TJ" -> {
+                    if (!operands.isEmpty() && operands.get(0) instanceof List<?> items) {
+                        for (Object item : items) {
+                            if (item instanceof byte[] s && font != null) text.append(font.decode(s));
+                            // a large negative adjustment is how many generators encode a word gap
+                            else if (item instanceof Number n && n.doubleValue() < -200) text.space();
+                        }
+                    }
+                }
+                case "Do" -> {
+                    if (depth < MAX_FORM_DEPTH && !operands.isEmpty() && operands.get(0) instanceof Name name) {
+                        drawForm(doc, resources, name, fonts, text, depth);
+                    }
+                }
+                case "ID" -> parser.skipInlineImage();
+                default -> {
+                    // graphics operators do not affect the text
+                }
+            }
+            operands.clear();
+        }
+    }
+
+    private void drawForm(PdfDocument doc, Map<String, Object> resources, Name name, Map<Object, PdfFont> fonts,
+                          TextBuilder text, int depth) {
+        Map<String, Object> xobjects = resources != null ? doc.dict(resources.get("XObject")) : null;
+        if (xobjects == null) return;
+        if (!(doc.resolve(xobjects.get(name.value())) instanceof Stream form)) return;
+        if (!"Form".equals(PdfDocument.name(form.dict().get("Subtype")))) return;
+        byte[] data = doc.streamData(form, maxStreamBytes);
+        if (data == null) return;
+        Map<String, Object> formResources = doc.dict(form.dict().get("Resources"));
+        interpret(doc, data, formResources != null ? formResources : resources, fonts, text, depth + 1);
+    }
+
+    private static PdfFont font(PdfDocument doc, Map<String, Object> resources, Name name, Map<Object, PdfFont> fonts) {
+        Map<String, Object> fontDicts = resources != null ? doc.dict(resources.get("Font")) : null;
+        if (fontDicts == null) return null;
+        Map<String, Object> font = doc.dict(fontDicts.get(name.value()));
+        if (font == null) return null;
+        return fonts.computeIfAbsent(font, f -> PdfFont.of(doc, font));
+    }
+
+    private static void show(PdfFont font, List<Object> operands, int index, TextBuilder text) {
+        if (font != null && operands.size() > index && operands.get(index) instanceof byte[] s) {
+            text.append(font.decode(s));
+        }
+    }
+
+    private static double number(List<Object> operands, int index) {
+        return operands.size() > index && operands.get(index) instanceof Number n ? n.doubleValue() : 0;
+    }
+
+    // Collapses whitespace as it goes and stops accepting text at the cap
+    private static final class TextBuilder {
+        private final StringBuilder sb = new StringBuilder();
+        private final int max;
+
+        TextBuilder(int max) {
+            this.max = max;
+        }
+
+        boolean full() {
+            return sb.length() >= max;
+        }
+
+        void append(String s) {
+            for (int i = 0; i < s.length() && !full(); i++) {
+                char c = s.charAt(i);
+                if (c == '\n' || c == '\r') newline();
+                else if (Character.isWhitespace(c) || Character.isISOControl(c)) space();
+                else sb.append(c);
+            }
+        }
+
+        void space() {
+            if (sb.length() > 0 && !Character.isWhitespace(sb.charAt(sb.length() - 1)) && !full()) sb.append(' ');
+        }
+
+        void newline() {
+            if (sb.length() == 0 || full()) return;
+            if (sb.charAt(sb.length() - 1) == ' ') sb.setLength(sb.length() - 1);
+            if (sb.length() > 0 && sb.charAt(sb.length() - 1) != '\n') sb.append('\n');
+        }
+
+        @Override
+        public String toString() {
+            return sb.toString().strip();
+        }
+    }
+}
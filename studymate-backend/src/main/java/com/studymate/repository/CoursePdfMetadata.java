@@ -0,0 +1,20 @@
+package com.studymate.repository;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/** Read-only view of a course PDF row that never touches the payload. */
+public record CoursePdfMetadata(UUID courseId, String fileName, String contentType, Long sizeBytes,
+                                String blobKey, OffsetDateTime updatedAt) {
+
+    public long size() {
+        return sizeBytes != null ? sizeBytes : 0L;
+    }
+
+    public String etag() {
+        // Blob-store content is addressed by its SHA-256, which is already a strong validator
+        if (blobKey != null) return "\"" + blobKey + "\"";
+        long version = updatedAt != null ? updatedAt.toInstant().toEpochMilli() : 0L;
+        return "\"" + Long.toHexString(version) + "-" + Long.toHexString(size()) + "\"";
+    }
+}
@@ -2,8 +2,15 @@ package com.studymate.repository;
 
 import com.studymate.entity.CoursePdfEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Optional;
 import java.util.UUID;
 
 public interface CoursePdfRepository extends JpaRepository<CoursePdfEntity, UUID> {
+
+    @Query("select new com.studymate.repository.CoursePdfMetadata(p.courseId, p.fileName, p.contentType, p.sizeBytes, " +
+            "p.blobKey, p.updatedAt) from CoursePdfEntity p where p.courseId = :courseId")
+    Optional<CoursePdfMetadata> findMetadata(@Param("courseId") UUID courseId);
 }
@@ -1,9 +1,42 @@
 package com.studymate.repository;
 
 import com.studymate.entity.CourseEntity;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.UUID;
 
 public interface CourseRepository extends JpaRepository<CourseEntity, UUID> {
+
+    // lower(category) matches the expression index from V101 so the filter stays an index scan
+    @Query(value = "select c from CourseEntity c where lower(c.category) = lower(:category)",
+            countQuery = "select count(c) from CourseEntity c where lower(c.category) = lower(:category)")
+    Page<CourseEntity> findByCategory(@Param("category") String category, Pageable pageable);
+
+    // Keyset (seek) pages over (created_at, id); cost is independent of how deep the client has scrolled
+    @Query(value = "select * from courses order by created_at desc, id desc limit :limit", nativeQuery = true)
+    List<CourseEntity> findFirstSeekPage(@Param("limit") int limit);
+
+    @Query(value = "select * from courses where (created_at, id) < (:createdAt, :id) " +
+            "order by created_at desc, id desc limit :limit", nativeQuery = true)
+    List<CourseEntity> findSeekPageAfter(@Param("createdAt") OffsetDateTime createdAt, @Param("id") UUID id,
+                                         @Param("limit") int limit);
+
+    @Query(value = "select * from courses where lower(category) = lower(:category) " +
+            "order by created_at desc, id desc limit :limit", nativeQuery = true)
+    List<CourseEntity> findFirstSeekPageByCategory(@Param("category") String category, @Param("limit") int limit);
+
+    @Query(value = "select * from courses where lower(category) = lower(:category) and (created_at, id) < (:createdAt, :id) " +
+            "order by created_at desc, id desc limit :limit", nativeQuery = true)
+    List<CourseEntity> findSeekPageByCategoryAfter(@Param("category") String category,
+                                                   @Param("createdAt") OffsetDateTime createdAt, @Param("id") UUID id,
+                                                   @Param("limit") int limit);
+
+    @Query("select count(c) from CourseEntity c where lower(c.category) = lower(:category)")
+    long countByCategory(@Param("category") String category);
 }
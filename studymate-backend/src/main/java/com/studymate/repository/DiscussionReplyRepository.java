@@ -0,0 +1,14 @@
+package com.studymate.repository;
+
+import com.studymate.entity.DiscussionReplyEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface DiscussionReplyRepository extends JpaRepository<DiscussionReplyEntity, UUID> {
+
+    // oldest first, served by idx_discussion_replies_thread
+    List<DiscussionReplyEntity> findByDiscussionIdOrderByCreatedAtAscIdAsc(UUID discussionId, Pageable pageable);
+}
@@ -0,0 +1,38 @@
+package com.studymate.repository;
+
+import com.studymate.entity.DiscussionEntity;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface DiscussionRepository extends JpaRepository<DiscussionEntity, UUID> {
+
+    Page<DiscussionEntity> findByCourseId(UUID courseId, Pageable pageable);
+
+    long countByCourseId(UUID courseId);
+
+    // Keyset pages over (created_at, id), newest first; same contract as the course seek queries
+    @Query(value = "select * from discussions order by created_at desc, id desc limit :limit", nativeQuery = true)
+    List<DiscussionEntity> findFirstSeekPage(@Param("limit") int limit);
+
+    @Query(value = "select * from discussions where (created_at, id) < (:createdAt, :id) " +
+            "order by created_at desc, id desc limit :limit", nativeQuery = true)
+    List<DiscussionEntity> findSeekPageAfter(@Param("createdAt") OffsetDateTime createdAt, @Param("id") UUID id,
+                                             @Param("limit") int limit);
+
+    @Query(value = "select * from discussions where course_id = :courseId " +
+            "order by created_at desc, id desc limit :limit", nativeQuery = true)
+    List<DiscussionEntity> findFirstSeekPageByCourse(@Param("courseId") UUID courseId, @Param("limit") int limit);
+
+    @Query(value = "select * from discussions where course_id = :courseId and (created_at, id) < (:createdAt, :id) " +
+            "order by created_at desc, id desc limit :limit", nativeQuery = true)
+    List<DiscussionEntity> findSeekPageByCourseAfter(@Param("courseId") UUID courseId,
+                                                     @Param("createdAt") OffsetDateTime createdAt, @Param("id") UUID id,
+                                                     @Param("limit") int limit);
+}
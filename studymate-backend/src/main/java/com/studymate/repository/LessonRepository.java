@@ -0,0 +1,17 @@
+package com.studymate.repository;
+
+import com.studymate.entity.LessonEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface LessonRepository extends JpaRepository<LessonEntity, UUID> {
+
+    // served by idx_lessons_course_position
+    List<LessonEntity> findByCourseIdOrderByPositionAscIdAsc(UUID courseId);
+
+    @Query("select distinct l.courseId from LessonEntity l")
+    List<UUID> findCourseIdsWithLessons();
+}
@@ -0,0 +1,17 @@
+package com.studymate.repository;
+
+import com.studymate.entity.TutorMessageEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface TutorMessageRepository extends JpaRepository<TutorMessageEntity, UUID> {
+
+    // Pages newest-first by seq; the total comes from tutor_sessions.message_count instead of a count query
+    List<TutorMessageEntity> findBySessionIdOrderBySeqDesc(UUID sessionId, Pageable pageable);
+
+    // The unsummarized tail of a session: bounded by the context window, not by session length
+    List<TutorMessageEntity> findBySessionIdAndSeqGreaterThanOrderBySeqAsc(UUID sessionId, long seq);
+}
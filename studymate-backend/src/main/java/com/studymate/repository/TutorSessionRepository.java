@@ -0,0 +1,17 @@
+package com.studymate.repository;
+
+import com.studymate.entity.TutorSessionEntity;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface TutorSessionRepository extends JpaRepository<TutorSessionEntity, UUID> {
+
+    // served by idx_tutor_sessions_user_updated (user_id, updated_at desc, id desc)
+    Page<TutorSessionEntity> findByUserId(UUID userId, Pageable pageable);
+
+    Optional<TutorSessionEntity> findByIdAndUserId(UUID id, UUID userId);
+}
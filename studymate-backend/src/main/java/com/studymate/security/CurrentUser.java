@@ -0,0 +1,16 @@
+package com.studymate.security;
+
+import com.studymate.entity.UserEntity;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/** Immutable snapshot of the authenticated user, safe to share through the identity cache. */
+public record CurrentUser(UUID id, String username, String fullName, String email, String role,
+                          String profilePicture, OffsetDateTime createdAt, OffsetDateTime lastLogin) {
+
+    public static CurrentUser of(UserEntity e) {
+        return new CurrentUser(e.getId(), e.getUsername(), e.getFullName(), e.getEmail(), e.getRole(),
+                e.getProfilePicture(), e.getCreatedAt(), e.getLastLogin());
+    }
+}
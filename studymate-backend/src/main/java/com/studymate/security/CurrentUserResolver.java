@@ -0,0 +1,79 @@
+package com.studymate.security;
+
+import com.studymate.entity.UserEntity;
+import com.studymate.repository.UserRepository;
+import com.studymate.util.ExpiringLruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Maps the authenticated JWT to a user. Uses the {@code uid} claim the token already carries and a
+ * short-lived identity cache, so most requests resolve the caller without touching the users table.
+ * Anything that changes a user row must call {@link #invalidate(UUID)}.
+ */
+@Component
+public class CurrentUserResolver {
+
+    private final UserRepository userRepository;
+    private final ExpiringLruCache<UUID, CurrentUser> identities;
+
+    public CurrentUserResolver(UserRepository userRepository,
+                               @Value("${app.identity-cache.maxEntries:10000}") int maxEntries,
+                               @Value("${app.identity-cache.ttl:60s}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.identities = new ExpiringLruCache<>(maxEntries, ttl);
+    }
+
+    public Optional<CurrentUser> current() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || auth.getName() == null) return Optional.empty();
+        UUID uid = uidOf(auth);
+        if (uid == null) {
+            // tokens issued before uid was embedded: fall back to the email lookup
+            return userRepository.findByEmail(auth.getName()).map(this::remember);
+        }
+        CurrentUser cached = identities.get(uid);
+        if (cached != null) return Optional.of(cached);
+        return userRepository.findById(uid).map(this::remember);
+    }
+
+    /** Managed entity for callers that are about to modify the user. Always hits the database. */
+    public Optional<UserEntity> currentEntity() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || auth.getName() == null) return Optional.empty();
+        UUID uid = uidOf(auth);
+        return uid != null ? userRepository.findById(uid) : userRepository.findByEmail(auth.getName());
+    }
+
+    public void invalidate(UUID userId) {
+        identities.invalidate(userId);
+    }
+
+    public Map<String, Object> cacheStats() {
+        return identities.stats();
+    }
+
+    private CurrentUser remember(UserEntity e) {
+        var user = CurrentUser.of(e);
+        identities.put(user.id(), user);
+        return user;
+    }
+
+    private static UUID uidOf(Authentication auth) {
+        if (auth.getDetails() instanceof JwtUtil.VerifiedToken token && token.uid() != null) {
+            try {
+                return UUID.fromString(token.uid());
+            } catch (IllegalArgumentException ignored) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
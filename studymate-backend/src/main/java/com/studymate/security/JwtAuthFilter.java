@@ -1,19 +1,16 @@
 package com.studymate.security;
 
-import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.List;
 
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
@@ -39,11 +36,11 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         if (auth != null && auth.startsWith("Bearer ")) {
             String token = auth.substring(7);
             try {
-                Claims claims = jwtUtil.parse(token);
-                String subject = claims.getSubject();
-                String role = (String) claims.getOrDefault("role", "USER");
-                var authToken = new UsernamePasswordAuthenticationToken(subject, null,
-                        List.of(new SimpleGrantedAuthority("ROLE_" + role)));
+                var verified = jwtUtil.verify(token);
+                var authToken = new UsernamePasswordAuthenticationToken(verified.subject(), null,
+                        verified.authorities());
+                // carried along so CurrentUserResolver can use the uid claim without a lookup
+                authToken.setDetails(verified);
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             } catch (Exception ex) {
                 // invalid token -> clear context; continue to entry point
@@ -1,31 +1,52 @@
 package com.studymate.security;
 
+import com.studymate.util.ExpiringLruCache;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 
 @Component
 public class JwtUtil {
     private final Key key;
     private final long expirationMillis;
+    private final JwtParser parser;
+    // SHA-256(token) -> verified claims; entries never outlive the token's own exp
+    private final ExpiringLruCache<String, VerifiedToken> verified;
 
     public JwtUtil(
             @Value("${jwt.secret:VGhpcy1pczMtYS1zYWZlLXNob3J0LXNlY3JldC1jaGFuZ2UtaXQh}") String secretBase64,
-            @Value("${jwt.expirationMillis:86400000}") long expirationMillis
+            @Value("${jwt.expirationMillis:86400000}") long expirationMillis,
+            @Value("${jwt.cache.maxEntries:10000}") int cacheMaxEntries,
+            @Value("${jwt.cache.ttl:10m}") Duration cacheTtl
     ) {
         this.key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretBase64));
         this.expirationMillis = expirationMillis;
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.verified = new ExpiringLruCache<>(cacheMaxEntries, cacheTtl);
     }
 
+    /** Claims from a token whose signature and expiry have been checked. */
+    public record VerifiedToken(String subject, String uid, String role, List<GrantedAuthority> authorities,
+                                long expiresAtMillis) {}
+
     public String generateToken(String subject, Map<String, Object> claims) {
         Instant now = Instant.now();
         return Jwts.builder()
@@ -38,10 +59,37 @@ public class JwtUtil {
     }
 
     public Claims parse(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    /**
+     * Verifies the token, or returns the cached result of an earlier verification. Throws the usual
+     * jjwt exceptions for bad or expired tokens; failures are never cached.
+     */
+    public VerifiedToken verify(String token) {
+        String digest = digest(token);
+        VerifiedToken cached = verified.get(digest);
+        if (cached != null) return cached;
+
+        Claims claims = parse(token);
+        String role = (String) claims.getOrDefault("role", "USER");
+        long exp = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+        var result = new VerifiedToken(claims.getSubject(), (String) claims.get("uid"), role,
+                List.of(new SimpleGrantedAuthority("ROLE_" + role)), exp);
+        verified.put(digest, result, exp);
+        return result;
+    }
+
+    public Map<String, Object> cacheStats() {
+        return verified.stats();
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
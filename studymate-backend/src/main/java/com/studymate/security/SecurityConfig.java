@@ -1,5 +1,6 @@
 package com.studymate.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -41,6 +42,8 @@ public class SecurityConfig {
                 .authenticationEntryPoint(jsonAuthEntryPoint)
                 .accessDeniedHandler(jsonAccessDeniedHandler))
             .authorizeHttpRequests(auth -> auth
+                // async re-dispatches (Mono/SSE handlers) were already authorized on the original request
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/api/auth/login", "/api/auth/signup").permitAll()
                 .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
                 .requestMatchers("/actuator/health").permitAll()
@@ -67,8 +70,11 @@ public class SecurityConfig {
         // Adjust allowed origins as needed; include localhost:3000 for Next.js dev
         configuration.setAllowedOrigins(List.of("http://localhost:3000"));
         configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "PATCH", "OPTIONS"));
-        configuration.setAllowedHeaders(List.of("Authorization", "Content-Type", "X-Requested-With"));
-        configuration.setExposedHeaders(List.of("Authorization"));
+        configuration.setAllowedHeaders(List.of("Authorization", "Content-Type", "X-Requested-With",
+                "Range", "If-Range", "If-None-Match", "If-Modified-Since", "X-File-Name"));
+        // PDF.js needs the range headers to fetch only the pages it renders
+        configuration.setExposedHeaders(List.of("Authorization", "Accept-Ranges", "Content-Range", "Content-Length",
+                "ETag", "Last-Modified"));
         configuration.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -0,0 +1,126 @@
+package com.studymate.service;
+
+import com.studymate.storage.BlobStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deletes blobs no course_pdfs row points at, once they were last written more than {@code gc-grace}
+ * ago. The grace period covers uploads whose metadata has not committed yet, including ones that
+ * deduplicated onto a blob another course just released (the store refreshes a blob's write time on
+ * every put); blobs of uploads whose transaction rolled back are collected the same way. The store
+ * re-checks the write time under its per-key lock before deleting, so a put racing the sweep wins.
+ */
+@Component
+public class BlobGarbageCollector implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(BlobGarbageCollector.class);
+    private static final int BATCH = 500;
+
+    private final JdbcTemplate jdbc;
+    private final BlobStore blobStore;
+    private final Duration interval;
+    private final Duration grace;
+    private final LongAdder deleted = new LongAdder();
+    private final LongAdder sweeps = new LongAdder();
+    private ScheduledExecutorService scheduler;
+
+    public BlobGarbageCollector(JdbcTemplate jdbc, BlobStore blobStore,
+                                @Value("${app.storage.gc-interval:1h}") Duration interval,
+                                @Value("${app.storage.gc-grace:24h}") Duration grace) {
+        this.jdbc = jdbc;
+        this.blobStore = blobStore;
+        this.interval = interval;
+        this.grace = grace;
+    }
+
+    /** Returns the number of blobs deleted. */
+    public int sweep() throws IOException {
+        Instant cutoff = Instant.now().minus(grace);
+        List<String> batch = new ArrayList<>(BATCH);
+        int[] removed = {0};
+        blobStore.forEachWrittenBefore(cutoff, key -> {
+            batch.add(key);
+            if (batch.size() == BATCH) removed[0] += collect(batch, cutoff);
+        });
+        removed[0] += collect(batch, cutoff);
+        sweeps.increment();
+        deleted.add(removed[0]);
+        return removed[0];
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sweeps", sweeps.sum());
+        stats.put("deleted", deleted.sum());
+        return stats;
+    }
+
+    private int collect(List<String> keys, Instant cutoff) {
+        if (keys.isEmpty()) return 0;
+        String placeholders = String.join(",", Collections.nCopies(keys.size(), "?"));
+        Set<String> referenced = new HashSet<>(jdbc.queryForList(
+                "select blob_key from course_pdfs where blob_key in (" + placeholders + ")", String.class, keys.toArray()));
+        int removed = 0;
+        for (String key : keys) {
+            if (referenced.contains(key)) continue;
+            try {
+                if (blobStore.deleteIfWrittenBefore(key, cutoff)) removed++;
+            } catch (IOException e) {
+                log.warn("Could not delete unreferenced blob {}: {}", key, e.getMessage());
+            }
+        }
+        keys.clear();
+        return removed;
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            var t = new Thread(r, "blob-gc");
+            t.setDaemon(true);
+            return t;
+        });
+        long millis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::sweepQuietly, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (scheduler == null) return;
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    private void sweepQuietly() {
+        try {
+            int removed = sweep();
+            if (removed > 0) log.info("Deleted {} unreferenced blobs", removed);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Blob garbage collection failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.studymate.service;
+
+import com.studymate.util.HnswIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Semantic retrieval over course PDF chunks for the AI tutor. Each course with extracted PDF text has
+ * its own {@link HnswIndex} of chunk embeddings, so a query only ever searches the material of the
+ * session's course. Vectors are labelled {@code page << 12 | chunk}; the chunk text itself stays in
+ * course_pdf_chunks and is fetched by key for the few hits.
+ * <p>
+ * {@link PdfTextIndexer} calls {@link #replace} whenever a course's text changes; the new index is
+ * built off to the side, written to {@code <index-dir>/<courseId>.hnsw} and swapped in. On startup
+ * the files are loaded in the background and checked against course_pdfs; indexes that are stale
+ * (other PDF or other embedder) or missing are rebuilt from the stored chunks.
+ */
+@Service
+public class CourseMaterialIndex implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(CourseMaterialIndex.class);
+    private static final String SUFFIX = ".hnsw";
+    private static final int CHUNK_BITS = 12;
+    private static final int EMBED_BATCH = 100;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transactions;
+    private final TextEmbedder embedder;
+    private final Path dir;
+    private final int m;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double minScore;
+    private final Map<UUID, HnswIndex> indexes = new ConcurrentHashMap<>();
+    private final LongAdder retrievals = new LongAdder();
+    private final LongAdder embedNanos = new LongAdder();
+    private final LongAdder searchNanos = new LongAdder();
+    private final LongAdder retrievalNanos = new LongAdder();
+    private final LongAccumulator slowestNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder failedRetrievals = new LongAdder();
+    private ExecutorService loader;
+
+    public CourseMaterialIndex(JdbcTemplate jdbc, TransactionTemplate transactions, TextEmbedder embedder,
+                               @Value("${app.rag.index-dir:./data/rag}") String dir,
+                               @Value("${app.rag.m:16}") int m,
+                               @Value("${app.rag.ef-construction:100}") int efConstruction,
+                               @Value("${app.rag.ef-search:128}") int efSearch,
+                               @Value("${app.rag.min-score:0.15}") double minScore) {
+        this.jdbc = jdbc;
+        this.transactions = transactions;
+        this.embedder = embedder;
+        this.dir = Path.of(dir).toAbsolutePath().normalize();
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.minScore = minScore;
+    }
+
+    /**
+     * Re-embeds the course's chunks from course_pdf_chunks (none: drops its index). {@code blobKey}
+     * identifies the source PDF.
+     */
+    public void replace(UUID courseId, String blobKey) {
+        HnswIndex index;
+        try {
+            index = build(courseId, stamp(blobKey));
+        } catch (RuntimeException e) {
+            // e.g. the embedding model is unreachable; the next startup retries the build
+            log.warn("Could not index material of course {}: {}", courseId, e.getMessage());
+            index = null;
+        }
+        if (index == null) drop(courseId);
+        else install(courseId, index, false);
+    }
+
+    /**
+     * The chunks of the course's PDF most similar to {@code query}, best first, at most {@code k}; empty
+     * when the course has no indexed material or nothing scores above {@code app.rag.min-score}. The
+     * query is embedded without blocking; the search and the chunk lookup then run on boundedElastic.
+     * An embedding failure also yields no chunks, so the turn goes ahead without excerpts.
+     */
+    public Mono<List<PdfChunk>> retrieve(UUID courseId, String query, int k) {
+        var index = indexes.get(courseId);
+        if (index == null || query == null || query.isBlank()) return Mono.just(List.of());
+        return Mono.defer(() -> {
+            long t0 = System.nanoTime();
+            return embedder.embedQuery(query)
+                    .doOnNext(vector -> embedNanos.add(System.nanoTime() - t0))
+                    // the chunk lookup is blocking JDBC, keep it off the WebClient event loop
+                    .publishOn(Schedulers.boundedElastic())
+                    .map(vector -> {
+                        var chunks = search(courseId, index, vector, k);
+                        long nanos = System.nanoTime() - t0;
+                        retrievals.increment();
+                        retrievalNanos.add(nanos);
+                        slowestNanos.accumulate(nanos);
+                        return chunks;
+                    })
+                    .onErrorResume(e -> {
+                        failedRetrievals.increment();
+                        // busy means the breaker is open or the call queue is full; not worth a line per turn
+                        if (!(e instanceof LlmBusyException)) {
+                            log.warn("Could not retrieve material for course {}: {}", courseId, e.getMessage());
+                        }
+                        return Mono.just(List.of());
+                    });
+        });
+    }
+
+    private List<PdfChunk> search(UUID courseId, HnswIndex index, float[] vector, int k) {
+        long t0 = System.nanoTime();
+        var result = index.search(vector, k, Math.max(efSearch, k));
+        searchNanos.add(System.nanoTime() - t0);
+
+        List<int[]> keys = new ArrayList<>();
+        for (int i = 0; i < result.labels().length; i++) {
+            if (result.scores()[i] < minScore) break;
+            keys.add(new int[]{result.labels()[i] >>> CHUNK_BITS, result.labels()[i] & ((1 << CHUNK_BITS) - 1)});
+        }
+        if (keys.isEmpty()) return List.of();
+        String placeholders = String.join(",", Collections.nCopies(keys.size(), "(?, ?)"));
+        List<Object> args = new ArrayList<>();
+        args.add(courseId);
+        for (int[] key : keys) {
+            args.add(key[0]);
+            args.add(key[1]);
+        }
+        Map<Long, String> content = new HashMap<>();
+        jdbc.query("select page, chunk, content from course_pdf_chunks where course_id = ? and (page, chunk) in ("
+                + placeholders + ")", rs -> {
+            content.put(pack(rs.getInt(1), rs.getInt(2)), rs.getString(3));
+        }, args.toArray());
+        List<PdfChunk> chunks = new ArrayList<>(keys.size());
+        for (int[] key : keys) {
+            String text = content.get(pack(key[0], key[1]));
+            if (text != null) chunks.add(new PdfChunk(courseId, key[0], key[1], text));
+        }
+        return chunks;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long vectors = 0;
+        for (var index : indexes.values()) vectors += index.size();
+        long n = retrievals.sum();
+        stats.put("embedder", embedder.id());
+        stats.put("courses", indexes.size());
+        stats.put("vectors", vectors);
+        stats.put("retrievals", n);
+        // retrieval = query embedding + index search + chunk lookup
+        stats.put("avgEmbedMicros", n == 0 ? 0 : embedNanos.sum() / n / 1000);
+        stats.put("avgSearchMicros", n == 0 ? 0 : searchNanos.sum() / n / 1000);
+        stats.put("avgRetrievalMicros", n == 0 ? 0 : retrievalNanos.sum() / n / 1000);
+        stats.put("maxRetrievalMicros", slowestNanos.get() / 1000);
+        stats.put("failedRetrievals", failedRetrievals.sum());
+        return stats;
+    }
+
+    // Streams the chunks so only their vectors and one embedding batch of text are held; null when the
+    // course has none
+    private HnswIndex build(UUID courseId, String stamp) {
+        Integer count = jdbc.queryForObject("select count(*) from course_pdf_chunks where course_id = ?",
+                Integer.class, courseId);
+        if (count == null || count == 0) return null;
+        var builder = new HnswIndex.Builder(embedder.dimensions(), m, efConstruction, count);
+        var streaming = new JdbcTemplate(Objects.requireNonNull(jdbc.getDataSource()));
+        streaming.setFetchSize(200);
+        List<Integer> labels = new ArrayList<>(EMBED_BATCH);
+        List<String> texts = new ArrayList<>(EMBED_BATCH);
+        // Postgres only fetches through a cursor inside a transaction
+        transactions.executeWithoutResult(tx -> streaming.query(
+                "select page, chunk, content from course_pdf_chunks where course_id = ? order by page, chunk",
+                rs -> {
+                    int page = rs.getInt(1), chunk = rs.getInt(2);
+                    // the label packs page and chunk number; chunk numbers never get near 4096 with sane chunk sizes
+                    if (chunk >= 1 << CHUNK_BITS) return;
+                    labels.add(page << CHUNK_BITS | chunk);
+                    texts.add(rs.getString(3));
+                    if (texts.size() == EMBED_BATCH) embedInto(builder, labels, texts);
+                }, courseId));
+        embedInto(builder, labels, texts);
+        return builder.build(stamp);
+    }
+
+    private void embedInto(HnswIndex.Builder builder, List<Integer> labels, List<String> texts) {
+        if (texts.isEmpty()) return;
+        List<float[]> vectors = embedder.embedDocuments(texts);
+        for (int i = 0; i < vectors.size(); i++) builder.add(labels.get(i), vectors.get(i));
+        labels.clear();
+        texts.clear();
+    }
+
+    // Serialized so a startup rebuild never overwrites the file of a newer replace(); onlyIfAbsent is
+    // used by those rebuilds, which must yield to whatever replace() installed meanwhile
+    private synchronized void install(UUID courseId, HnswIndex index, boolean onlyIfAbsent) {
+        if (onlyIfAbsent && indexes.containsKey(courseId)) return;
+        try {
+            Files.createDirectories(dir);
+            index.save(file(courseId));
+        } catch (IOException e) {
+            // still serve it; the next startup rebuilds what is missing on disk
+            log.warn("Could not persist material index of course {}: {}", courseId, e.getMessage());
+        }
+        indexes.put(courseId, index);
+    }
+
+    private synchronized void drop(UUID courseId) {
+        indexes.remove(courseId);
+        try {
+            Files.deleteIfExists(file(courseId));
+        } catch (IOException e) {
+            log.warn("Could not delete material index of course {}: {}", courseId, e.getMessage());
+        }
+    }
+
+    // Loads persisted indexes that are still current, then rebuilds the ones missing
+    void loadAndReconcile() {
+        Map<UUID, String> expected = new HashMap<>();
+        jdbc.query("select course_id, text_blob_key from course_pdfs where text_status = 'DONE' and text_pages > 0",
+                rs -> {
+                    expected.put(rs.getObject(1, UUID.class), stamp(rs.getString(2)));
+                });
+        if (Files.isDirectory(dir)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+                for (Path file : files) loadFile(file, expected);
+            } catch (IOException e) {
+                log.warn("Could not list material indexes in {}: {}", dir, e.getMessage());
+            }
+        }
+        int rebuilt = 0;
+        for (var e : expected.entrySet()) {
+            if (indexes.containsKey(e.getKey()) || !isRunning()) continue;
+            HnswIndex index;
+            try {
+                index = build(e.getKey(), e.getValue());
+            } catch (RuntimeException ex) {
+                log.warn("Could not rebuild material index of course {}: {}", e.getKey(), ex.getMessage());
+                continue;
+            }
+            if (index == null) continue;
+            install(e.getKey(), index, true);
+            rebuilt++;
+        }
+        log.info("Course material indexes ready: {} courses ({} rebuilt)", indexes.size(), rebuilt);
+    }
+
+    private void loadFile(Path file, Map<UUID, String> expected) throws IOException {
+        String name = file.getFileName().toString();
+        UUID courseId;
+        try {
+            courseId = UUID.fromString(name.substring(0, name.length() - SUFFIX.length()));
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        if (indexes.containsKey(courseId)) return; // replaced since startup; the file is already newer
+        String stamp = expected.get(courseId);
+        HnswIndex index = null;
+        if (stamp != null) {
+            try {
+                index = HnswIndex.load(file);
+            } catch (IOException e) {
+                log.warn("Discarding unreadable material index {}: {}", file, e.getMessage());
+            }
+        }
+        if (index == null || !stamp.equals(index.stamp()) || index.dimensions() != embedder.dimensions()) {
+            Files.deleteIfExists(file);
+            return;
+        }
+        indexes.putIfAbsent(courseId, index);
+    }
+
+    private String stamp(String blobKey) {
+        return embedder.id() + '/' + blobKey;
+    }
+
+    private Path file(UUID courseId) {
+        return dir.resolve(courseId + SUFFIX);
+    }
+
+    private static long pack(int page, int chunk) {
+        return (long) page << 32 | chunk;
+    }
+
+    @Override
+    public void start() {
+        loader = Executors.newSingleThreadExecutor(r -> {
+            var t = new Thread(r, "course-material-loader");
+            t.setDaemon(true);
+            return t;
+        });
+        // loading may take a while for large libraries; until then the tutor just answers without excerpts
+        loader.execute(() -> {
+            try {
+                loadAndReconcile();
+            } catch (RuntimeException e) {
+                log.warn("Loading course material indexes failed: {}", e.getMessage());
+            }
+        });
+        loader.shutdown();
+    }
+
+    @Override
+    public void stop() {
+        if (loader == null) return;
+        loader.shutdownNow();
+        try {
+            loader.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        loader = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return loader != null;
+    }
+}
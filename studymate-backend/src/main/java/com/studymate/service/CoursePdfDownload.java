@@ -0,0 +1,11 @@
+package com.studymate.service;
+
+import com.studymate.repository.CoursePdfMetadata;
+import org.springframework.core.io.Resource;
+
+/**
+ * Metadata plus a lazily-read body for a course PDF. Nothing is read from storage until the
+ * response writer opens {@link #content()}.
+ */
+public record CoursePdfDownload(CoursePdfMetadata metadata, Resource content) {
+}
@@ -0,0 +1,115 @@
+package com.studymate.service;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+
+/**
+ * Course PDF exposed as a Spring {@link org.springframework.core.io.Resource} that reads the
+ * BYTEA column in fixed-size windows, so neither full downloads nor byte ranges ever hold more
+ * than one chunk on the heap. Spring MVC handles Range / 206 on top of this resource.
+ */
+class CoursePdfResource extends AbstractResource {
+    static final int CHUNK_SIZE = 256 * 1024;
+
+    private final JdbcTemplate jdbc;
+    private final UUID courseId;
+    private final String fileName;
+    private final long length;
+
+    CoursePdfResource(JdbcTemplate jdbc, UUID courseId, String fileName, long length) {
+        this.jdbc = jdbc;
+        this.courseId = courseId;
+        this.fileName = fileName;
+        this.length = length;
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public long contentLength() {
+        return length;
+    }
+
+    @Override
+    public String getFilename() {
+        return fileName;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Course PDF [" + courseId + "]";
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new ChunkedStream();
+    }
+
+    private byte[] readChunk(long offset, int len) {
+        // substring() on bytea is 1-based; only the requested window leaves the database
+        return jdbc.queryForObject(
+                "select substring(data from ? for ?) from course_pdfs where course_id = ?",
+                byte[].class, offset + 1, len, courseId);
+    }
+
+    private class ChunkedStream extends InputStream {
+        private long position;
+        private byte[] chunk;
+        private int chunkPos;
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) return -1;
+            return chunk[chunkPos++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (!fill()) return -1;
+            int n = Math.min(len, chunk.length - chunkPos);
+            System.arraycopy(chunk, chunkPos, b, off, n);
+            chunkPos += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            // Range requests skip to their start offset; just move the window instead of reading
+            if (n <= 0) return 0;
+            long buffered = chunk != null ? chunk.length - chunkPos : 0;
+            if (n < buffered) {
+                chunkPos += (int) n;
+                return n;
+            }
+            long skipped = Math.min(n, buffered + (length - position));
+            position += skipped - buffered;
+            chunk = null;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return chunk != null ? chunk.length - chunkPos : 0;
+        }
+
+        private boolean fill() throws IOException {
+            if (chunk != null && chunkPos < chunk.length) return true;
+            if (position >= length) return false;
+            int len = (int) Math.min(CHUNK_SIZE, length - position);
+            byte[] next = readChunk(position, len);
+            if (next == null || next.length == 0) throw new IOException("Course PDF changed while streaming: " + courseId);
+            chunk = next;
+            chunkPos = 0;
+            position += next.length;
+            return true;
+        }
+    }
+}
@@ -1,43 +1,108 @@
 package com.studymate.service;
 
 import com.studymate.api.dto.CourseDto;
+import com.studymate.api.dto.PageResponse;
 import com.studymate.entity.CourseEntity;
 import com.studymate.entity.CoursePdfEntity;
+import com.studymate.repository.CoursePdfMetadata;
 import com.studymate.repository.CoursePdfRepository;
 import com.studymate.repository.CourseRepository;
+import com.studymate.storage.BlobStore;
+import com.studymate.storage.BlobTooLargeException;
+import com.studymate.storage.LimitedInputStream;
+import com.studymate.util.PageCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
 public class CourseService {
+    private static final Logger log = LoggerFactory.getLogger(CourseService.class);
+    static final int MAX_PAGE_SIZE = 100;
+    private static final Sort LIST_ORDER = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
     private final CourseRepository courseRepository;
     private final CoursePdfRepository pdfRepository;
+    private final JdbcTemplate jdbc;
+    private final BlobStore blobStore;
+    private final TransactionTemplate transactions;
+    private final PdfTextIndexer pdfText;
+    private final EnrollmentCounter enrollments;
+    private final long maxPdfBytes;
 
-    public CourseService(CourseRepository courseRepository, CoursePdfRepository pdfRepository) {
+    public CourseService(CourseRepository courseRepository, CoursePdfRepository pdfRepository, JdbcTemplate jdbc,
+                         BlobStore blobStore, TransactionTemplate transactions, PdfTextIndexer pdfText,
+                         EnrollmentCounter enrollments, @Value("${app.storage.max-pdf-bytes:104857600}") long maxPdfBytes) {
         this.courseRepository = courseRepository;
         this.pdfRepository = pdfRepository;
+        this.jdbc = jdbc;
+        this.blobStore = blobStore;
+        this.transactions = transactions;
+        this.pdfText = pdfText;
+        this.enrollments = enrollments;
+        this.maxPdfBytes = maxPdfBytes;
     }
 
-    public List<CourseDto> list(int page, int size, String category) {
-        // simple impl for now: fetch all and slice in-memory
-        var all = courseRepository.findAll();
-        if (category != null && !category.isBlank()) {
-            all = all.stream().filter(c -> category.equalsIgnoreCase(c.getCategory())).collect(Collectors.toList());
-        }
-        return all.stream().map(this::toDto).collect(Collectors.toList());
+    public long getMaxPdfBytes() { return maxPdfBytes; }
+
+    public PageResponse<CourseDto> list(int page, int size, String category) {
+        var pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE), LIST_ORDER);
+        Page<CourseEntity> result = (category == null || category.isBlank())
+                ? courseRepository.findAll(pageable)
+                : courseRepository.findByCategory(category, pageable);
+        var content = result.getContent().stream().map(this::toDto).collect(Collectors.toList());
+        return new PageResponse<>(content, result.getTotalElements());
     }
 
-    public long count(String category) {
-        if (category == null || category.isBlank()) return courseRepository.count();
-        return courseRepository.findAll().stream().filter(c -> category.equalsIgnoreCase(c.getCategory())).count();
+    /**
+     * Cursor mode for /api/courses. A blank cursor starts from the newest course; the total is only
+     * counted on that first page (-1 afterwards) so later pages never pay for a full count.
+     */
+    public PageResponse<CourseDto> listAfter(String cursor, int size, String category) {
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        boolean filtered = category != null && !category.isBlank();
+        boolean first = cursor == null || cursor.isBlank();
+        List<CourseEntity> rows;
+        if (first) {
+            rows = filtered
+                    ? courseRepository.findFirstSeekPageByCategory(category, limit + 1)
+                    : courseRepository.findFirstSeekPage(limit + 1);
+        } else {
+            var key = PageCursor.decode(cursor);
+            var id = UUID.fromString(key.id());
+            rows = filtered
+                    ? courseRepository.findSeekPageByCategoryAfter(category, key.createdAt(), id, limit + 1)
+                    : courseRepository.findSeekPageAfter(key.createdAt(), id, limit + 1);
+        }
+        String next = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            var last = rows.get(limit - 1);
+            next = PageCursor.encode(last.getCreatedAt(), last.getId());
+        }
+        long total = !first ? -1 : (filtered ? courseRepository.countByCategory(category) : courseRepository.count());
+        var content = rows.stream().map(this::toDto).collect(Collectors.toList());
+        return new PageResponse<>(content, total, next);
     }
 
     public Optional<CourseDto> get(String id) {
@@ -49,30 +114,98 @@ public class CourseService {
         }
     }
 
-    @Transactional
+    /** Idempotent; false only when the course does not exist. */
+    public boolean enroll(UUID userId, String courseId) {
+        UUID id = parseId(courseId);
+        if (id == null) return false;
+        int inserted = jdbc.update("insert into course_enrollments (user_id, course_id, enrolled_at) " +
+                        "select ?, id, ? from courses where id = ? on conflict do nothing",
+                userId, Timestamp.from(Instant.now()), id);
+        if (inserted == 1) {
+            enrollments.add(id, 1);
+            return true;
+        }
+        return courseRepository.existsById(id);
+    }
+
+    public boolean unenroll(UUID userId, String courseId) {
+        UUID id = parseId(courseId);
+        if (id == null) return false;
+        int deleted = jdbc.update("delete from course_enrollments where user_id = ? and course_id = ?", userId, id);
+        if (deleted == 1) {
+            enrollments.add(id, -1);
+            return true;
+        }
+        return courseRepository.existsById(id);
+    }
+
     public void uploadPdf(String courseId, MultipartFile file) throws IOException {
+        try (var in = file.getInputStream()) {
+            uploadPdf(courseId, file.getOriginalFilename(), file.getContentType(), file.getSize(), in);
+        }
+    }
+
+    /**
+     * Streams an upload into the blob store, hashing and counting it on the way through; identical
+     * content lands on the same blob, so re-uploads are stored once. Only the metadata write runs in
+     * a transaction, after the bytes are safely on disk. Text extraction for search is queued once that
+     * commits and never runs on the request thread. {@code declaredSize} may be -1 when unknown.
+     */
+    public void uploadPdf(String courseId, String fileName, String contentType, long declaredSize,
+                          InputStream content) throws IOException {
         var uuid = UUID.fromString(courseId);
-        var course = courseRepository.findById(uuid).orElseThrow();
+        if (!courseRepository.existsById(uuid)) throw new NoSuchElementException("Course not found: " + courseId);
+        if (declaredSize > maxPdfBytes) throw new BlobTooLargeException(maxPdfBytes);
+        var blob = blobStore.put(new LimitedInputStream(content, maxPdfBytes));
+        transactions.executeWithoutResult(status -> savePdfMetadata(uuid, fileName, contentType, blob));
+    }
+
+    private void savePdfMetadata(UUID courseId, String fileName, String contentType, BlobStore.StoredBlob blob) {
+        var course = courseRepository.findById(courseId).orElseThrow();
         var entity = new CoursePdfEntity();
-        entity.setCourseId(uuid);
-        entity.setFileName(file.getOriginalFilename());
-        entity.setContentType(file.getContentType() != null ? file.getContentType() : "application/pdf");
-        entity.setData(file.getBytes());
+        entity.setCourseId(courseId);
+        entity.setFileName(fileName);
+        entity.setContentType(contentType != null ? contentType : "application/pdf");
+        entity.setBlobKey(blob.key());
+        entity.setSizeBytes(blob.size());
+        entity.setUpdatedAt(OffsetDateTime.now());
         pdfRepository.save(entity);
         // touch update time
         course.setUpdatedAt(OffsetDateTime.now());
         courseRepository.save(course);
+        // the replaced blob, if no longer referenced, is left to BlobGarbageCollector
+        extractTextAfterCommit(courseId);
     }
 
-    public Optional<CoursePdfEntity> getPdf(String courseId) {
+    public Optional<CoursePdfMetadata> getPdfMetadata(String courseId) {
         try {
-            var uuid = UUID.fromString(courseId);
-            return pdfRepository.findById(uuid);
+            return pdfRepository.findMetadata(UUID.fromString(courseId));
         } catch (IllegalArgumentException e) {
             return Optional.empty();
         }
     }
 
+    // Resolves where the bytes live without reading any of them; streaming starts in the response writer
+    public Optional<CoursePdfDownload> getPdf(String courseId) {
+        return getPdfMetadata(courseId).flatMap(m -> {
+            if (m.blobKey() != null) {
+                return blobStore.open(m.blobKey()).map(content -> new CoursePdfDownload(m, content));
+            }
+            long size = m.sizeBytes() != null ? m.sizeBytes() : 0L;
+            return Optional.of(new CoursePdfDownload(m, new CoursePdfResource(jdbc, m.courseId(), m.fileName(), size)));
+        });
+    }
+
+    // If the queue is full the PDF simply stays pending until the indexer's next sweep
+    private void extractTextAfterCommit(UUID courseId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                pdfText.schedule(courseId);
+            }
+        });
+    }
+
     private CourseDto toDto(CourseEntity c) {
         var d = new CourseDto();
         d.id = c.getId().toString();
@@ -82,11 +215,20 @@ public class CourseService {
         d.category = c.getCategory();
         d.difficulty = c.getDifficulty();
         d.duration = c.getDuration() != null ? c.getDuration() : 0;
-        d.enrolledStudents = c.getEnrolledStudents() != null ? c.getEnrolledStudents() : 0;
+        long enrolled = (c.getEnrolledStudents() != null ? c.getEnrolledStudents() : 0) + enrollments.pending(c.getId());
+        d.enrolledStudents = (int) Math.max(0, enrolled);
         d.rating = c.getRating() != null ? c.getRating() : 0.0;
         d.thumbnail = c.getThumbnail();
         d.createdAt = c.getCreatedAt() != null ? c.getCreatedAt().toString() : null;
         d.updatedAt = c.getUpdatedAt() != null ? c.getUpdatedAt().toString() : null;
         return d;
     }
+
+    private static UUID parseId(String id) {
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 }
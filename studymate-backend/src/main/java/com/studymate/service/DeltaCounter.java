@@ -0,0 +1,156 @@
+package com.studymate.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregates per-row deltas in striped {@link LongAdder}s and folds them into a counter column
+ * periodically, one batched UPDATE per flush, so a hot row costs one update per interval instead of one
+ * contended row lock per increment. Readers add {@link #pending} to the stored value.
+ * <p>
+ * Deltas are only subtracted after their UPDATE committed, so a failed flush is retried on the next
+ * tick. Entries whose delta is back to zero after a flush are retired and removed, so the map only
+ * holds rows touched since the last flush. A retired entry refuses further adds (the adder moves on to
+ * a fresh entry), and the flusher waits out adders already past that check before removing it.
+ */
+abstract class DeltaCounter implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(DeltaCounter.class);
+
+    protected final JdbcTemplate jdbc;
+    private final String updateSql;
+    private final String name;
+    private final Duration interval;
+    private final Map<UUID, Cell> deltas = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    /** {@code updateSql} takes the delta and then the row id, e.g. {@code set n = n + ? where id = ?}. */
+    protected DeltaCounter(JdbcTemplate jdbc, String updateSql, String name, Duration interval) {
+        this.jdbc = jdbc;
+        this.updateSql = updateSql;
+        this.name = name;
+        this.interval = interval;
+    }
+
+    // inFlight counts adders between their retired check and their add
+    private static final class Cell {
+        final LongAdder delta = new LongAdder();
+        final LongAdder inFlight = new LongAdder();
+        volatile boolean retired;
+    }
+
+    public void add(UUID id, long delta) {
+        while (true) {
+            var cell = deltas.computeIfAbsent(id, k -> new Cell());
+            cell.inFlight.increment();
+            try {
+                if (!cell.retired) {
+                    cell.delta.add(delta);
+                    return;
+                }
+            } finally {
+                cell.inFlight.decrement();
+            }
+            deltas.remove(id, cell);
+        }
+    }
+
+    /** Deltas recorded but not yet folded into the stored counter. */
+    public long pending(UUID id) {
+        var cell = deltas.get(id);
+        return cell == null ? 0 : cell.delta.sum();
+    }
+
+    /** Called on the flusher thread with the (id, delta) pairs a flush just committed. */
+    protected void afterFlush(List<Map.Entry<UUID, Long>> batch) {
+    }
+
+    void flush() {
+        List<Map.Entry<UUID, Long>> batch = new ArrayList<>();
+        deltas.forEach((id, cell) -> {
+            long d = cell.delta.sum();
+            if (d != 0) batch.add(Map.entry(id, d));
+        });
+        if (batch.isEmpty()) {
+            retireIdle();
+            return;
+        }
+        // fixed row order keeps concurrent flushers (several nodes) from deadlocking each other
+        batch.sort(Map.Entry.comparingByKey(Comparator.naturalOrder()));
+        try {
+            jdbc.batchUpdate(updateSql, batch, batch.size(), (ps, e) -> {
+                ps.setLong(1, e.getValue());
+                ps.setObject(2, e.getKey());
+            });
+        } catch (RuntimeException e) {
+            log.warn("{} flush of {} rows failed, will retry: {}", name, batch.size(), e.getMessage());
+            return;
+        }
+        // only the flusher removes live entries, so each one is still the entry its delta was read from
+        for (var e : batch) deltas.get(e.getKey()).delta.add(-e.getValue());
+        retireIdle();
+        afterFlush(batch);
+    }
+
+    // Removes entries with nothing pending; a delta that slipped in before the retirement is carried over
+    private void retireIdle() {
+        deltas.forEach((id, cell) -> {
+            if (cell.delta.sum() != 0) return;
+            cell.retired = true;
+            while (cell.inFlight.sum() != 0) Thread.onSpinWait();
+            deltas.remove(id, cell);
+            long late = cell.delta.sum();
+            if (late != 0) add(id, late);
+        });
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            var t = new Thread(r, name + "-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        long millis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (scheduler == null) return;
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+        scheduler = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("{} flush failed: {}", name, e.getMessage());
+        }
+    }
+}
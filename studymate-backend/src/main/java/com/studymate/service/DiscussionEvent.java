@@ -0,0 +1,19 @@
+package com.studymate.service;
+
+import com.studymate.api.dto.ReplyDto;
+
+import java.util.UUID;
+
+/**
+ * A community state change, routed by {@link DiscussionEventBus} to the global feed, the discussion's
+ * course and the discussion itself. The payload is what the SSE "data" field carries.
+ */
+public record DiscussionEvent(String type, UUID courseId, UUID discussionId, Object payload) {
+    public static final String CREATED = "discussion.created";
+    public static final String REPLIED = "reply.created";
+    public static final String LIKES = "likes.changed";
+
+    public record Replied(ReplyDto reply, int replyCount) {}
+
+    public record Likes(String discussionId, long likes) {}
+}
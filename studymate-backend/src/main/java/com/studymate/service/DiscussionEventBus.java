@@ -0,0 +1,125 @@
+package com.studymate.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process pub/sub for community changes. Publishing goes through the {@link EventFanout}, which
+ * brings every event back to every node's bus; each bus then hands it to its local subscribers of
+ * the matching topics: {@link #ALL}, the course and the discussion.
+ * <p>
+ * Each subscriber has its own buffer of {@code buffer-size} events. A client that reads slower than
+ * events arrive loses the oldest ones rather than holding memory or slowing anybody else down.
+ */
+@Component
+public class DiscussionEventBus implements SmartLifecycle {
+    public static final String ALL = "all";
+
+    private final EventFanout fanout;
+    private final int bufferSize;
+    private final Map<String, Set<FluxSink<DiscussionEvent>>> topics = new ConcurrentHashMap<>();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final Sinks.Empty<Void> stopped = Sinks.empty();
+    private volatile Runnable unsubscribe;
+
+    public DiscussionEventBus(EventFanout fanout,
+                              @Value("${app.community.events.buffer-size:256}") int bufferSize) {
+        this.fanout = fanout;
+        this.bufferSize = bufferSize;
+    }
+
+    public static String courseTopic(UUID courseId) {
+        return "course:" + courseId;
+    }
+
+    public static String discussionTopic(UUID discussionId) {
+        return "discussion:" + discussionId;
+    }
+
+    public void publish(DiscussionEvent event) {
+        published.increment();
+        fanout.publish(event);
+    }
+
+    /** Hot stream of the topic's events from now on; completes when the bus stops. */
+    public Flux<DiscussionEvent> subscribe(String topic) {
+        return Flux.<DiscussionEvent>create(sink -> {
+                    topics.compute(topic, (k, sinks) -> {
+                        if (sinks == null) sinks = ConcurrentHashMap.newKeySet();
+                        sinks.add(sink);
+                        return sinks;
+                    });
+                    sink.onDispose(() -> topics.computeIfPresent(topic, (k, sinks) -> {
+                        sinks.remove(sink);
+                        return sinks.isEmpty() ? null : sinks;
+                    }));
+                }, FluxSink.OverflowStrategy.IGNORE)
+                .onBackpressureBuffer(bufferSize, e -> dropped.increment(), BufferOverflowStrategy.DROP_OLDEST);
+    }
+
+    /** Completes when the bus stops; lets callers end streams they merged with the topic's events. */
+    public Mono<Void> stopped() {
+        return stopped.asMono();
+    }
+
+    private void dispatch(DiscussionEvent event) {
+        deliver(ALL, event);
+        if (event.courseId() != null) deliver(courseTopic(event.courseId()), event);
+        if (event.discussionId() != null) deliver(discussionTopic(event.discussionId()), event);
+    }
+
+    private void deliver(String topic, DiscussionEvent event) {
+        var sinks = topics.get(topic);
+        if (sinks == null) return;
+        for (var sink : sinks) {
+            sink.next(event);
+            delivered.increment();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        int subscribers = topics.values().stream().mapToInt(Set::size).sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("topics", topics.size());
+        stats.put("subscribers", subscribers);
+        stats.put("published", published.sum());
+        stats.put("delivered", delivered.sum());
+        stats.put("dropped", dropped.sum());
+        return stats;
+    }
+
+    @Override
+    public void start() {
+        unsubscribe = fanout.subscribe(this::dispatch);
+    }
+
+    // Ends every open stream so SSE connections close instead of holding shutdown up
+    @Override
+    public void stop() {
+        if (unsubscribe == null) return;
+        unsubscribe.run();
+        unsubscribe = null;
+        topics.values().forEach(sinks -> sinks.forEach(FluxSink::complete));
+        stopped.tryEmitEmpty();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return unsubscribe != null;
+    }
+}
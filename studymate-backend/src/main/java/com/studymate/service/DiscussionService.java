@@ -0,0 +1,237 @@
+package com.studymate.service;
+
+import com.studymate.api.dto.DiscussionDto;
+import com.studymate.api.dto.PageResponse;
+import com.studymate.api.dto.ReplyDto;
+import com.studymate.entity.DiscussionEntity;
+import com.studymate.entity.DiscussionReplyEntity;
+import com.studymate.repository.DiscussionReplyRepository;
+import com.studymate.repository.DiscussionRepository;
+import com.studymate.security.CurrentUser;
+import com.studymate.util.PageCursor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Discussions, replies and likes in Postgres. Likes are one row per (discussion, user), so liking is
+ * idempotent; the visible count is like_count plus whatever {@link LikeCounter} has not flushed yet.
+ */
+@Service
+public class DiscussionService {
+    static final int MAX_PAGE_SIZE = 100;
+    private static final Sort LIST_ORDER = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
+    private final DiscussionRepository discussionRepository;
+    private final DiscussionReplyRepository replyRepository;
+    private final LikeCounter likeCounter;
+    private final DiscussionEventBus events;
+    private final SearchService search;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transactions;
+
+    public DiscussionService(DiscussionRepository discussionRepository, DiscussionReplyRepository replyRepository,
+                             LikeCounter likeCounter, DiscussionEventBus events, SearchService search,
+                             JdbcTemplate jdbc, TransactionTemplate transactions) {
+        this.discussionRepository = discussionRepository;
+        this.replyRepository = replyRepository;
+        this.likeCounter = likeCounter;
+        this.events = events;
+        this.search = search;
+        this.jdbc = jdbc;
+        this.transactions = transactions;
+    }
+
+    /** @throws IllegalArgumentException when courseId is not a UUID */
+    public PageResponse<DiscussionDto> list(String courseId, int page, int size, UUID viewer) {
+        var pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE), LIST_ORDER);
+        UUID course = parseCourse(courseId);
+        Page<DiscussionEntity> result = course == null
+                ? discussionRepository.findAll(pageable)
+                : discussionRepository.findByCourseId(course, pageable);
+        return new PageResponse<>(toDtos(result.getContent(), viewer), result.getTotalElements());
+    }
+
+    /**
+     * Keyset mode, newest first on (createdAt, id); same cursor contract as /api/courses.
+     * @throws IllegalArgumentException on a malformed cursor or courseId
+     */
+    public PageResponse<DiscussionDto> listAfter(String courseId, String cursor, int size, UUID viewer) {
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        UUID course = parseCourse(courseId);
+        boolean first = cursor == null || cursor.isBlank();
+        List<DiscussionEntity> rows;
+        if (first) {
+            rows = course == null
+                    ? discussionRepository.findFirstSeekPage(limit + 1)
+                    : discussionRepository.findFirstSeekPageByCourse(course, limit + 1);
+        } else {
+            var key = PageCursor.decode(cursor);
+            var id = UUID.fromString(key.id());
+            rows = course == null
+                    ? discussionRepository.findSeekPageAfter(key.createdAt(), id, limit + 1)
+                    : discussionRepository.findSeekPageByCourseAfter(course, key.createdAt(), id, limit + 1);
+        }
+        String next = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            var last = rows.get(limit - 1);
+            next = PageCursor.encode(last.getCreatedAt(), last.getId());
+        }
+        long total = !first ? -1
+                : course == null ? discussionRepository.count() : discussionRepository.countByCourseId(course);
+        return new PageResponse<>(toDtos(rows, viewer), total, next);
+    }
+
+    /** @throws IllegalArgumentException when courseId is not a UUID */
+    public DiscussionDto create(CurrentUser author, String courseId, String title, String content) {
+        var d = new DiscussionEntity();
+        d.setCourseId(parseCourse(courseId));
+        d.setAuthorId(author.id());
+        d.setAuthorName(author.username());
+        d.setTitle(title);
+        d.setContent(content);
+        d = discussionRepository.save(d);
+        search.indexDiscussion(d);
+        var dto = toDto(d, List.of(), 0, false);
+        events.publish(new DiscussionEvent(DiscussionEvent.CREATED, d.getCourseId(), d.getId(), dto));
+        return dto;
+    }
+
+    private record Bumped(UUID courseId, int replyCount) {}
+
+    public Optional<ReplyDto> reply(CurrentUser author, String discussionId, String content) {
+        UUID id = parseId(discussionId);
+        if (id == null) return Optional.empty();
+        Optional<DiscussionEvent> event = transactions.execute(tx -> {
+            // the counter bump doubles as the existence check and yields what the event needs
+            List<Bumped> bumped = jdbc.query("update discussions set reply_count = reply_count + 1, updated_at = ? " +
+                            "where id = ? returning course_id, reply_count",
+                    (rs, i) -> new Bumped(rs.getObject(1, UUID.class), rs.getInt(2)),
+                    Timestamp.from(Instant.now()), id);
+            if (bumped.isEmpty()) return Optional.<DiscussionEvent>empty();
+            var r = new DiscussionReplyEntity();
+            r.setDiscussionId(id);
+            r.setAuthorId(author.id());
+            r.setAuthorName(author.username());
+            r.setContent(content);
+            var replied = new DiscussionEvent.Replied(toDto(replyRepository.save(r)), bumped.get(0).replyCount());
+            return Optional.of(new DiscussionEvent(DiscussionEvent.REPLIED, bumped.get(0).courseId(), id, replied));
+        });
+        // published after commit, so subscribers never see a reply that was rolled back
+        event.ifPresent(events::publish);
+        return event.map(e -> ((DiscussionEvent.Replied) e.payload()).reply());
+    }
+
+    public boolean exists(String discussionId) {
+        UUID id = parseId(discussionId);
+        return id != null && discussionRepository.existsById(id);
+    }
+
+    /** Replies oldest first; empty when the discussion does not exist. */
+    public Optional<PageResponse<ReplyDto>> replies(String discussionId, int page, int size) {
+        UUID id = parseId(discussionId);
+        if (id == null) return Optional.empty();
+        return discussionRepository.findById(id).map(d -> {
+            var pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+            var content = replyRepository.findByDiscussionIdOrderByCreatedAtAscIdAsc(id, pageable).stream()
+                    .map(DiscussionService::toDto)
+                    .collect(Collectors.toList());
+            return new PageResponse<>(content, d.getReplyCount());
+        });
+    }
+
+    /** Idempotent: a second like by the same user changes nothing. False when the discussion does not exist. */
+    public boolean like(UUID userId, String discussionId) {
+        UUID id = parseId(discussionId);
+        if (id == null) return false;
+        int inserted = jdbc.update("insert into discussion_likes (discussion_id, user_id, created_at) " +
+                        "select id, ?, ? from discussions where id = ? on conflict do nothing",
+                userId, Timestamp.from(Instant.now()), id);
+        if (inserted == 1) {
+            likeCounter.add(id, 1);
+            return true;
+        }
+        return discussionRepository.existsById(id);
+    }
+
+    public boolean unlike(UUID userId, String discussionId) {
+        UUID id = parseId(discussionId);
+        if (id == null) return false;
+        int deleted = jdbc.update("delete from discussion_likes where discussion_id = ? and user_id = ?", id, userId);
+        if (deleted == 1) {
+            likeCounter.add(id, -1);
+            return true;
+        }
+        return discussionRepository.existsById(id);
+    }
+
+    private List<DiscussionDto> toDtos(List<DiscussionEntity> rows, UUID viewer) {
+        if (rows.isEmpty()) return new ArrayList<>();
+        Set<UUID> liked = likedBy(viewer, rows.stream().map(DiscussionEntity::getId).collect(Collectors.toList()));
+        return rows.stream()
+                .map(d -> toDto(d, null, d.getLikeCount() + likeCounter.pending(d.getId()), liked.contains(d.getId())))
+                .collect(Collectors.toList());
+    }
+
+    // Which of these discussions the viewer has liked: one primary-key probe per id, in a single query
+    private Set<UUID> likedBy(UUID viewer, List<UUID> ids) {
+        if (viewer == null) return Set.of();
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        List<Object> args = new ArrayList<>(ids.size() + 1);
+        args.add(viewer);
+        args.addAll(ids);
+        return new HashSet<>(jdbc.queryForList(
+                "select discussion_id from discussion_likes where user_id = ? and discussion_id in (" + placeholders + ")",
+                UUID.class, args.toArray()));
+    }
+
+    private static UUID parseCourse(String courseId) {
+        return courseId == null || courseId.isBlank() ? null : UUID.fromString(courseId);
+    }
+
+    private static UUID parseId(String id) {
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static DiscussionDto toDto(DiscussionEntity e, List<ReplyDto> replies, long likes, boolean liked) {
+        DiscussionDto dto = new DiscussionDto();
+        dto.id = e.getId().toString();
+        dto.courseId = e.getCourseId() != null ? e.getCourseId().toString() : null;
+        dto.authorId = e.getAuthorId() != null ? e.getAuthorId().toString() : null;
+        dto.authorName = e.getAuthorName();
+        dto.title = e.getTitle();
+        dto.content = e.getContent();
+        dto.replies = replies;
+        dto.replyCount = e.getReplyCount();
+        dto.likes = (int) Math.max(0, likes);
+        dto.isLiked = liked;
+        dto.createdAt = e.getCreatedAt() != null ? e.getCreatedAt().toString() : null;
+        return dto;
+    }
+
+    private static ReplyDto toDto(DiscussionReplyEntity e) {
+        ReplyDto dto = new ReplyDto();
+        dto.id = e.getId().toString();
+        dto.discussionId = e.getDiscussionId().toString();
+        dto.authorId = e.getAuthorId() != null ? e.getAuthorId().toString() : null;
+        dto.authorName = e.getAuthorName();
+        dto.content = e.getContent();
+        dto.likes = 0;
+        dto.isLiked = false;
+        dto.createdAt = e.getCreatedAt() != null ? e.getCreatedAt().toString() : null;
+        return dto;
+    }
+}
@@ -0,0 +1,22 @@
+package com.studymate.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Folds enroll/unenroll deltas into courses.enrolled_students through {@link DeltaCounter}, the same
+ * way {@link LikeCounter} maintains like counts. Readers add {@link #pending} to the stored value, so the
+ * count is exact without a COUNT over course_enrollments and a popular course is not one hot row lock.
+ */
+@Component
+public class EnrollmentCounter extends DeltaCounter {
+
+    public EnrollmentCounter(JdbcTemplate jdbc,
+                             @Value("${app.lessons.enrollment-flush-interval:2s}") Duration interval) {
+        super(jdbc, "update courses set enrolled_students = coalesce(enrolled_students, 0) + ? where id = ?",
+                "enrollment-counter", interval);
+    }
+}
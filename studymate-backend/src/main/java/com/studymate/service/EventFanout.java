@@ -0,0 +1,15 @@
+package com.studymate.service;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries discussion events between nodes. Every published event reaches every subscribed node,
+ * the publisher included, so a node only ever dispatches to its own SSE clients from here.
+ */
+public interface EventFanout {
+
+    void publish(DiscussionEvent event);
+
+    /** @return a handle that removes the listener again */
+    Runnable subscribe(Consumer<DiscussionEvent> listener);
+}
@@ -0,0 +1,37 @@
+package com.studymate.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+/**
+ * The slice of a Gemini generateContent response (or one streamed chunk) that we read. Everything
+ * else (safety ratings, usage metadata, citations...) is skipped by the parser without being
+ * materialized.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+record GeminiResponse(List<Candidate> candidates) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record Candidate(Content content, String finishReason) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record Content(List<Part> parts) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record Part(String text) {}
+
+    /** All text parts of the first candidate concatenated, or null when there are none. */
+    String text() {
+        if (candidates == null || candidates.isEmpty()) return null;
+        var content = candidates.get(0).content();
+        if (content == null || content.parts() == null) return null;
+        StringBuilder sb = null;
+        for (var part : content.parts()) {
+            if (part == null || part.text() == null) continue;
+            if (sb == null) sb = new StringBuilder(part.text().length());
+            sb.append(part.text());
+        }
+        return sb == null ? null : sb.toString();
+    }
+}
@@ -1,69 +1,229 @@
 package com.studymate.service;
 
+import com.studymate.util.CircuitBreaker;
+import com.studymate.util.SingleFlight;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 @Service
 public class GeminiService {
+    private static final String NOT_CONFIGURED = "[AI is not configured] Please set GEMINI_API_KEY to enable AI responses.";
+    private static final String UNAVAILABLE = "[AI error] Gemini is temporarily unavailable, please try again shortly.";
+    private static final ParameterizedTypeReference<ServerSentEvent<GeminiResponse>> SSE_CHUNK =
+            new ParameterizedTypeReference<>() {};
+
     private final WebClient webClient;
     private final String apiKey;
     private final String modelName;
+    private final LlmCallLimiter limiter;
+    private final TutorResponseCache cache;
+    private final Retry retry;
+    private final CircuitBreaker breaker;
+    private final SingleFlight<String, String> completions = new SingleFlight<>();
+    private final SingleFlight<String, String> streams = new SingleFlight<>();
 
     public GeminiService(
             @Value("${gemini.apiKey:${GEMINI_API_KEY:}}") String apiKey,
-            @Value("${gemini.model:gemini-1.5-flash}") String modelName
+            @Value("${gemini.model:gemini-1.5-flash}") String modelName,
+            @Qualifier("geminiWebClient") WebClient webClient,
+            LlmCallLimiter limiter,
+            TutorResponseCache cache,
+            @Value("${app.ai.retry.max-retries:2}") int maxRetries,
+            @Value("${app.ai.retry.min-backoff:200ms}") Duration minBackoff,
+            @Value("${app.ai.retry.max-backoff:2s}") Duration maxBackoff,
+            @Value("${app.ai.breaker.window:20}") int breakerWindow,
+            @Value("${app.ai.breaker.min-calls:10}") int breakerMinCalls,
+            @Value("${app.ai.breaker.failure-rate:0.5}") double breakerFailureRate,
+            @Value("${app.ai.breaker.open-duration:30s}") Duration breakerOpenDuration
     ) {
         this.apiKey = apiKey;
         this.modelName = modelName;
-        this.webClient = WebClient.builder()
-                .baseUrl("https://generativelanguage.googleapis.com")
-                .build();
+        this.webClient = webClient;
+        this.limiter = limiter;
+        this.cache = cache;
+        // only 429/503 are retried: Gemini is asking us to back off, the request itself was fine
+        this.retry = Retry.backoff(maxRetries, minBackoff)
+                .maxBackoff(maxBackoff)
+                .jitter(0.5)
+                .filter(GeminiService::isRetryable)
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+        this.breaker = new CircuitBreaker(breakerWindow, breakerMinCalls, breakerFailureRate, breakerOpenDuration);
+    }
+
+    /**
+     * Non-blocking completion. Upstream failures resolve to an "[AI error]" text like before; only
+     * {@link LlmBusyException} is signalled as an error, when the call queue is full.
+     */
+    public Mono<String> generate(String userMessage) {
+        return generate(null, new TutorPrompt(userMessage, userMessage, true), answer -> {});
     }
 
-    public String generateText(String userMessage) {
+    /**
+     * Tutor turn. Standalone prompts are answered from {@link TutorResponseCache} when possible, keyed
+     * by the question rather than the full prompt text. Identical prompts already in flight share one
+     * upstream call. While the circuit breaker is open the "[AI error]" fallback is returned at once.
+     * <p>
+     * {@code onUpstreamAnswer} gets the answer only when this caller's request made a Gemini call that
+     * succeeded: not for cached answers, fallbacks, or callers that joined another caller's flight.
+     */
+    public Mono<String> generate(String subject, TutorPrompt prompt, Consumer<String> onUpstreamAnswer) {
         if (apiKey == null || apiKey.isBlank()) {
-            return "[AI is not configured] Please set GEMINI_API_KEY to enable AI responses.";
+            return Mono.just(NOT_CONFIGURED);
         }
-        try {
-            var path = String.format("/v1beta/models/%s:generateContent?key=%s", modelName, apiKey);
-            var body = Map.of(
-                    "contents", List.of(
-                            Map.of(
-                                    "parts", List.of(
-                                            Map.of("text", userMessage)
-                                    )
-                            )
-                    )
-            );
-            var response = webClient.post()
+        if (prompt.standalone()) {
+            var cached = cache.get(modelName, subject, prompt.question());
+            if (cached.isPresent()) {
+                return Mono.just(cached.get());
+            }
+        }
+        var path = String.format("/v1beta/models/%s:generateContent?key=%s", modelName, apiKey);
+        var body = requestBody(prompt.text());
+        return completions.execute(flightKey(subject, prompt), () -> {
+            if (!breaker.tryAcquire()) return Mono.just(UNAVAILABLE);
+            return limiter.submit(() -> webClient.post()
                     .uri(path)
                     .contentType(MediaType.APPLICATION_JSON)
                     .accept(MediaType.APPLICATION_JSON)
                     .bodyValue(body)
                     .retrieve()
-                    .bodyToMono(Map.class)
-                    .onErrorResume(ex -> Mono.just(Map.of("error", ex.getMessage())))
-                    .block();
-
-            // Parse minimal text from candidates[0].content.parts[0].text
-            if (response == null) return "[AI error] Empty response from Gemini.";
-            if (response.containsKey("error")) return "[AI error] " + response.get("error");
-            var candidates = (List<Map<String, Object>>) response.get("candidates");
-            if (candidates == null || candidates.isEmpty()) return "[AI] No candidates returned.";
-            var content = (Map<String, Object>) candidates.get(0).get("content");
-            if (content == null) return "[AI] No content returned.";
-            var parts = (List<Map<String, Object>>) content.get("parts");
-            if (parts == null || parts.isEmpty()) return "[AI] No parts returned.";
-            var text = (String) parts.get(0).get("text");
-            return (text != null && !text.isBlank()) ? text : "[AI] Empty text returned.";
-        } catch (Exception e) {
-            return "[AI exception] " + e.getMessage();
+                    .bodyToMono(GeminiResponse.class)
+                    .retryWhen(retry)
+                    .transform(this::recordOutcome)
+                    .map(GeminiService::extractText)
+                    .doOnNext(onUpstreamAnswer)
+                    .defaultIfEmpty("[AI error] Empty response from Gemini.")
+                    .onErrorResume(ex -> Mono.just("[AI error] " + ex.getMessage())))
+                    .doOnError(LlmBusyException.class, ex -> breaker.onIgnored())
+                    .doOnNext(answer -> remember(subject, prompt, answer));
+        });
+    }
+
+    /**
+     * Token stream via Gemini's streamGenerateContent (SSE). Emits text deltas as they arrive; upstream
+     * failures end the stream with a single "[AI error]" delta rather than an error signal. A cached answer
+     * is replayed as one delta. {@code onUpstreamAnswer} gets the full answer as in {@link #generate}.
+     */
+    public Flux<String> stream(String subject, TutorPrompt prompt, Consumer<String> onUpstreamAnswer) {
+        if (apiKey == null || apiKey.isBlank()) {
+            return Flux.just(NOT_CONFIGURED);
         }
+        if (prompt.standalone()) {
+            var cached = cache.get(modelName, subject, prompt.question());
+            if (cached.isPresent()) {
+                return Flux.just(cached.get());
+            }
+        }
+        var path = String.format("/v1beta/models/%s:streamGenerateContent?alt=sse&key=%s", modelName, apiKey);
+        var body = requestBody(prompt.text());
+        return streams.executeMany(flightKey(subject, prompt), () -> {
+            if (!breaker.tryAcquire()) return Flux.just(UNAVAILABLE);
+            var answer = new StringBuilder();
+            boolean[] failed = {false};
+            return limiter.submitMany(() -> webClient.post()
+                    .uri(path)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.TEXT_EVENT_STREAM)
+                    .bodyValue(body)
+                    .retrieve()
+                    .bodyToFlux(SSE_CHUNK)
+                    .retryWhen(retry)
+                    .transform(this::recordOutcome)
+                    .mapNotNull(ServerSentEvent::data)
+                    .mapNotNull(GeminiResponse::text)
+                    .filter(delta -> !delta.isEmpty())
+                    .onErrorResume(ex -> {
+                        failed[0] = true;
+                        return Flux.just("[AI error] " + ex.getMessage());
+                    }))
+                    .doOnError(LlmBusyException.class, ex -> breaker.onIgnored())
+                    .doOnNext(answer::append)
+                    .doOnComplete(() -> {
+                        if (failed[0]) return;
+                        remember(subject, prompt, answer.toString());
+                        onUpstreamAnswer.accept(answer.toString());
+                    });
+        });
+    }
+
+    public Map<String, Object> breakerStats() {
+        return breaker.stats();
+    }
+
+    public Map<String, Object> coalescingStats() {
+        return Map.of("completions", completions.stats(), "streams", streams.stats());
+    }
+
+    // Standalone turns coalesce on the normalized question, like the response cache; others on the full prompt
+    private static String flightKey(String subject, TutorPrompt prompt) {
+        return prompt.standalone()
+                ? "q|" + subject + '|' + TutorResponseCache.normalize(prompt.question())
+                : "p|" + prompt.text();
+    }
+
+    private <T> Mono<T> recordOutcome(Mono<T> call) {
+        return call.doOnSuccess(v -> breaker.onSuccess())
+                .doOnError(this::recordError)
+                .doOnCancel(breaker::onIgnored);
+    }
+
+    private <T> Flux<T> recordOutcome(Flux<T> call) {
+        return call.doOnComplete(breaker::onSuccess)
+                .doOnError(this::recordError)
+                .doOnCancel(breaker::onIgnored);
+    }
+
+    // Timeouts, connection errors, 429 and 5xx count against Gemini; other 4xx are our request's fault
+    private void recordError(Throwable ex) {
+        boolean upstream = ex instanceof WebClientRequestException || ex instanceof TimeoutException
+                || (ex instanceof WebClientResponseException r
+                    && (r.getStatusCode().value() == 429 || r.getStatusCode().is5xxServerError()));
+        if (upstream) breaker.onFailure();
+        else breaker.onSuccess();
+    }
+
+    private static boolean isRetryable(Throwable ex) {
+        return ex instanceof WebClientResponseException r
+                && (r.getStatusCode().value() == 429 || r.getStatusCode().value() == 503);
+    }
+
+    // Only real answers are cached; "[AI ...]" placeholders and errors are not
+    private void remember(String subject, TutorPrompt prompt, String answer) {
+        if (prompt.standalone() && !answer.isBlank() && !answer.startsWith("[AI")) {
+            cache.put(modelName, subject, prompt.question(), answer);
+        }
+    }
+
+    private static Map<String, Object> requestBody(String userMessage) {
+        return Map.of(
+                "contents", List.of(
+                        Map.of(
+                                "parts", List.of(
+                                        Map.of("text", userMessage)
+                                )
+                        )
+                )
+        );
+    }
+
+    private static String extractText(GeminiResponse response) {
+        var text = response.text();
+        if (text == null) return "[AI] No content returned.";
+        return !text.isBlank() ? text : "[AI] Empty text returned.";
     }
 }
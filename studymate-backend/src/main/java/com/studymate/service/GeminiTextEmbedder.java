@@ -0,0 +1,186 @@
+package com.studymate.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.studymate.util.CircuitBreaker;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Embeddings from Gemini's embedding model (embedContent / batchEmbedContents), truncated to
+ * {@code app.rag.dimensions} and re-normalized so inner product is cosine similarity. Passages are
+ * embedded as RETRIEVAL_DOCUMENT in batches, queries one at a time as RETRIEVAL_QUERY.
+ * <p>
+ * Query embeds sit on the tutor request path, so {@link #embedQuery} is non-blocking and goes through
+ * {@link LlmCallLimiter} and a circuit breaker of its own, with a short {@code app.rag.query-timeout}.
+ * Document batches are only embedded by background indexing and block their worker thread.
+ */
+@Component
+@ConditionalOnProperty(name = "app.rag.embedder", havingValue = "gemini")
+public class GeminiTextEmbedder implements TextEmbedder {
+    // batchEmbedContents accepts at most 100 requests per call
+    private static final int MAX_BATCH = 100;
+
+    private final WebClient webClient;
+    private final String apiKey;
+    private final String model;
+    private final int dimensions;
+    private final Duration timeout;
+    private final Duration queryTimeout;
+    private final LlmCallLimiter limiter;
+    private final CircuitBreaker breaker;
+    private final Retry retry;
+
+    public GeminiTextEmbedder(@Qualifier("geminiWebClient") WebClient webClient,
+                              @Value("${gemini.apiKey:${GEMINI_API_KEY:}}") String apiKey,
+                              @Value("${app.rag.gemini-model:text-embedding-004}") String model,
+                              @Value("${app.rag.dimensions:256}") int dimensions,
+                              @Value("${app.rag.gemini-timeout:30s}") Duration timeout,
+                              @Value("${app.rag.query-timeout:3s}") Duration queryTimeout,
+                              LlmCallLimiter limiter,
+                              @Value("${app.ai.breaker.window:20}") int breakerWindow,
+                              @Value("${app.ai.breaker.min-calls:10}") int breakerMinCalls,
+                              @Value("${app.ai.breaker.failure-rate:0.5}") double breakerFailureRate,
+                              @Value("${app.ai.breaker.open-duration:30s}") Duration breakerOpenDuration) {
+        this.webClient = webClient;
+        this.apiKey = apiKey;
+        this.model = model;
+        this.dimensions = dimensions;
+        this.timeout = timeout;
+        this.queryTimeout = queryTimeout;
+        this.limiter = limiter;
+        // separate from GeminiService's breaker: an embedding outage must not cut off answers
+        this.breaker = new CircuitBreaker(breakerWindow, breakerMinCalls, breakerFailureRate, breakerOpenDuration);
+        // like GeminiService: only 429/503 are worth retrying
+        this.retry = Retry.backoff(2, Duration.ofMillis(200))
+                .maxBackoff(Duration.ofSeconds(2))
+                .filter(ex -> ex instanceof WebClientResponseException r
+                        && (r.getStatusCode().value() == 429 || r.getStatusCode().value() == 503))
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record Embedding(float[] values) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record EmbedResponse(Embedding embedding) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record BatchEmbedResponse(List<Embedding> embeddings) {}
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    @Override
+    public String id() {
+        return "gemini-" + model + "-" + dimensions;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        return embedQuery(text).block();
+    }
+
+    /** Fails with {@link LlmBusyException} while the breaker is open or the call queue is full. */
+    @Override
+    public Mono<float[]> embedQuery(String text) {
+        return Mono.defer(() -> {
+            var path = path("embedContent");
+            if (!breaker.tryAcquire()) return Mono.error(new LlmBusyException("Gemini embeddings are unavailable"));
+            return limiter.submit(() -> webClient.post()
+                            .uri(path)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_JSON)
+                            .bodyValue(request(text, "RETRIEVAL_QUERY"))
+                            .retrieve()
+                            .bodyToMono(EmbedResponse.class)
+                            .retryWhen(retry)
+                            // one budget for all attempts; a turn does not wait longer for its excerpts
+                            .timeout(queryTimeout)
+                            .doOnSuccess(r -> breaker.onSuccess())
+                            .doOnError(this::recordError)
+                            .doOnCancel(breaker::onIgnored))
+                    .doOnError(LlmBusyException.class, ex -> breaker.onIgnored());
+        }).filter(response -> response.embedding() != null)
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("Empty embedding from Gemini")))
+                .map(response -> normalize(response.embedding().values()));
+    }
+
+    @Override
+    public List<float[]> embedDocuments(List<String> texts) {
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        for (int from = 0; from < texts.size(); from += MAX_BATCH) {
+            List<Map<String, Object>> requests = new ArrayList<>();
+            for (String text : texts.subList(from, Math.min(texts.size(), from + MAX_BATCH))) {
+                requests.add(request(text, "RETRIEVAL_DOCUMENT"));
+            }
+            var response = webClient.post()
+                    .uri(path("batchEmbedContents"))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .bodyValue(Map.of("requests", requests))
+                    .retrieve()
+                    .bodyToMono(BatchEmbedResponse.class)
+                    .retryWhen(retry)
+                    .block(timeout);
+            if (response == null || response.embeddings() == null || response.embeddings().size() != requests.size()) {
+                throw new IllegalStateException("Gemini returned the wrong number of embeddings");
+            }
+            for (var e : response.embeddings()) vectors.add(normalize(e.values()));
+        }
+        return vectors;
+    }
+
+    private String path(String method) {
+        if (apiKey == null || apiKey.isBlank()) throw new IllegalStateException("GEMINI_API_KEY is not set");
+        return String.format("/v1beta/models/%s:%s?key=%s", model, method, apiKey);
+    }
+
+    private Map<String, Object> request(String text, String taskType) {
+        return Map.of(
+                "model", "models/" + model,
+                "content", Map.of("parts", List.of(Map.of("text", text == null ? "" : text))),
+                "taskType", taskType,
+                "outputDimensionality", dimensions);
+    }
+
+    // Like GeminiService: timeouts, connection errors, 429 and 5xx count against Gemini
+    private void recordError(Throwable ex) {
+        boolean upstream = ex instanceof WebClientRequestException || ex instanceof TimeoutException
+                || (ex instanceof WebClientResponseException r
+                    && (r.getStatusCode().value() == 429 || r.getStatusCode().is5xxServerError()));
+        if (upstream) breaker.onFailure();
+        else breaker.onSuccess();
+    }
+
+    // Truncated outputs are not unit length; HnswIndex scores by inner product
+    private float[] normalize(float[] values) {
+        if (values == null || values.length < dimensions) {
+            throw new IllegalStateException("Expected " + dimensions + " dimensions from Gemini");
+        }
+        float[] v = values.length == dimensions ? values : Arrays.copyOf(values, dimensions);
+        double norm = 0;
+        for (float x : v) norm += x * x;
+        if (norm > 0) {
+            float inv = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < v.length; i++) v[i] *= inv;
+        }
+        return v;
+    }
+}
@@ -0,0 +1,80 @@
+package com.studymate.service;
+
+import com.studymate.util.InvertedIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Local, deterministic embedder: terms and adjacent-term pairs (as tokenized by the search index) are
+ * hashed into a signed bag-of-words vector, weighted 1 + ln(tf) and normalized. No model and no network,
+ * so it is stable across runs and machines, which also makes it the embedder for tests. It captures
+ * lexical overlap only; select another {@link TextEmbedder} with {@code app.rag.embedder}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.rag.embedder", havingValue = "hashing", matchIfMissing = true)
+public class HashingTextEmbedder implements TextEmbedder {
+    private static final float PAIR_WEIGHT = 0.5f;
+
+    private final int dimensions;
+
+    public HashingTextEmbedder(@Value("${app.rag.dimensions:128}") int dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    @Override
+    public String id() {
+        return "hashing-" + dimensions;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        float[] counts = new float[dimensions];
+        List<InvertedIndex.Token> tokens = InvertedIndex.tokenize(text);
+        String previous = null;
+        for (var t : tokens) {
+            add(counts, t.term(), 1f);
+            if (previous != null) add(counts, previous + ' ' + t.term(), PAIR_WEIGHT);
+            previous = t.term();
+        }
+        double norm = 0;
+        for (int i = 0; i < dimensions; i++) {
+            float c = counts[i];
+            // sublinear term frequency, keeping the sign the hash gave the bucket
+            counts[i] = c == 0 ? 0 : Math.copySign((float) (1 + Math.log(Math.abs(c))), c);
+            norm += counts[i] * counts[i];
+        }
+        if (norm > 0) {
+            float inv = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < dimensions; i++) counts[i] *= inv;
+        }
+        return counts;
+    }
+
+    private void add(float[] counts, String feature, float weight) {
+        long h = fnv1a(feature);
+        int bucket = (int) Long.remainderUnsigned(h, dimensions);
+        counts[bucket] += (h >>> 63) == 0 ? weight : -weight;
+    }
+
+    // FNV-1a over UTF-8 with a final mix; String.hashCode is too weak in its low bits for bucketing
+    private static long fnv1a(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
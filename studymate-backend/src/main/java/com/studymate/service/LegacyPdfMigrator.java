@@ -0,0 +1,68 @@
+package com.studymate.service;
+
+import com.studymate.storage.BlobStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One-off mover for course PDFs still stored inline as BYTEA. Walks course_pdfs in course_id
+ * order, a batch at a time, streams each payload into the blob store and then clears the column.
+ * Enable with {@code app.storage.migrate-legacy-pdfs=true}; safe to rerun.
+ */
+@Component
+@Profile("postgres")
+@ConditionalOnProperty(name = "app.storage.migrate-legacy-pdfs", havingValue = "true")
+public class LegacyPdfMigrator implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(LegacyPdfMigrator.class);
+
+    private final JdbcTemplate jdbc;
+    private final BlobStore blobStore;
+    private final int batchSize;
+
+    public LegacyPdfMigrator(JdbcTemplate jdbc, BlobStore blobStore,
+                             @Value("${app.storage.migrate-batch-size:50}") int batchSize) {
+        this.jdbc = jdbc;
+        this.blobStore = blobStore;
+        this.batchSize = batchSize;
+    }
+
+    record LegacyRow(UUID courseId, String fileName, long size) {}
+
+    @Override
+    public void run(ApplicationArguments args) {
+        UUID after = new UUID(0L, 0L);
+        int moved = 0, failed = 0;
+        while (true) {
+            List<LegacyRow> batch = jdbc.query(
+                    "select course_id, file_name, octet_length(data) as size from course_pdfs " +
+                            "where blob_key is null and data is not null and course_id > ? order by course_id limit ?",
+                    (rs, i) -> new LegacyRow(rs.getObject("course_id", UUID.class), rs.getString("file_name"), rs.getLong("size")),
+                    after, batchSize);
+            if (batch.isEmpty()) break;
+            for (LegacyRow row : batch) {
+                after = row.courseId();
+                try (InputStream in = new CoursePdfResource(jdbc, row.courseId(), row.fileName(), row.size()).getInputStream()) {
+                    var blob = blobStore.put(in);
+                    jdbc.update("update course_pdfs set blob_key = ?, size_bytes = ?, data = null " +
+                            "where course_id = ? and blob_key is null", blob.key(), blob.size(), row.courseId());
+                    moved++;
+                } catch (Exception e) {
+                    failed++;
+                    log.warn("Failed to move PDF for course {} to the blob store", row.courseId(), e);
+                }
+            }
+        }
+        log.info("Legacy PDF migration finished: {} moved, {} failed", moved, failed);
+    }
+}
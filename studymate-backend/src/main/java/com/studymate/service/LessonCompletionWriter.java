@@ -0,0 +1,210 @@
+package com.studymate.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind writer for lesson completions, the hottest write of the reader. Completions are keyed
+ * by (user, lesson): a completion that is already waiting to be written is coalesced into it, so
+ * repeated clicks never reach the database more than once per flush. A single background flusher
+ * drains the queue in batches of up to {@code batch-size} rows, waiting at most {@code max-delay} to
+ * fill one, and writes each batch as one transaction of {@code on conflict do nothing} inserts, which
+ * makes replays and completions stored earlier harmless.
+ * <p>
+ * Completions are acknowledged once queued; a crash loses what was not flushed yet. When the queue
+ * is full the caller waits up to {@code enqueue-timeout} and then writes its row itself. Until a row
+ * has committed it is visible through {@link #pending}, so the user's next lesson list already shows it.
+ */
+@Component
+public class LessonCompletionWriter implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(LessonCompletionWriter.class);
+    private static final String INSERT = "insert into lesson_completions (user_id, lesson_id, course_id, completed_at) " +
+            "values (?, ?, ?, ?) on conflict (user_id, lesson_id) do nothing";
+    private static final Comparator<Key> ROW_ORDER = Comparator.comparing(Key::userId).thenComparing(Key::lessonId);
+
+    private record Key(UUID userId, UUID lessonId) {}
+
+    private record Completion(Key key, UUID courseId, Instant completedAt) {}
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transactions;
+    private final BlockingQueue<Key> queue;
+    private final Map<Key, Completion> pending = new ConcurrentHashMap<>();
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final Duration enqueueTimeout;
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder flushed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder direct = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile boolean running;
+    private Thread flusher;
+
+    public LessonCompletionWriter(JdbcTemplate jdbc, TransactionTemplate transactions,
+                                  @Value("${app.lessons.completions.queue-capacity:10000}") int capacity,
+                                  @Value("${app.lessons.completions.batch-size:500}") int batchSize,
+                                  @Value("${app.lessons.completions.max-delay:50ms}") Duration maxDelay,
+                                  @Value("${app.lessons.completions.enqueue-timeout:1s}") Duration enqueueTimeout) {
+        this.jdbc = jdbc;
+        this.transactions = transactions;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.enqueueTimeout = enqueueTimeout;
+    }
+
+    /** Records that the user completed the lesson; the caller has checked that it belongs to the course. */
+    public void complete(UUID userId, UUID courseId, UUID lessonId) {
+        submitted.increment();
+        var key = new Key(userId, lessonId);
+        var completion = new Completion(key, courseId, Instant.now());
+        if (pending.putIfAbsent(key, completion) != null) {
+            coalesced.increment();
+            return;
+        }
+        boolean queued = queue.offer(key);
+        if (!queued) {
+            try {
+                queued = queue.offer(key, enqueueTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (queued) return;
+        // backed up: the insert is idempotent, so writing it here is always safe
+        direct.increment();
+        try {
+            insert(List.of(completion));
+        } finally {
+            pending.remove(key);
+        }
+    }
+
+    /** Lessons of the course the user completed that are not flushed yet. */
+    public Set<UUID> pending(UUID userId, UUID courseId) {
+        if (pending.isEmpty()) return Set.of();
+        Set<UUID> lessons = new HashSet<>();
+        for (var c : pending.values()) {
+            if (c.key().userId().equals(userId) && c.courseId().equals(courseId)) lessons.add(c.key().lessonId());
+        }
+        return lessons;
+    }
+
+    public Map<String, Object> stats() {
+        long b = batches.sum(), f = flushed.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", queue.size());
+        stats.put("submitted", submitted.sum());
+        stats.put("coalesced", coalesced.sum());
+        stats.put("flushed", f);
+        stats.put("batches", b);
+        stats.put("avgBatchSize", b == 0 ? 0.0 : (double) f / b);
+        stats.put("directWrites", direct.sum());
+        stats.put("failedRows", failed.sum());
+        return stats;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        flusher = new Thread(this::run, "lesson-completion-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /** Wakes the flusher and waits for it to drain whatever is still queued. */
+    @Override
+    public void stop() {
+        running = false;
+        if (flusher == null) return;
+        flusher.interrupt();
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        List<Key> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Key first = running ? queue.poll(1, TimeUnit.SECONDS) : queue.poll();
+                if (first == null) continue;
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) continue;
+                    long wait = deadline - System.nanoTime();
+                    if (wait <= 0 || !running) break;
+                    Key next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // shutdown: fall through, flush what we hold and drain the rest without waiting
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Key> keys) {
+        List<Completion> rows = new ArrayList<>(keys.size());
+        // fixed row order keeps concurrent writers (several nodes) from deadlocking on the primary key
+        keys.sort(ROW_ORDER);
+        for (Key key : keys) {
+            var c = pending.get(key);
+            if (c != null) rows.add(c);
+        }
+        try {
+            insert(rows);
+        } catch (RuntimeException e) {
+            // one bad row (e.g. its lesson was deleted) must not sink the rest: retry row by row
+            log.warn("Batch insert of {} lesson completions failed, retrying individually: {}", rows.size(), e.getMessage());
+            for (var c : rows) {
+                try {
+                    insert(List.of(c));
+                } catch (RuntimeException rowError) {
+                    failed.increment();
+                    log.error("Dropping completion of lesson {} by {}: {}", c.key().lessonId(), c.key().userId(),
+                            rowError.getMessage());
+                }
+            }
+        }
+        // only now, so a reader always finds the completion either here or in the table
+        for (Key key : keys) pending.remove(key);
+    }
+
+    private void insert(List<Completion> rows) {
+        transactions.executeWithoutResult(tx -> jdbc.batchUpdate(INSERT, rows, rows.size(), (ps, c) -> {
+            ps.setObject(1, c.key().userId());
+            ps.setObject(2, c.key().lessonId());
+            ps.setObject(3, c.courseId());
+            ps.setTimestamp(4, Timestamp.from(c.completedAt()));
+        }));
+        flushed.add(rows.size());
+        batches.increment();
+    }
+}
@@ -0,0 +1,113 @@
+package com.studymate.service;
+
+import com.studymate.api.dto.LessonDto;
+import com.studymate.entity.LessonEntity;
+import com.studymate.repository.CourseRepository;
+import com.studymate.repository.LessonRepository;
+import com.studymate.util.ExpiringLruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Lessons of a course and the current user's completions. A course's lesson list is read on every
+ * lesson view and every completion, and changes rarely, so it is cached per course for
+ * {@code app.lessons.cache-ttl}. Completions go through {@link LessonCompletionWriter}; reads merge
+ * the stored ones with those still waiting to be flushed.
+ */
+@Service
+public class LessonService {
+    private final LessonRepository lessonRepository;
+    private final CourseRepository courseRepository;
+    private final JdbcTemplate jdbc;
+    private final LessonCompletionWriter completions;
+    private final ExpiringLruCache<UUID, List<LessonEntity>> byCourse;
+
+    public LessonService(LessonRepository lessonRepository, CourseRepository courseRepository, JdbcTemplate jdbc,
+                         LessonCompletionWriter completions,
+                         @Value("${app.lessons.cache-max-courses:10000}") int cacheMaxCourses,
+                         @Value("${app.lessons.cache-ttl:5m}") Duration cacheTtl) {
+        this.lessonRepository = lessonRepository;
+        this.courseRepository = courseRepository;
+        this.jdbc = jdbc;
+        this.completions = completions;
+        this.byCourse = new ExpiringLruCache<>(cacheMaxCourses, cacheTtl);
+    }
+
+    /** Lessons in order; isCompleted is filled for a signed-in user and null otherwise. Empty for an unknown course. */
+    public Optional<List<LessonDto>> lessons(String courseId, UUID userId) {
+        UUID id = parseId(courseId);
+        if (id == null) return Optional.empty();
+        var lessons = lessonsOf(id);
+        if (lessons == null) return Optional.empty();
+        Set<UUID> completed = userId != null ? completed(userId, id) : Set.of();
+        List<LessonDto> out = new ArrayList<>(lessons.size());
+        for (var l : lessons) out.add(toDto(l, userId != null ? completed.contains(l.getId()) : null));
+        return Optional.of(out);
+    }
+
+    /** False when the course or the lesson does not exist, or the lesson belongs to another course. */
+    public boolean complete(UUID userId, String courseId, String lessonId) {
+        UUID course = parseId(courseId), lesson = parseId(lessonId);
+        if (course == null || lesson == null) return false;
+        var lessons = lessonsOf(course);
+        if (lessons == null || lessons.stream().noneMatch(l -> l.getId().equals(lesson))) return false;
+        completions.complete(userId, course, lesson);
+        return true;
+    }
+
+    /** Drops the cached lesson list, for callers that changed the course's lessons. */
+    public void invalidate(UUID courseId) {
+        byCourse.invalidate(courseId);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("lessonCache", byCourse.stats());
+        stats.put("completions", completions.stats());
+        return stats;
+    }
+
+    // null for an unknown course; only existing courses are cached
+    private List<LessonEntity> lessonsOf(UUID courseId) {
+        var cached = byCourse.get(courseId);
+        if (cached != null) return cached;
+        if (!courseRepository.existsById(courseId)) return null;
+        var lessons = List.copyOf(lessonRepository.findByCourseIdOrderByPositionAscIdAsc(courseId));
+        byCourse.put(courseId, lessons);
+        return lessons;
+    }
+
+    private Set<UUID> completed(UUID userId, UUID courseId) {
+        Set<UUID> completed = new HashSet<>(jdbc.queryForList(
+                "select lesson_id from lesson_completions where user_id = ? and course_id = ?",
+                UUID.class, userId, courseId));
+        completed.addAll(completions.pending(userId, courseId));
+        return completed;
+    }
+
+    private static LessonDto toDto(LessonEntity l, Boolean completed) {
+        var d = new LessonDto();
+        d.id = l.getId().toString();
+        d.courseId = l.getCourseId().toString();
+        d.title = l.getTitle();
+        d.description = l.getDescription();
+        d.content = l.getContent();
+        d.videoUrl = l.getVideoUrl();
+        d.duration = l.getDurationMinutes() != null ? l.getDurationMinutes() : 0;
+        d.order = l.getPosition() != null ? l.getPosition() : 0;
+        d.isCompleted = completed;
+        return d;
+    }
+
+    private static UUID parseId(String id) {
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.studymate.service;
+
+/**
+ * A tutor turn cannot be served right now: the LLM call queue is full or too slow, a chat history write
+ * timed out, or the session stayed busy. Answered with 503.
+ */
+public class LlmBusyException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public LlmBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,113 @@
+package com.studymate.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded concurrency gate for outbound LLM calls. At most {@code maxConcurrent} calls run at once;
+ * up to {@code maxQueued} more wait in a FIFO queue, and anything beyond that (or anything that waits
+ * longer than the queue timeout) fails fast with {@link LlmBusyException}. Calls are non-blocking, so
+ * no request thread is held while they wait or run.
+ */
+@Component
+public class LlmCallLimiter {
+
+    private final Sinks.Many<Job<?>> jobs;
+    private final Queue<Job<?>> queue;
+    private final Duration queueTimeout;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    public LlmCallLimiter(@Value("${app.ai.max-concurrent:16}") int maxConcurrent,
+                          @Value("${app.ai.max-queued:64}") int maxQueued,
+                          @Value("${app.ai.queue-timeout:30s}") Duration queueTimeout) {
+        this.queueTimeout = queueTimeout;
+        this.queue = new ArrayBlockingQueue<>(maxQueued);
+        this.jobs = Sinks.many().unicast().onBackpressureBuffer(queue);
+        // flatMap only pulls a new job from the queue when one of the running calls finishes
+        this.jobs.asFlux().flatMap(Job::run, maxConcurrent).subscribe();
+    }
+
+    public <T> Mono<T> submit(Supplier<Mono<T>> call) {
+        return submitMany(() -> Flux.from(call.get())).singleOrEmpty();
+    }
+
+    /** Streaming variant: the permit is held until the returned Flux completes, errors or is cancelled. */
+    public <T> Flux<T> submitMany(Supplier<? extends Publisher<T>> call) {
+        return Flux.defer(() -> {
+            var job = new Job<T>(call, System.nanoTime() + queueTimeout.toNanos());
+            Sinks.EmitResult result;
+            synchronized (jobs) {
+                result = jobs.tryEmitNext(job);
+            }
+            if (result.isFailure()) {
+                rejected.increment();
+                return Flux.error(new LlmBusyException("AI tutor is at capacity, please retry shortly"));
+            }
+            return job.out.asFlux().doOnCancel(job::cancel);
+        });
+    }
+
+    public Map<String, Object> stats() {
+        return Map.of(
+                "inFlight", inFlight.get(),
+                "queued", queue.size(),
+                "completed", completed.sum(),
+                "rejected", rejected.sum(),
+                "expiredInQueue", expired.sum());
+    }
+
+    private final class Job<T> {
+        private final Supplier<? extends Publisher<T>> call;
+        private final long deadline;
+        private final Sinks.Many<T> out = Sinks.many().unicast().onBackpressureBuffer();
+        private final Sinks.One<Boolean> cancelled = Sinks.one();
+        private volatile boolean abandoned;
+
+        Job(Supplier<? extends Publisher<T>> call, long deadline) {
+            this.call = call;
+            this.deadline = deadline;
+        }
+
+        // Caller went away: skip the call if still queued, or cut it short if already running
+        void cancel() {
+            abandoned = true;
+            cancelled.tryEmitValue(Boolean.TRUE);
+        }
+
+        Mono<Void> run() {
+            if (abandoned) return Mono.empty();
+            if (System.nanoTime() > deadline) {
+                expired.increment();
+                out.tryEmitError(new LlmBusyException("AI tutor queue wait timed out, please retry"));
+                return Mono.empty();
+            }
+            return Flux.defer(call)
+                    .doOnSubscribe(s -> inFlight.incrementAndGet())
+                    .doFinally(s -> {
+                        inFlight.decrementAndGet();
+                        completed.increment();
+                    })
+                    .takeUntilOther(cancelled.asMono())
+                    .doOnNext(out::tryEmitNext)
+                    .doOnError(out::tryEmitError)
+                    .doOnComplete(out::tryEmitComplete)
+                    .onErrorResume(e -> Mono.empty())
+                    .then();
+        }
+    }
+}
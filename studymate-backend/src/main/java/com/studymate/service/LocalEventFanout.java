@@ -0,0 +1,52 @@
+package com.studymate.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * In-JVM stand-in for a message broker. Events are handed to one broker thread and delivered from there
+ * to every subscribed node, so publishers never run subscriber code. The broker is static: several
+ * application contexts in one JVM share it the way separate nodes would share a real broker. When its
+ * queue is full the oldest undelivered event is dropped, matching the per-client buffers downstream.
+ * <p>
+ * Select another {@link EventFanout} with {@code app.community.events.fanout}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.community.events.fanout", havingValue = "local", matchIfMissing = true)
+public class LocalEventFanout implements EventFanout {
+    private static final Logger log = LoggerFactory.getLogger(LocalEventFanout.class);
+    private static final int CAPACITY = 10_000;
+
+    private static final List<Consumer<DiscussionEvent>> LISTENERS = new CopyOnWriteArrayList<>();
+    private static final ExecutorService BROKER = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(CAPACITY), r -> {
+                var t = new Thread(r, "event-broker");
+                t.setDaemon(true);
+                return t;
+            }, new ThreadPoolExecutor.DiscardOldestPolicy());
+
+    @Override
+    public void publish(DiscussionEvent event) {
+        BROKER.execute(() -> {
+            for (var listener : LISTENERS) {
+                try {
+                    listener.accept(event);
+                } catch (RuntimeException e) {
+                    log.warn("Event listener failed on {}: {}", event.type(), e.getMessage());
+                }
+            }
+        });
+    }
+
+    @Override
+    public Runnable subscribe(Consumer<DiscussionEvent> listener) {
+        LISTENERS.add(listener);
+        return () -> LISTENERS.remove(listener);
+    }
+}
@@ -0,0 +1,6 @@
+package com.studymate.service;
+
+import java.util.UUID;
+
+/** A slice of the text of one page of a course PDF; {@code chunk} numbers the slices of a page from 0. */
+public record PdfChunk(UUID courseId, int page, int chunk, String content) {}
@@ -0,0 +1,340 @@
+package com.studymate.service;
+
+import com.studymate.pdf.PdfTextExtractor;
+import com.studymate.storage.BlobStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Extracts the text of uploaded course PDFs in the background and stores it page by page, in chunks,
+ * in course_pdf_chunks, the search index and the tutor's {@link CourseMaterialIndex}. Uploads only
+ * {@link #schedule} a job after their commit; the work runs on a small fixed pool with a bounded queue.
+ * When the queue is full the job is simply not queued: the PDF stays pending (blob_key differs from
+ * text_blob_key) and the periodic sweep picks it up later, which also backfills PDFs uploaded before
+ * this existed or while the node was down.
+ * <p>
+ * A job writes its chunks to course_pdf_chunk_staging in short batches as pages are read, so no
+ * transaction or connection is held while the file is parsed. One short final transaction then swaps
+ * them into course_pdf_chunks and records the blob, and only commits if the course still points at
+ * the blob it read, so a newer upload never gets overwritten by an older extraction.
+ */
+@Component
+public class PdfTextIndexer implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(PdfTextIndexer.class);
+    private static final int INSERT_BATCH = 200;
+
+    private final JdbcTemplate jdbc;
+    private final BlobStore blobStore;
+    private final SearchService search;
+    private final CourseMaterialIndex materials;
+    private final TransactionTemplate transactions;
+    private final PdfTextExtractor extractor;
+    private final int workers;
+    private final int queueCapacity;
+    private final Duration sweepInterval;
+    private final int chunkChars;
+    private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
+    private final LongAdder pagesExtracted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder deferred = new LongAdder();
+    private volatile ThreadPoolExecutor pool;
+    private ScheduledExecutorService sweeper;
+
+    public PdfTextIndexer(JdbcTemplate jdbc, BlobStore blobStore, SearchService search,
+                          CourseMaterialIndex materials, TransactionTemplate transactions,
+                          @Value("${app.pdf-text.workers:2}") int workers,
+                          @Value("${app.pdf-text.queue-capacity:32}") int queueCapacity,
+                          @Value("${app.pdf-text.sweep-interval:1m}") Duration sweepInterval,
+                          @Value("${app.pdf-text.chunk-chars:1000}") int chunkChars,
+                          @Value("${app.pdf-text.max-page-chars:20000}") int maxPageChars,
+                          @Value("${app.pdf-text.max-stream-bytes:16777216}") int maxStreamBytes) {
+        this.jdbc = jdbc;
+        this.blobStore = blobStore;
+        this.search = search;
+        this.materials = materials;
+        this.transactions = transactions;
+        this.extractor = new PdfTextExtractor(maxPageChars, maxStreamBytes);
+        this.workers = workers;
+        this.queueCapacity = queueCapacity;
+        this.sweepInterval = sweepInterval;
+        this.chunkChars = chunkChars;
+    }
+
+    /**
+     * Queues extraction of the course's current PDF. Returns false when it is already queued or running,
+     * or the queue is full; in the latter case the sweep retries it.
+     */
+    public boolean schedule(UUID courseId) {
+        var executor = pool;
+        if (executor == null || !inFlight.add(courseId)) return false;
+        try {
+            executor.execute(() -> run(courseId));
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(courseId);
+            deferred.increment();
+            return false;
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        var executor = pool;
+        stats.put("running", executor != null ? executor.getActiveCount() : 0);
+        stats.put("queued", executor != null ? executor.getQueue().size() : 0);
+        stats.put("pending", jdbc.queryForObject("select count(*) from course_pdfs " +
+                "where blob_key is not null and blob_key is distinct from text_blob_key", Long.class));
+        stats.put("completed", completed.sum());
+        stats.put("failed", failed.sum());
+        stats.put("deferred", deferred.sum());
+        stats.put("pagesExtracted", pagesExtracted.sum());
+        return stats;
+    }
+
+    private void run(UUID courseId) {
+        boolean superseded;
+        try {
+            superseded = extract(courseId);
+        } catch (RuntimeException e) {
+            log.warn("Text extraction for course {} failed: {}", courseId, e.getMessage());
+            superseded = false;
+        } finally {
+            inFlight.remove(courseId);
+        }
+        // a newer upload arrived mid-extraction and was deduplicated against this job; pick it up now
+        if (superseded) schedule(courseId);
+    }
+
+    // Returns true when the PDF changed while it was being read, so the result was discarded
+    boolean extract(UUID courseId) {
+        var rows = jdbc.query("select blob_key, file_name from course_pdfs where course_id = ? " +
+                        "and blob_key is not null and blob_key is distinct from text_blob_key",
+                (rs, i) -> new String[]{rs.getString(1), rs.getString(2)}, courseId);
+        if (rows.isEmpty()) return false;
+        String blobKey = rows.get(0)[0], fileName = rows.get(0)[1];
+
+        // Chunks are staged page by page as they are produced, so only one batch is ever on the heap
+        UUID attempt = UUID.randomUUID();
+        String status = "DONE";
+        int pages;
+        List<PdfChunk> batch = new ArrayList<>(INSERT_BATCH);
+        try {
+            pages = extract(blobKey, courseId, chunk -> {
+                batch.add(chunk);
+                if (batch.size() >= INSERT_BATCH) stageChunks(attempt, blobKey, batch);
+            });
+            stageChunks(attempt, blobKey, batch);
+        } catch (DataAccessException e) {
+            // the database, not the file: the sweep retries
+            discard(attempt);
+            throw e;
+        } catch (IOException | RuntimeException | StackOverflowError e) {
+            // a crafted file must end up FAILED, or the sweep would resubmit it forever; the parser's
+            // stream, CMap and page caps bound its memory, so OutOfMemoryError is not caught here
+            log.warn("Could not extract text from PDF of course {}: {}", courseId, e.toString());
+            status = "FAILED";
+            pages = 0;
+        }
+        if (!swapIn(courseId, blobKey, attempt, status, pages)) {
+            discard(attempt);
+            return true;
+        }
+        search.replacePdf(courseId, fileName);
+        materials.replace(courseId, blobKey);
+        pagesExtracted.add(pages);
+        if ("DONE".equals(status)) completed.increment();
+        else failed.increment();
+        return false;
+    }
+
+    // Each batch commits on its own; only the final swap makes the chunks visible
+    private void stageChunks(UUID attempt, String blobKey, List<PdfChunk> batch) {
+        if (batch.isEmpty()) return;
+        jdbc.batchUpdate("insert into course_pdf_chunk_staging (attempt, course_id, blob_key, page, chunk, content) " +
+                        "values (?, ?, ?, ?, ?, ?)",
+                batch, batch.size(), (ps, c) -> {
+                    ps.setObject(1, attempt);
+                    ps.setObject(2, c.courseId());
+                    ps.setString(3, blobKey);
+                    ps.setInt(4, c.page());
+                    ps.setInt(5, c.chunk());
+                    ps.setString(6, c.content());
+                });
+        batch.clear();
+    }
+
+    private void discard(UUID attempt) {
+        try {
+            jdbc.update("delete from course_pdf_chunk_staging where attempt = ?", attempt);
+        } catch (DataAccessException e) {
+            // left for the course's next successful swap
+            log.warn("Could not discard staged PDF chunks: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Replaces the course's chunks with the attempt's staged ones (none for a FAILED extraction) and
+     * records the blob, in one short transaction. False, with nothing changed, when the course has moved
+     * on to another blob or another node already finished this one. Any other staged rows of the course
+     * belong to superseded or interrupted attempts by then and are cleared too.
+     */
+    private boolean swapIn(UUID courseId, String blobKey, UUID attempt, String status, int pages) {
+        Boolean current = transactions.execute(tx -> {
+            int updated = jdbc.update("update course_pdfs set text_blob_key = blob_key, text_status = ?, text_pages = ? " +
+                    "where course_id = ? and blob_key = ? and text_blob_key is distinct from blob_key",
+                    status, pages, courseId, blobKey);
+            if (updated == 0) return false;
+            jdbc.update("delete from course_pdf_chunks where course_id = ?", courseId);
+            if ("DONE".equals(status)) {
+                jdbc.update("insert into course_pdf_chunks (course_id, page, chunk, content) " +
+                        "select course_id, page, chunk, content from course_pdf_chunk_staging where attempt = ?",
+                        attempt);
+            }
+            jdbc.update("delete from course_pdf_chunk_staging where course_id = ?", courseId);
+            return true;
+        });
+        return Boolean.TRUE.equals(current);
+    }
+
+    private int extract(String blobKey, UUID courseId, Consumer<PdfChunk> sink) throws IOException {
+        Resource resource = blobStore.open(blobKey).orElseThrow(() -> new IOException("Blob " + blobKey + " is missing"));
+        // the extractor maps the file; blobs that are not plain files are spooled to a temporary one first
+        Path path = resource.isFile() ? resource.getFile().toPath() : null;
+        Path temp = null;
+        if (path == null) {
+            temp = Files.createTempFile("pdf-text-", ".pdf");
+            try (InputStream in = resource.getInputStream()) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            path = temp;
+        }
+        try {
+            return extractor.extract(path, (page, text) -> {
+                int n = 0;
+                for (String part : chunk(text, chunkChars)) sink.accept(new PdfChunk(courseId, page, n++, part));
+            });
+        } finally {
+            if (temp != null) Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Splits page text into pieces of about {@code size} characters, preferring to break after a
+     * sentence or line end in the second half of a piece, else at a space. A short tail is kept on the
+     * last piece rather than becoming a fragment of its own.
+     */
+    static List<String> chunk(String text, int size) {
+        List<String> parts = new ArrayList<>();
+        int start = 0, n = text.length();
+        while (start < n) {
+            int end = n - start <= size + size / 10 ? n : start + size;
+            if (end < n) {
+                int cut = -1;
+                for (int i = end - 1; i > start + size / 2 && cut < 0; i--) {
+                    char c = text.charAt(i);
+                    if (c == '\n' || ((c == '.' || c == '?' || c == '!') && Character.isWhitespace(text.charAt(i + 1)))) {
+                        cut = i + 1;
+                    }
+                }
+                if (cut < 0) {
+                    int space = text.lastIndexOf(' ', end);
+                    cut = space > start + size / 2 ? space : end;
+                }
+                end = cut;
+            }
+            String part = text.substring(start, end).strip();
+            if (!part.isEmpty()) parts.add(part);
+            start = end;
+        }
+        return parts;
+    }
+
+    // Queues pending PDFs until the queue is full; whatever does not fit waits for the next sweep
+    void sweep() {
+        var executor = pool;
+        if (executor == null) return;
+        int room = executor.getQueue().remainingCapacity();
+        if (room <= 0) return;
+        List<UUID> pending = jdbc.queryForList("select course_id from course_pdfs where blob_key is not null " +
+                "and blob_key is distinct from text_blob_key limit ?", UUID.class, room + inFlight.size());
+        for (UUID courseId : pending) {
+            if (!inFlight.contains(courseId) && !schedule(courseId) && executor.getQueue().remainingCapacity() == 0) break;
+        }
+    }
+
+    @Override
+    public void start() {
+        AtomicInteger threads = new AtomicInteger();
+        pool = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+            var t = new Thread(r, "pdf-text-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            var t = new Thread(r, "pdf-text-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweepQuietly, 0, sweepInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (pool == null) return;
+        sweeper.shutdownNow();
+        // queued jobs are dropped: their PDFs are still pending and get swept after the restart
+        pool.shutdownNow();
+        try {
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pool = null;
+        sweeper = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return pool != null;
+    }
+
+    private void sweepQuietly() {
+        try {
+            sweep();
+        } catch (RuntimeException e) {
+            log.warn("PDF text sweep failed: {}", e.getMessage());
+        }
+    }
+}
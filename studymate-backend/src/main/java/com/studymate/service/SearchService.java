@@ -0,0 +1,230 @@
+package com.studymate.service;
+
+import com.studymate.api.dto.PageResponse;
+import com.studymate.api.dto.SearchHitDto;
+import com.studymate.entity.CourseEntity;
+import com.studymate.entity.DiscussionEntity;
+import com.studymate.util.InvertedIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * /api/search over courses, discussions and the text of course PDFs, served from an in-memory
+ * {@link InvertedIndex}. Writers call {@link #indexCourse} / {@link #indexDiscussion} /
+ * {@link #replacePdf} after their change is committed; the whole index is rebuilt from the database at
+ * startup and on demand. PDF text is indexed per chunk, so a PDF hit points at a page.
+ * <p>
+ * A rebuild fills a fresh index off to the side while the old one keeps serving. Writes made during
+ * the rebuild go to the old index and are journaled, then replayed onto the fresh one before it is
+ * swapped in, so nothing written mid-rebuild is lost.
+ */
+@Service
+public class SearchService implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(SearchService.class);
+    public static final String COURSE = "course";
+    public static final String DISCUSSION = "discussion";
+    public static final String PDF = "pdf";
+    static final int MAX_PAGE_SIZE = 50;
+    static final int MAX_OFFSET = 1000;
+    private static final int SNIPPET_CHARS = 200;
+    private static final int SNIPPET_LEAD = 60;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transactions;
+    private final boolean rebuildOnStartup;
+    private final Object writeLock = new Object();
+    private volatile InvertedIndex index = new InvertedIndex();
+    private List<Consumer<InvertedIndex>> journal; // non-null while a rebuild runs; guarded by writeLock
+    private volatile boolean running;
+
+    public SearchService(JdbcTemplate jdbc, TransactionTemplate transactions,
+                         @Value("${app.search.rebuild-on-startup:true}") boolean rebuildOnStartup) {
+        this.jdbc = jdbc;
+        this.transactions = transactions;
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    public void indexCourse(CourseEntity c) {
+        var doc = courseDocument(c.getId(), c.getTitle(), c.getCategory(), c.getInstructor(), c.getDifficulty(),
+                c.getDescription());
+        apply(i -> i.upsert(doc));
+    }
+
+    public void indexDiscussion(DiscussionEntity d) {
+        var doc = discussionDocument(d.getId(), d.getCourseId(), d.getTitle(), d.getContent());
+        apply(i -> i.upsert(doc));
+    }
+
+    /** Re-reads the course's PDF chunks from course_pdf_chunks and replaces the indexed ones (none: the PDF is dropped). */
+    public void replacePdf(UUID courseId, String fileName) {
+        List<InvertedIndex.Document> docs = new ArrayList<>();
+        jdbc.query("select page, chunk, content from course_pdf_chunks where course_id = ?", rs -> {
+            docs.add(pdfDocument(new PdfChunk(courseId, rs.getInt(1), rs.getInt(2), rs.getString(3)), fileName));
+        }, courseId);
+        apply(i -> {
+            i.removeIf(d -> PDF.equals(d.type()) && courseId.equals(d.courseId()));
+            docs.forEach(i::upsert);
+        });
+    }
+
+    public void remove(String type, UUID id) {
+        String key = type + ':' + id;
+        apply(i -> i.remove(key));
+    }
+
+    /**
+     * Ranked hits with highlight ranges; {@code type} limits results to "course", "discussion" or "pdf",
+     * {@code courseId} to one course. Paging stops at {@value #MAX_OFFSET} results.
+     */
+    public PageResponse<SearchHitDto> search(String query, String type, UUID courseId, int page, int size) {
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        int offset = Math.min(Math.max(page, 0) * limit, MAX_OFFSET);
+        var result = index.search(query, type, courseId, offset, limit);
+        var content = result.hits().stream().map(h -> toDto(h, result.terms())).collect(Collectors.toList());
+        return new PageResponse<>(content, result.total());
+    }
+
+    /** Reloads every course, discussion and PDF chunk into a fresh index and swaps it in; returns the document count. */
+    public synchronized int rebuild() {
+        synchronized (writeLock) {
+            journal = new ArrayList<>();
+        }
+        var fresh = new InvertedIndex();
+        try {
+            load(fresh);
+        } catch (RuntimeException e) {
+            synchronized (writeLock) {
+                journal = null;
+            }
+            throw e;
+        }
+        synchronized (writeLock) {
+            journal.forEach(op -> op.accept(fresh));
+            journal = null;
+            index = fresh;
+        }
+        return fresh.size();
+    }
+
+    public Map<String, Object> stats() {
+        return index.stats();
+    }
+
+    private void apply(Consumer<InvertedIndex> op) {
+        synchronized (writeLock) {
+            op.accept(index);
+            if (journal != null) journal.add(op);
+        }
+    }
+
+    // Streams the tables with a server-side cursor so a large rebuild never holds every row at once
+    private void load(InvertedIndex target) {
+        var streaming = new JdbcTemplate(Objects.requireNonNull(jdbc.getDataSource()));
+        streaming.setFetchSize(1000);
+        transactions.executeWithoutResult(tx -> {
+            streaming.query("select id, title, category, instructor, difficulty, description from courses",
+                    rs -> {
+                        target.upsert(courseDocument(rs.getObject(1, UUID.class), rs.getString(2), rs.getString(3),
+                                rs.getString(4), rs.getString(5), rs.getString(6)));
+                    });
+            streaming.query("select id, course_id, title, content from discussions", rs -> {
+                target.upsert(discussionDocument(rs.getObject(1, UUID.class), rs.getObject(2, UUID.class),
+                        rs.getString(3), rs.getString(4)));
+            });
+            streaming.query("select c.course_id, c.page, c.chunk, c.content, p.file_name from course_pdf_chunks c " +
+                    "join course_pdfs p on p.course_id = c.course_id", rs -> {
+                var chunk = new PdfChunk(rs.getObject(1, UUID.class), rs.getInt(2), rs.getInt(3), rs.getString(4));
+                target.upsert(pdfDocument(chunk, rs.getString(5)));
+            });
+        });
+    }
+
+    private static InvertedIndex.Document courseDocument(UUID id, String title, String category, String instructor,
+                                                         String difficulty, String description) {
+        String tags = Arrays.asList(category, instructor, difficulty).stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.joining(" "));
+        return new InvertedIndex.Document(COURSE, id.toString(), id, title, tags, description);
+    }
+
+    private static InvertedIndex.Document discussionDocument(UUID id, UUID courseId, String title, String content) {
+        return new InvertedIndex.Document(DISCUSSION, id.toString(), courseId, title, null, content);
+    }
+
+    private static InvertedIndex.Document pdfDocument(PdfChunk c, String fileName) {
+        return new InvertedIndex.Document(PDF, c.courseId() + ":" + c.page() + ":" + c.chunk(), c.courseId(),
+                fileName, null, c.content());
+    }
+
+    private static SearchHitDto toDto(InvertedIndex.Hit hit, Set<String> terms) {
+        var doc = hit.document();
+        var dto = new SearchHitDto();
+        dto.type = doc.type();
+        dto.id = doc.id();
+        dto.courseId = !COURSE.equals(doc.type()) && doc.courseId() != null ? doc.courseId().toString() : null;
+        if (PDF.equals(doc.type())) dto.page = Integer.valueOf(doc.id().split(":")[1]);
+        dto.title = doc.title();
+        dto.titleHighlights = ranges(InvertedIndex.matches(doc.title(), terms), 0);
+        dto.score = hit.score();
+
+        String body = doc.body() != null ? doc.body() : "";
+        var matches = InvertedIndex.matches(body, terms);
+        int start = matches.isEmpty() ? 0 : wordStart(body, Math.max(0, matches.get(0).start() - SNIPPET_LEAD));
+        int end = wordEnd(body, Math.min(body.length(), start + SNIPPET_CHARS));
+        dto.snippet = body.substring(start, end);
+        dto.snippetHighlights = ranges(matches.stream().filter(m -> m.end() <= end).collect(Collectors.toList()), start);
+        return dto;
+    }
+
+    private static List<int[]> ranges(List<InvertedIndex.Token> tokens, int base) {
+        return tokens.stream()
+                .filter(t -> t.start() >= base)
+                .map(t -> new int[]{t.start() - base, t.end() - base})
+                .collect(Collectors.toList());
+    }
+
+    // Snippet bounds snap to whitespace so words are not cut in half
+    private static int wordStart(String s, int i) {
+        if (i == 0) return 0;
+        int space = s.indexOf(' ', i);
+        return space < 0 || space - i > 20 ? i : space + 1;
+    }
+
+    private static int wordEnd(String s, int i) {
+        if (i >= s.length()) return s.length();
+        int space = s.lastIndexOf(' ', i);
+        return space <= 0 || i - space > 20 ? i : space;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (!rebuildOnStartup) return;
+        try {
+            long t0 = System.nanoTime();
+            int docs = rebuild();
+            log.info("Search index built: {} documents in {} ms", docs, (System.nanoTime() - t0) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Search index rebuild failed, starting empty: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,37 @@
+package com.studymate.service;
+
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns text into a fixed-length, unit-length vector for {@link CourseMaterialIndex}; similar text
+ * should give vectors with a high inner product. The same implementation must be used to index and
+ * to query, so changing it (or its dimensions) invalidates the persisted indexes.
+ */
+public interface TextEmbedder {
+
+    int dimensions();
+
+    /** Short, stable identifier saved with each index so one built by another embedder is not reused. */
+    String id();
+
+    /** Embeds a search query. */
+    float[] embed(String text);
+
+    /**
+     * Embeds a search query without holding the caller's thread; used on the tutor request path.
+     * Embedders that call a remote model override this, local ones compute it on subscription.
+     */
+    default Mono<float[]> embedQuery(String text) {
+        return Mono.fromCallable(() -> embed(text));
+    }
+
+    /** Embeds passages to be indexed, in order; embedders that call a remote model batch them. */
+    default List<float[]> embedDocuments(List<String> texts) {
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        for (String text : texts) vectors.add(embed(text));
+        return vectors;
+    }
+}
@@ -0,0 +1,164 @@
+package com.studymate.service;
+
+import com.studymate.entity.TutorMessageEntity;
+import com.studymate.entity.TutorSessionEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Builds the Gemini prompt for a tutor turn from a bounded context: a rolling summary of older turns
+ * plus a sliding window of the most recent messages that fits the token budget. Sessions tied to a
+ * course also get the retrieved course PDF excerpts, within a budget of their own.
+ * <p>
+ * The window only moves forward. Messages that fall out of it are folded into the session summary
+ * once (tracked by {@code summarizedThrough}), so each turn costs O(window) no matter how long the
+ * session is. The summary is extractive (first sentence of each folded message) and is compacted
+ * oldest-first when it outgrows its budget. Token counts are estimated at ~4 characters per token.
+ */
+@Component
+public class TutorContextBuilder {
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final int SUMMARY_LINE_CHARS = 160;
+
+    private final int maxTokens;
+    private final int summaryTokens;
+    private final int questionTokens;
+    private final int materialTokens;
+
+    public TutorContextBuilder(@Value("${app.ai.context.max-tokens:3000}") int maxTokens,
+                               @Value("${app.ai.context.summary-tokens:500}") int summaryTokens,
+                               @Value("${app.ai.context.question-tokens:1000}") int questionTokens,
+                               @Value("${app.ai.context.material-tokens:800}") int materialTokens) {
+        this.maxTokens = maxTokens;
+        this.summaryTokens = summaryTokens;
+        this.questionTokens = questionTokens;
+        this.materialTokens = materialTokens;
+    }
+
+    /**
+     * Builds the prompt for {@code question}. {@code window} is the session's unsummarized tail (messages
+     * with seq above {@code summarizedThrough}, oldest first), loaded before the new message is stored.
+     * Messages that no longer fit are folded into the session's summary; the caller saves the session.
+     * {@code material} holds course PDF excerpts, most relevant first; a prompt with excerpts is never
+     * standalone, since its answer depends on the course and not just on the question.
+     */
+    public TutorPrompt build(TutorSessionEntity session, List<TutorMessageEntity> window, String question,
+                             List<PdfChunk> material) {
+        String q = truncate(question == null ? "" : question, questionTokens);
+        String excerpts = material(material);
+        if (session.getMessageCount() == 0 && window.isEmpty()) {
+            String text = frame(session.getSubject(), !excerpts.isEmpty()) + excerpts + "Student: " + q + "\nTutor:";
+            return new TutorPrompt(question, text, excerpts.isEmpty());
+        }
+        int windowBudget = Math.max(0, maxTokens - summaryTokens - tokens(q) - tokens(excerpts));
+        List<String> summary = session.getSummaryLines();
+        int start = slideWindow(session, summary, window, windowBudget);
+
+        var sb = new StringBuilder(frame(session.getSubject(), !excerpts.isEmpty())).append(excerpts);
+        if (!summary.isEmpty()) {
+            sb.append("Summary of the earlier conversation:\n");
+            for (String line : summary) sb.append("- ").append(line).append('\n');
+            sb.append('\n');
+        }
+        sb.append("Recent conversation:\n");
+        for (int i = start; i < window.size(); i++) {
+            var m = window.get(i);
+            sb.append(speaker(m)).append(": ").append(truncate(m.getContent(), windowBudget)).append('\n');
+        }
+        sb.append("\nStudent: ").append(q).append("\nTutor:");
+        return new TutorPrompt(question, sb.toString(), false);
+    }
+
+    // Drops messages from the front of the window until the rest fits the budget, folding them into the summary
+    private int slideWindow(TutorSessionEntity session, List<String> summary, List<TutorMessageEntity> window,
+                            int budget) {
+        int windowTokens = 0;
+        for (var m : window) windowTokens += tokens(m.getContent());
+        int start = 0;
+        // keep at least the latest message in the window; it is truncated if it alone is too big.
+        // Messages not yet flushed (no seq) are never folded, since summarizedThrough needs their seq.
+        while (windowTokens > budget && start < window.size() - 1 && window.get(start).getSeq() != null) {
+            var evicted = window.get(start++);
+            windowTokens -= tokens(evicted.getContent());
+            fold(summary, evicted);
+        }
+        if (start > 0) {
+            session.setSummaryLines(summary);
+            session.setSummarizedThrough(window.get(start - 1).getSeq());
+        }
+        return start;
+    }
+
+    private void fold(List<String> summary, TutorMessageEntity m) {
+        String gist = firstSentence(m.getContent());
+        if (gist.isEmpty()) return;
+        summary.add(("user".equals(m.getRole()) ? "Student asked: " : "Tutor explained: ") + gist);
+        int total = 0;
+        for (String line : summary) total += tokens(line);
+        // compact oldest-first: drop tutor lines before student questions, then anything
+        for (int i = 0; total > summaryTokens && i < summary.size() - 1; ) {
+            String line = summary.get(i);
+            if (line.startsWith("Tutor explained: ")) {
+                summary.remove(i);
+                total -= tokens(line);
+            } else {
+                i++;
+            }
+        }
+        while (total > summaryTokens && summary.size() > 1) {
+            total -= tokens(summary.remove(0));
+        }
+    }
+
+    // Excerpts share the material budget evenly, each tagged with its page for citing
+    private String material(List<PdfChunk> material) {
+        if (material.isEmpty()) return "";
+        int each = Math.max(1, materialTokens / material.size());
+        var sb = new StringBuilder("Course material (excerpts from the course PDF):\n");
+        for (var c : material) {
+            sb.append("[p. ").append(c.page()).append("] ")
+                    .append(truncate(c.content().replace('\n', ' '), each)).append('\n');
+        }
+        return sb.append('\n').toString();
+    }
+
+    private static String frame(String subject, boolean material) {
+        String topic = subject == null || subject.isBlank() ? "" : " for " + subject;
+        String grounding = material
+                ? " Base your answer on the course material below where it is relevant, citing pages as (p. N)."
+                : "";
+        return "You are StudyMate's AI tutor" + topic + ". Answer the student's latest message, "
+                + "using the earlier conversation as context." + grounding + "\n\n";
+    }
+
+    private static String speaker(TutorMessageEntity m) {
+        return "user".equals(m.getRole()) ? "Student" : "Tutor";
+    }
+
+    private static String firstSentence(String text) {
+        if (text == null) return "";
+        String t = text.strip().replaceAll("\\s+", " ");
+        int end = t.length();
+        for (int i = 0; i < t.length(); i++) {
+            char c = t.charAt(i);
+            if ((c == '.' || c == '?' || c == '!') && (i + 1 == t.length() || t.charAt(i + 1) == ' ')) {
+                end = i + 1;
+                break;
+            }
+        }
+        end = Math.min(end, SUMMARY_LINE_CHARS);
+        return t.substring(0, end);
+    }
+
+    static int tokens(String text) {
+        return text == null ? 0 : (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    private static String truncate(String text, int tokenBudget) {
+        if (text == null) return "";
+        int max = tokenBudget * CHARS_PER_TOKEN;
+        return text.length() <= max ? text : text.substring(0, max) + " ...";
+    }
+}
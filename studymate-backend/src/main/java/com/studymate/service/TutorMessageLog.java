@@ -0,0 +1,313 @@
+package com.studymate.service;
+
+import com.studymate.entity.TutorMessageEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind append log for tutor messages. Appends go into a bounded queue; a single background
+ * flusher drains it in JDBC batches of up to {@code batch-size} rows, waiting at most
+ * {@code max-delay} to fill a batch, and bumps each session's message_count once per batch.
+ * <p>
+ * Durability: {@code async} acknowledges as soon as the message is queued (a crash can lose what was
+ * queued but not flushed yet); {@code sync} waits until the batch holding the message has committed,
+ * which still groups concurrent writers into one round trip, and gives up after {@code sync-timeout}
+ * with {@link LlmBusyException} (the message stays queued). When the queue is full, appenders block
+ * up to {@code enqueue-timeout} and then get {@link LlmBusyException}.
+ * <p>
+ * In async mode a row that fails on its own is retried every {@code retry-delay}, up to
+ * {@code max-attempts} times, unless it violates a constraint (e.g. its session was deleted); rows
+ * given up on are counted in {@code failedRows}. Later rows of the same session wait behind a row
+ * being retried, so seq still follows append order.
+ * <p>
+ * Until a message is flushed it is visible through {@link #pending(UUID)}, so a session's next turn
+ * still sees it.
+ */
+@Component
+public class TutorMessageLog implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(TutorMessageLog.class);
+    private static final String INSERT =
+            "insert into tutor_messages (id, session_id, role, content, created_at) values (?, ?, ?, ?, ?)";
+    private static final String COUNT =
+            "update tutor_sessions set message_count = message_count + ?, updated_at = ? where id = ?";
+
+    public enum Durability { SYNC, ASYNC }
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transactions;
+    private final BlockingQueue<Pending> queue;
+    private final Map<UUID, Queue<Pending>> pendingBySession = new ConcurrentHashMap<>();
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final Duration enqueueTimeout;
+    private final Duration syncTimeout;
+    private final long retryDelayNanos;
+    private final int maxAttempts;
+    private final Durability durability;
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder flushed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    // rows awaiting another attempt; touched by the flusher thread only
+    private final List<Pending> retries = new ArrayList<>();
+    private long retryAt;
+    private volatile int awaitingRetry;
+    private volatile boolean running;
+    private Thread flusher;
+
+    public TutorMessageLog(JdbcTemplate jdbc, TransactionTemplate transactions,
+                           @Value("${app.ai.messages.queue-capacity:10000}") int capacity,
+                           @Value("${app.ai.messages.batch-size:200}") int batchSize,
+                           @Value("${app.ai.messages.max-delay:20ms}") Duration maxDelay,
+                           @Value("${app.ai.messages.enqueue-timeout:5s}") Duration enqueueTimeout,
+                           @Value("${app.ai.messages.sync-timeout:10s}") Duration syncTimeout,
+                           @Value("${app.ai.messages.retry-delay:1s}") Duration retryDelay,
+                           @Value("${app.ai.messages.max-attempts:5}") int maxAttempts,
+                           @Value("${app.ai.messages.durability:async}") String durability) {
+        this.jdbc = jdbc;
+        this.transactions = transactions;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.enqueueTimeout = enqueueTimeout;
+        this.syncTimeout = syncTimeout;
+        this.retryDelayNanos = retryDelay.toNanos();
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.durability = Durability.valueOf(durability.trim().toUpperCase(Locale.ROOT));
+    }
+
+    private static final class Pending {
+        final TutorMessageEntity message;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        int attempts;
+
+        Pending(TutorMessageEntity message) {
+            this.message = message;
+        }
+    }
+
+    /** Queues the message (id and created_at already assigned) and returns per the durability mode. */
+    public void append(TutorMessageEntity message) {
+        var p = new Pending(message);
+        UUID sessionId = message.getSessionId();
+        pendingBySession.compute(sessionId, (k, q) -> {
+            if (q == null) q = new ConcurrentLinkedQueue<>();
+            q.add(p);
+            return q;
+        });
+        boolean queued = queue.offer(p);
+        if (!queued) {
+            blocked.increment();
+            try {
+                queued = queue.offer(p, enqueueTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!queued) {
+            rejected.increment();
+            forget(p);
+            throw new LlmBusyException("Chat history is backed up, please retry shortly");
+        }
+        appended.increment();
+        if (durability == Durability.SYNC) {
+            try {
+                p.done.get(syncTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (TimeoutException e) {
+                throw new LlmBusyException("Saving chat history is taking too long, please retry shortly");
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Could not store tutor message", e.getCause());
+            }
+        }
+    }
+
+    /** Messages of the session that are queued but not yet flushed, oldest first. */
+    public List<TutorMessageEntity> pending(UUID sessionId) {
+        var q = pendingBySession.get(sessionId);
+        if (q == null) return List.of();
+        List<TutorMessageEntity> out = new ArrayList<>();
+        for (var p : q) out.add(p.message);
+        return out;
+    }
+
+    public Map<String, Object> stats() {
+        long b = batches.sum(), f = flushed.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("durability", durability.name().toLowerCase(Locale.ROOT));
+        stats.put("queued", queue.size());
+        stats.put("appended", appended.sum());
+        stats.put("flushed", f);
+        stats.put("batches", b);
+        stats.put("avgBatchSize", b == 0 ? 0.0 : (double) f / b);
+        stats.put("blockedAppends", blocked.sum());
+        stats.put("rejectedAppends", rejected.sum());
+        stats.put("retriedRows", retried.sum());
+        stats.put("awaitingRetry", awaitingRetry);
+        stats.put("failedRows", failed.sum());
+        return stats;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        flusher = new Thread(this::run, "tutor-message-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /** Wakes the flusher and waits for it to drain whatever is still queued. */
+    @Override
+    public void stop() {
+        running = false;
+        if (flusher == null) return;
+        flusher.interrupt();
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty() || !retries.isEmpty()) {
+            try {
+                if (!retries.isEmpty() && (!running || System.nanoTime() - retryAt >= 0)) {
+                    batch.addAll(retries);
+                    retries.clear();
+                } else {
+                    long wait = retries.isEmpty() ? TimeUnit.SECONDS.toNanos(1) : Math.max(0, retryAt - System.nanoTime());
+                    Pending first = running ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (first == null) continue;
+                    batch.add(first);
+                }
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) continue;
+                    long wait = deadline - System.nanoTime();
+                    if (wait <= 0 || !running) break;
+                    Pending next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // shutdown: fall through, flush what we hold and drain the rest without waiting
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+                awaitingRetry = retries.size();
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        Map<Pending, RuntimeException> errors = new HashMap<>();
+        // seq is assigned at insert, so a session with a row awaiting retry holds back its later rows too
+        Set<UUID> held = new HashSet<>();
+        for (var p : retries) held.add(p.message.getSessionId());
+        List<Pending> holding = new ArrayList<>();
+        List<Pending> ready = new ArrayList<>(batch.size());
+        for (var p : batch) (held.contains(p.message.getSessionId()) ? holding : ready).add(p);
+        int failedRows = 0;
+        try {
+            if (!ready.isEmpty()) insert(ready);
+        } catch (RuntimeException e) {
+            // one bad row (e.g. its session was deleted) must not sink the rest: retry row by row
+            log.warn("Batch insert of {} tutor messages failed, retrying individually: {}", ready.size(), e.getMessage());
+            for (var p : ready) {
+                var sessionId = p.message.getSessionId();
+                if (held.contains(sessionId)) {
+                    holding.add(p);
+                    continue;
+                }
+                try {
+                    insert(List.of(p));
+                } catch (RuntimeException rowError) {
+                    if (++p.attempts < maxAttempts && durability == Durability.ASYNC
+                            && !(rowError instanceof DataIntegrityViolationException)) {
+                        holding.add(p);
+                        held.add(sessionId);
+                        failedRows++;
+                        continue;
+                    }
+                    failed.increment();
+                    log.error("Dropping tutor message {} after {} attempts: {}", p.message.getId(), p.attempts,
+                            rowError.getMessage());
+                    errors.put(p, rowError);
+                }
+            }
+        }
+        if (!holding.isEmpty()) {
+            // still visible through pending(); the next attempt goes out once the delay has passed
+            retried.add(failedRows);
+            if (retries.isEmpty()) retryAt = System.nanoTime() + retryDelayNanos;
+            retries.addAll(holding);
+        }
+        // leave the pending view before acking, so a sync caller's next read finds the row in the table
+        Set<Pending> waiting = new HashSet<>(holding);
+        for (var p : batch) {
+            if (waiting.contains(p)) continue;
+            forget(p);
+            var error = errors.get(p);
+            if (error == null) p.done.complete(null);
+            else p.done.completeExceptionally(error);
+        }
+    }
+
+    // rows and their message_count bumps commit together
+    private void insert(List<Pending> rows) {
+        transactions.executeWithoutResult(tx -> insertRows(rows));
+        flushed.add(rows.size());
+        batches.increment();
+    }
+
+    private void insertRows(List<Pending> rows) {
+        jdbc.batchUpdate(INSERT, rows, rows.size(), (ps, p) -> {
+            var m = p.message;
+            ps.setObject(1, m.getId());
+            ps.setObject(2, m.getSessionId());
+            ps.setString(3, m.getRole());
+            ps.setString(4, m.getContent());
+            ps.setTimestamp(5, Timestamp.from(m.getCreatedAt().toInstant()));
+        });
+        Map<UUID, Integer> perSession = new LinkedHashMap<>();
+        for (var p : rows) perSession.merge(p.message.getSessionId(), 1, Integer::sum);
+        var now = Timestamp.from(OffsetDateTime.now().toInstant());
+        jdbc.batchUpdate(COUNT, new ArrayList<>(perSession.entrySet()), perSession.size(), (ps, e) -> {
+            ps.setInt(1, e.getValue());
+            ps.setTimestamp(2, now);
+            ps.setObject(3, e.getKey());
+        });
+    }
+
+    private void forget(Pending p) {
+        pendingBySession.computeIfPresent(p.message.getSessionId(), (k, q) -> {
+            q.remove(p);
+            return q.isEmpty() ? null : q;
+        });
+    }
+}
@@ -0,0 +1,8 @@
+package com.studymate.service;
+
+/**
+ * Prompt for one tutor turn. {@code question} is the student's raw message; {@code text} is what is
+ * sent to Gemini. A turn without earlier history or course excerpts is {@code standalone}, and only
+ * those are answered from / stored in {@link TutorResponseCache}.
+ */
+public record TutorPrompt(String question, String text, boolean standalone) {}
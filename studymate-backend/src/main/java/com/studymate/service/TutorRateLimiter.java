@@ -0,0 +1,167 @@
+package com.studymate.service;
+
+import com.studymate.util.ExpiringLruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-user limits for the AI tutor: a token bucket on request rate plus a daily quota of (estimated)
+ * LLM tokens. Each is a single CAS-updated long; finding a user's budget goes through the striped
+ * {@link ExpiringLruCache}, whose segments are synchronized.
+ * <p>
+ * Budgets are keyed by (user, UTC day) and live in a bounded LRU map, so memory stays flat however
+ * many users show up, and a day's usage can only expire after that day is over. A budget that gets
+ * evicted simply starts over full, which errs on the side of letting the user through; so does the
+ * request bucket at midnight, when the user moves on to a new day's budget.
+ */
+@Component
+public class TutorRateLimiter {
+    private static final int TOKEN_BITS = 22;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long MILLI = 1000;
+
+    public record Decision(boolean allowed, long retryAfterSeconds, String reason) {
+        static final Decision OK = new Decision(true, 0, null);
+    }
+
+    private final long capacityMilli;
+    private final double refillMilliPerMs;
+    private final long dailyTokens;
+    private final long epochMillis = System.currentTimeMillis();
+    private final ExpiringLruCache<Key, Budget> budgets;
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder quotaExceeded = new LongAdder();
+
+    public TutorRateLimiter(@Value("${app.ai.rate-limit.burst:10}") int burst,
+                            @Value("${app.ai.rate-limit.per-minute:6}") double perMinute,
+                            @Value("${app.ai.rate-limit.daily-tokens:200000}") long dailyTokens,
+                            @Value("${app.ai.rate-limit.max-users:100000}") int maxUsers) {
+        this.capacityMilli = Math.min(burst * MILLI, TOKEN_MASK);
+        this.refillMilliPerMs = perMinute * MILLI / 60_000.0;
+        this.dailyTokens = dailyTokens;
+        // entries expire from creation, not last use; since the key includes the day, 25h outlive it
+        this.budgets = new ExpiringLruCache<>(maxUsers, Duration.ofHours(25));
+    }
+
+    /** Takes one request from the user's bucket, unless the bucket is empty or today's quota is used. */
+    public Decision tryAcquire(String user) {
+        var budget = budget(user, LocalDate.now(ZoneOffset.UTC).toEpochDay());
+        if (budget.used() >= dailyTokens) {
+            quotaExceeded.increment();
+            return new Decision(false, secondsUntilUtcMidnight(), "Daily AI tutor quota used up");
+        }
+        long waitMs = budget.take(nowMs(), capacityMilli, refillMilliPerMs);
+        if (waitMs > 0) {
+            rateLimited.increment();
+            return new Decision(false, Math.max(1, (waitMs + 999) / 1000), "Too many AI tutor requests");
+        }
+        return Decision.OK;
+    }
+
+    /**
+     * Charges the estimated LLM tokens of one turn (prompt + reply) against the user's daily quota.
+     * Only for replies Gemini actually produced; cached answers and error fallbacks are free.
+     */
+    public void recordUsage(String user, TutorPrompt prompt, String reply) {
+        long tokens = TutorContextBuilder.tokens(prompt.text()) + TutorContextBuilder.tokens(reply);
+        budget(user, LocalDate.now(ZoneOffset.UTC).toEpochDay()).add(tokens);
+    }
+
+    /** Heaviest users today, for the admin view. */
+    public Map<String, Object> usage(int limit) {
+        long today = LocalDate.now(ZoneOffset.UTC).toEpochDay();
+        long now = nowMs();
+        var top = new PriorityQueue<Map<String, Object>>(Comparator.comparingLong(m -> (Long) m.get("tokensToday")));
+        long[] tracked = new long[2];
+        budgets.forEach((key, budget) -> {
+            if (key.day() != today) return;
+            tracked[0]++;
+            long used = budget.used();
+            tracked[1] += used;
+            if (used == 0) return;
+            if (top.size() == limit && (Long) top.peek().get("tokensToday") >= used) return;
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("user", key.user());
+            row.put("tokensToday", used);
+            row.put("requestsAvailable", budget.available(now, capacityMilli, refillMilliPerMs) / MILLI);
+            top.add(row);
+            if (top.size() > limit) top.poll();
+        });
+        var users = new ArrayList<>(top);
+        users.sort(Comparator.comparingLong(m -> -(Long) m.get("tokensToday")));
+
+        Map<String, Object> usage = new LinkedHashMap<>();
+        usage.put("dailyTokenQuota", dailyTokens);
+        usage.put("trackedUsers", tracked[0]);
+        usage.put("tokensToday", tracked[1]);
+        usage.put("rateLimited", rateLimited.sum());
+        usage.put("quotaExceeded", quotaExceeded.sum());
+        usage.put("topUsers", users);
+        return usage;
+    }
+
+    private Budget budget(String user, long day) {
+        return budgets.computeIfAbsent(new Key(user, day), k -> new Budget(capacityMilli));
+    }
+
+    private long nowMs() {
+        return System.currentTimeMillis() - epochMillis;
+    }
+
+    private static long secondsUntilUtcMidnight() {
+        var midnight = LocalDate.now(ZoneOffset.UTC).plusDays(1).atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+        return Math.max(1, midnight - System.currentTimeMillis() / 1000);
+    }
+
+    private record Key(String user, long day) {}
+
+    private static final class Budget {
+        // bucket: refill timestamp (ms since limiter start) << 22 | milli-tokens
+        private final AtomicLong bucket;
+        // LLM tokens used on the budget's day
+        private final AtomicLong used = new AtomicLong();
+
+        Budget(long capacityMilli) {
+            this.bucket = new AtomicLong(capacityMilli);
+        }
+
+        /** Returns 0 when a request was taken, otherwise the milliseconds until one is available. */
+        long take(long now, long capacity, double rate) {
+            while (true) {
+                long s = bucket.get();
+                long tokens = refill(s, now, capacity, rate);
+                if (tokens < MILLI) {
+                    return (long) Math.ceil((MILLI - tokens) / rate);
+                }
+                long next = (now << TOKEN_BITS) | (tokens - MILLI);
+                if (bucket.compareAndSet(s, next)) return 0;
+            }
+        }
+
+        long available(long now, long capacity, double rate) {
+            return refill(bucket.get(), now, capacity, rate);
+        }
+
+        long used() {
+            return used.get();
+        }
+
+        void add(long tokens) {
+            used.addAndGet(tokens);
+        }
+
+        private static long refill(long state, long now, long capacity, double rate) {
+            long last = state >>> TOKEN_BITS;
+            long tokens = state & TOKEN_MASK;
+            long elapsed = Math.max(0, now - last);
+            return Math.min(capacity, tokens + (long) (elapsed * rate));
+        }
+    }
+}
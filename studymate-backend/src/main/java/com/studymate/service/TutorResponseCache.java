@@ -0,0 +1,230 @@
+package com.studymate.service;
+
+import com.studymate.util.ExpiringLruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Response cache in front of Gemini, scoped by (model, subject).
+ * <p>
+ * Exact tier: normalized prompt text -> answer. Similarity tier (off by default): MinHash signatures
+ * over character 3-grams, bucketed with LSH banding so a lookup only compares against prompts that
+ * share at least one band; a candidate is accepted when its estimated Jaccard similarity reaches the
+ * threshold and it contains exactly the same numbers, since "x^2" and "x^3" differ by one character
+ * but need different answers. Both tiers are size-bounded LRU with a TTL.
+ */
+@Component
+public class TutorResponseCache {
+    private static final int HASHES = 64;
+    private static final int BANDS = 16;
+    private static final int ROWS = HASHES / BANDS;
+    private static final long[] SEEDS = new long[HASHES];
+
+    static {
+        var rnd = new SplittableRandom(0x5eedL);
+        for (int i = 0; i < HASHES; i++) SEEDS[i] = rnd.nextLong();
+    }
+
+    private final boolean enabled;
+    private final boolean similarityEnabled;
+    private final double threshold;
+    private final long ttlMillis;
+    private final ExpiringLruCache<String, String> exact;
+    private final SimilarityIndex similar;
+    private final LongAdder exactHits = new LongAdder();
+    private final LongAdder similarHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public TutorResponseCache(@Value("${app.ai.cache.enabled:true}") boolean enabled,
+                              @Value("${app.ai.cache.max-entries:5000}") int maxEntries,
+                              @Value("${app.ai.cache.ttl:6h}") Duration ttl,
+                              @Value("${app.ai.cache.similarity.enabled:false}") boolean similarityEnabled,
+                              @Value("${app.ai.cache.similarity.threshold:0.9}") double threshold) {
+        this.enabled = enabled;
+        this.similarityEnabled = similarityEnabled;
+        this.threshold = threshold;
+        this.ttlMillis = ttl.toMillis();
+        this.exact = new ExpiringLruCache<>(maxEntries, ttl);
+        this.similar = new SimilarityIndex(maxEntries);
+    }
+
+    public Optional<String> get(String model, String subject, String prompt) {
+        if (!enabled) return Optional.empty();
+        String scope = scope(model, subject);
+        String normalized = normalize(prompt);
+        String hit = exact.get(scope + '\u0000' + normalized);
+        if (hit != null) {
+            exactHits.increment();
+            return Optional.of(hit);
+        }
+        if (similarityEnabled) {
+            hit = similar.find(scope, signature(normalized), numbers(normalized), threshold);
+            if (hit != null) {
+                similarHits.increment();
+                return Optional.of(hit);
+            }
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    public void put(String model, String subject, String prompt, String answer) {
+        if (!enabled) return;
+        String scope = scope(model, subject);
+        String normalized = normalize(prompt);
+        String key = scope + '\u0000' + normalized;
+        exact.put(key, answer);
+        if (similarityEnabled) {
+            similar.add(key, scope, signature(normalized), numbers(normalized), answer,
+                    System.currentTimeMillis() + ttlMillis);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long e = exactHits.sum(), s = similarHits.sum(), m = misses.sum();
+        long total = e + s + m;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("exactHits", e);
+        stats.put("similarHits", s);
+        stats.put("misses", m);
+        stats.put("hitRate", total == 0 ? 0.0 : (double) (e + s) / total);
+        stats.put("exactEntries", exact.size());
+        stats.put("similarEntries", similar.size());
+        return stats;
+    }
+
+    static String normalize(String prompt) {
+        var sb = new StringBuilder(prompt.length());
+        boolean space = true;
+        for (int i = 0; i < prompt.length(); i++) {
+            char c = Character.toLowerCase(prompt.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(c);
+                space = false;
+            } else if (!space) {
+                sb.append(' ');
+                space = true;
+            }
+        }
+        int len = sb.length();
+        if (len > 0 && sb.charAt(len - 1) == ' ') sb.setLength(len - 1);
+        return sb.toString();
+    }
+
+    // The tokens of a normalized prompt that contain a digit, in order; near-duplicates must agree on them
+    static String numbers(String normalized) {
+        var sb = new StringBuilder();
+        for (String token : normalized.split(" ")) {
+            if (token.chars().anyMatch(Character::isDigit)) sb.append(token).append(' ');
+        }
+        return sb.toString();
+    }
+
+    private static String scope(String model, String subject) {
+        return model + '|' + (subject == null ? "" : normalize(subject));
+    }
+
+    // MinHash over character 3-grams of the normalized prompt
+    static long[] signature(String normalized) {
+        long[] sig = new long[HASHES];
+        Arrays.fill(sig, Long.MAX_VALUE);
+        String text = " " + normalized + " ";
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            long shingle = text.charAt(i) | ((long) text.charAt(i + 1) << 16) | ((long) text.charAt(i + 2) << 32);
+            for (int h = 0; h < HASHES; h++) {
+                long v = mix(shingle ^ SEEDS[h]);
+                if (v < sig[h]) sig[h] = v;
+            }
+        }
+        return sig;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static double estimate(long[] a, long[] b) {
+        int same = 0;
+        for (int i = 0; i < HASHES; i++) if (a[i] == b[i]) same++;
+        return (double) same / HASHES;
+    }
+
+    private static long bandKey(String scope, long[] sig, int band) {
+        long h = scope.hashCode() * 31L + band;
+        for (int r = band * ROWS; r < (band + 1) * ROWS; r++) h = mix(h ^ sig[r]);
+        return h;
+    }
+
+    private record SimEntry(String scope, long[] signature, String numbers, String answer, long expiresAt) {}
+
+    /** LRU-bounded MinHash/LSH index; a single lock is fine since lookups touch only a few buckets. */
+    private static final class SimilarityIndex {
+        private final Map<Long, Set<String>> buckets = new HashMap<>();
+        private final LinkedHashMap<String, SimEntry> entries;
+
+        SimilarityIndex(int capacity) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, SimEntry> eldest) {
+                    if (size() <= capacity) return false;
+                    unindex(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+            };
+        }
+
+        synchronized void add(String key, String scope, long[] sig, String numbers, String answer, long expiresAt) {
+            var previous = entries.remove(key);
+            if (previous != null) unindex(key, previous);
+            var entry = new SimEntry(scope, sig, numbers, answer, expiresAt);
+            entries.put(key, entry);
+            for (int b = 0; b < BANDS; b++) {
+                buckets.computeIfAbsent(bandKey(scope, sig, b), k -> new HashSet<>()).add(key);
+            }
+        }
+
+        synchronized String find(String scope, long[] sig, String numbers, double threshold) {
+            long now = System.currentTimeMillis();
+            String best = null;
+            double bestScore = threshold;
+            Set<String> seen = new HashSet<>();
+            for (int b = 0; b < BANDS; b++) {
+                var bucket = buckets.get(bandKey(scope, sig, b));
+                if (bucket == null) continue;
+                for (String key : bucket) {
+                    if (!seen.add(key)) continue;
+                    var entry = entries.get(key);
+                    if (entry == null || entry.expiresAt() <= now || !entry.scope().equals(scope)
+                            || !entry.numbers().equals(numbers)) continue;
+                    double score = estimate(sig, entry.signature());
+                    if (score >= bestScore) {
+                        bestScore = score;
+                        best = entry.answer();
+                    }
+                }
+            }
+            return best;
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        private void unindex(String key, SimEntry entry) {
+            for (int b = 0; b < BANDS; b++) {
+                long bk = bandKey(entry.scope(), entry.signature(), b);
+                var bucket = buckets.get(bk);
+                if (bucket != null) {
+                    bucket.remove(key);
+                    if (bucket.isEmpty()) buckets.remove(bk);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.studymate.service;
+
+import com.studymate.api.dto.ChatMessageDto;
+import com.studymate.api.dto.PageResponse;
+import com.studymate.api.dto.TutorSessionDto;
+import com.studymate.entity.TutorMessageEntity;
+import com.studymate.entity.TutorSessionEntity;
+import com.studymate.repository.CourseRepository;
+import com.studymate.repository.TutorMessageRepository;
+import com.studymate.repository.TutorSessionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Tutor sessions and their chat history, persisted per user. Messages are append-only and never
+ * loaded in full: listings are paged and a turn only reads the session's unsummarized tail. Message
+ * writes go through {@link TutorMessageLog} (write-behind, batched).
+ */
+@Service
+public class TutorSessionService {
+    static final int MAX_PAGE_SIZE = 100;
+    private static final int TURN_ATTEMPTS = 3;
+    private static final Sort RECENT_FIRST = Sort.by(Sort.Order.desc("updatedAt"), Sort.Order.desc("id"));
+
+    private final TutorSessionRepository sessionRepository;
+    private final TutorMessageRepository messageRepository;
+    private final TutorContextBuilder contextBuilder;
+    private final TransactionTemplate transactions;
+    private final TutorMessageLog messageLog;
+    private final CourseRepository courseRepository;
+    private final CourseMaterialIndex materials;
+    private final int materialChunks;
+
+    public TutorSessionService(TutorSessionRepository sessionRepository, TutorMessageRepository messageRepository,
+                               TutorContextBuilder contextBuilder, TransactionTemplate transactions,
+                               TutorMessageLog messageLog, CourseRepository courseRepository,
+                               CourseMaterialIndex materials,
+                               @Value("${app.rag.chunks-per-turn:4}") int materialChunks) {
+        this.sessionRepository = sessionRepository;
+        this.messageRepository = messageRepository;
+        this.contextBuilder = contextBuilder;
+        this.transactions = transactions;
+        this.messageLog = messageLog;
+        this.courseRepository = courseRepository;
+        this.materials = materials;
+        this.materialChunks = materialChunks;
+    }
+
+    /** A started turn: the user's message is stored and {@code prompt} is ready to send. */
+    public record Turn(UUID sessionId, String subject, TutorPrompt prompt) {}
+
+    public PageResponse<TutorSessionDto> list(UUID userId, int page, int size) {
+        var pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE), RECENT_FIRST);
+        var result = sessionRepository.findByUserId(userId, pageable);
+        var content = result.getContent().stream().map(s -> toDto(s, null)).collect(Collectors.toList());
+        return new PageResponse<>(content, result.getTotalElements());
+    }
+
+    /** Empty when {@code courseId} is given but no such course exists. */
+    public Optional<TutorSessionDto> create(UUID userId, String subject, UUID courseId) {
+        if (courseId != null && !courseRepository.existsById(courseId)) return Optional.empty();
+        var session = new TutorSessionEntity();
+        session.setUserId(userId);
+        session.setSubject(subject);
+        session.setCourseId(courseId);
+        return Optional.of(toDto(sessionRepository.save(session), new ArrayList<>()));
+    }
+
+    /** Page 0 holds the newest messages; each page is returned oldest-first for display. */
+    public Optional<PageResponse<ChatMessageDto>> messages(UUID userId, String sessionId, int page, int size) {
+        return findOwned(userId, sessionId).map(session -> {
+            var pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+            var rows = new ArrayList<>(messageRepository.findBySessionIdOrderBySeqDesc(session.getId(), pageable));
+            Collections.reverse(rows);
+            var content = rows.stream().map(TutorSessionService::toDto).collect(Collectors.toList());
+            return new PageResponse<>(content, session.getMessageCount());
+        });
+    }
+
+    /**
+     * For a course session, first retrieves the course PDF chunks closest to the question; the query
+     * embedding is non-blocking and happens before any transaction is open. Then builds the prompt from
+     * the session's bounded context (saving any summary change) and appends the user's message to the
+     * message log, on boundedElastic. Empty when the session does not exist or belongs to someone else.
+     * <p>
+     * A concurrent turn of the same session that saved its summary first fails this one's version
+     * check; the turn is then rebuilt from the new state, and after {@code TURN_ATTEMPTS} tries the
+     * caller gets {@link LlmBusyException}.
+     */
+    public Mono<Optional<Turn>> beginTurn(UUID userId, String sessionId, String question) {
+        return Mono.defer(() -> {
+            var owned = findOwned(userId, sessionId);
+            if (owned.isEmpty()) return Mono.just(Optional.<Turn>empty());
+            UUID courseId = owned.get().getCourseId();
+            Mono<List<PdfChunk>> material = courseId == null ? Mono.just(List.of())
+                    : materials.retrieve(courseId, question, materialChunks);
+            return material.publishOn(Schedulers.boundedElastic())
+                    .map(chunks -> startTurn(userId, sessionId, question, chunks));
+        });
+    }
+
+    private Optional<Turn> startTurn(UUID userId, String sessionId, String question, List<PdfChunk> material) {
+        Optional<Turn> turn;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                turn = transactions.execute(tx -> findOwned(userId, sessionId).map(session -> {
+                    var prompt = contextBuilder.build(session, window(session), question, material);
+                    return new Turn(session.getId(), session.getSubject(), prompt);
+                }));
+                break;
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt == TURN_ATTEMPTS) throw new LlmBusyException("Session is busy, please retry shortly");
+            }
+        }
+        turn.ifPresent(t -> append(t.sessionId(), "user", question));
+        return turn;
+    }
+
+    public ChatMessageDto appendReply(UUID sessionId, String content) {
+        return toDto(append(sessionId, "assistant", content));
+    }
+
+    // Unsummarized tail: flushed rows plus messages still in the write-behind log. The log is read
+    // first, so a message flushed in between shows up in both (deduplicated) rather than in neither.
+    private List<TutorMessageEntity> window(TutorSessionEntity session) {
+        var pending = messageLog.pending(session.getId());
+        var window = new ArrayList<>(messageRepository.findBySessionIdAndSeqGreaterThanOrderBySeqAsc(
+                session.getId(), session.getSummarizedThrough()));
+        if (pending.isEmpty()) return window;
+        Set<UUID> stored = new HashSet<>();
+        for (var m : window) stored.add(m.getId());
+        for (var m : pending) {
+            if (!stored.contains(m.getId())) window.add(m);
+        }
+        return window;
+    }
+
+    private TutorMessageEntity append(UUID sessionId, String role, String content) {
+        var message = new TutorMessageEntity();
+        message.setId(UUID.randomUUID());
+        message.setSessionId(sessionId);
+        message.setRole(role);
+        message.setContent(content == null ? "" : content);
+        message.setCreatedAt(OffsetDateTime.now());
+        messageLog.append(message);
+        return message;
+    }
+
+    private Optional<TutorSessionEntity> findOwned(UUID userId, String sessionId) {
+        try {
+            return sessionRepository.findByIdAndUserId(UUID.fromString(sessionId), userId);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static TutorSessionDto toDto(TutorSessionEntity e, List<ChatMessageDto> messages) {
+        TutorSessionDto dto = new TutorSessionDto();
+        dto.id = e.getId().toString();
+        dto.userId = e.getUserId().toString();
+        dto.subject = e.getSubject();
+        dto.courseId = e.getCourseId() != null ? e.getCourseId().toString() : null;
+        dto.messages = messages;
+        dto.messageCount = e.getMessageCount();
+        dto.createdAt = e.getCreatedAt() != null ? e.getCreatedAt().toString() : null;
+        dto.updatedAt = e.getUpdatedAt() != null ? e.getUpdatedAt().toString() : null;
+        return dto;
+    }
+
+    private static ChatMessageDto toDto(TutorMessageEntity e) {
+        ChatMessageDto dto = new ChatMessageDto();
+        dto.id = e.getId().toString();
+        dto.role = e.getRole();
+        dto.content = e.getContent();
+        dto.timestamp = e.getCreatedAt().toString();
+        return dto;
+    }
+}
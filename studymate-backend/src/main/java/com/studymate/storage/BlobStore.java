@@ -0,0 +1,38 @@
+package com.studymate.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Content-addressed storage for large binary payloads (course PDFs). Keys are the lowercase hex
+ * SHA-256 of the content, so identical uploads map to the same blob.
+ * <p>
+ * Blobs are never deleted on the request path: another upload may be deduplicating onto a blob at
+ * the very moment its last reference goes away. Instead {@code BlobGarbageCollector} deletes blobs
+ * that have been unreferenced for a grace period, using the store's last-written time, which every
+ * {@link #put} of the same content refreshes.
+ */
+public interface BlobStore {
+
+    StoredBlob put(InputStream content) throws IOException;
+
+    Optional<Resource> open(String key);
+
+    boolean exists(String key);
+
+    /** Keys of blobs last written before {@code cutoff}; also clears abandoned partial uploads. */
+    void forEachWrittenBefore(Instant cutoff, Consumer<String> action) throws IOException;
+
+    /**
+     * Deletes the blob unless it was written (or deduplicated onto) at or after {@code cutoff};
+     * atomic with respect to {@link #put} of the same content. Returns whether it was deleted.
+     */
+    boolean deleteIfWrittenBefore(String key, Instant cutoff) throws IOException;
+
+    record StoredBlob(String key, long size) {}
+}
@@ -0,0 +1,16 @@
+package com.studymate.storage;
+
+import java.io.IOException;
+
+public class BlobTooLargeException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final long limit;
+
+    public BlobTooLargeException(long limit) {
+        super("Upload exceeds the maximum size of " + limit + " bytes");
+        this.limit = limit;
+    }
+
+    public long getLimit() { return limit; }
+}
@@ -0,0 +1,50 @@
+package com.studymate.storage;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Fails the read with {@link BlobTooLargeException} as soon as more than {@code limit} bytes have
+ * passed through, so chunked uploads without a Content-Length are still capped while streaming.
+ */
+public class LimitedInputStream extends FilterInputStream {
+    private final long limit;
+    private long count;
+
+    public LimitedInputStream(InputStream in, long limit) {
+        super(in);
+        this.limit = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) advance(1);
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) advance(n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        advance(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void advance(long n) throws BlobTooLargeException {
+        count += n;
+        if (count > limit) throw new BlobTooLargeException(limit);
+    }
+}
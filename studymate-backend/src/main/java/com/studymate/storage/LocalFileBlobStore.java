@@ -0,0 +1,141 @@
+package com.studymate.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Blob store on the local filesystem, laid out as {@code <root>/ab/cd/<sha256>}. Writes go to a
+ * temp file first and are moved into place once the digest is known; reads are memory-mapped. The
+ * file's modification time is the blob's last-written time: a put that finds the blob already there
+ * touches it. Publishing a put and deleting a blob hold the same per-key lock.
+ */
+@Component
+public class LocalFileBlobStore implements BlobStore {
+    private static final Pattern KEY = Pattern.compile("[0-9a-f]{64}");
+    private static final int LOCK_STRIPES = 64;
+
+    private final Path root;
+    private final Path tmp;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public LocalFileBlobStore(@Value("${app.storage.blob-dir:./data/blobs}") String rootDir) throws IOException {
+        this.root = Path.of(rootDir).toAbsolutePath().normalize();
+        this.tmp = root.resolve("tmp");
+        Files.createDirectories(tmp);
+        for (int i = 0; i < LOCK_STRIPES; i++) locks[i] = new Object();
+    }
+
+    @Override
+    public StoredBlob put(InputStream content) throws IOException {
+        Path staging = Files.createTempFile(tmp, "upload-", ".part");
+        try {
+            var digest = sha256();
+            long size;
+            try (var in = new DigestInputStream(content, digest);
+                 OutputStream out = Files.newOutputStream(staging)) {
+                size = in.transferTo(out);
+            }
+            String key = HexFormat.of().formatHex(digest.digest());
+            Path target = pathFor(key);
+            synchronized (lockFor(key)) {
+                if (!Files.exists(target)) {
+                    Files.createDirectories(target.getParent());
+                    try {
+                        Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (AtomicMoveNotSupportedException e) {
+                        Files.move(staging, target, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                } else {
+                    // deduplicated: restart the grace period so the collector leaves it to this upload
+                    Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                }
+            }
+            return new StoredBlob(key, size);
+        } finally {
+            Files.deleteIfExists(staging);
+        }
+    }
+
+    @Override
+    public Optional<Resource> open(String key) {
+        Path path = pathFor(key);
+        return Files.isRegularFile(path) ? Optional.of(new MappedFileResource(path)) : Optional.empty();
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.isRegularFile(pathFor(key));
+    }
+
+    @Override
+    public void forEachWrittenBefore(Instant cutoff, Consumer<String> action) throws IOException {
+        try (Stream<Path> parts = Files.list(tmp)) {
+            for (Path part : (Iterable<Path>) parts::iterator) {
+                if (writtenBefore(part, cutoff)) Files.deleteIfExists(part);
+            }
+        }
+        // <root>/ab/cd/<key>; anything else under the root (tmp included) is not a blob
+        try (Stream<Path> files = Files.find(root, 3, (path, attrs) -> attrs.isRegularFile()
+                && path.getNameCount() == root.getNameCount() + 3
+                && KEY.matcher(path.getFileName().toString()).matches()
+                && attrs.lastModifiedTime().toInstant().isBefore(cutoff))) {
+            files.forEach(path -> action.accept(path.getFileName().toString()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public boolean deleteIfWrittenBefore(String key, Instant cutoff) throws IOException {
+        Path path = pathFor(key);
+        synchronized (lockFor(key)) {
+            return writtenBefore(path, cutoff) && Files.deleteIfExists(path);
+        }
+    }
+
+    private static boolean writtenBefore(Path path, Instant cutoff) throws IOException {
+        try {
+            return Files.getLastModifiedTime(path).toInstant().isBefore(cutoff);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private Object lockFor(String key) {
+        return locks[Math.floorMod(key.hashCode(), LOCK_STRIPES)];
+    }
+
+    private Path pathFor(String key) {
+        if (key == null || !KEY.matcher(key).matches()) throw new IllegalArgumentException("Invalid blob key");
+        return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.studymate.storage;
+
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * File resource whose stream reads through memory-mapped windows of the file, so copying to the
+ * response avoids an extra kernel-to-heap read and skipping to a range start is free. Still a
+ * {@link FileSystemResource}, which lets callers hand the file to the container's sendfile path.
+ */
+public class MappedFileResource extends FileSystemResource {
+    static final long WINDOW_SIZE = 8L * 1024 * 1024;
+
+    public MappedFileResource(Path path) {
+        super(path);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new MappedInputStream(FileChannel.open(getFile().toPath(), StandardOpenOption.READ));
+    }
+
+    private static final class MappedInputStream extends InputStream {
+        private final FileChannel channel;
+        private final long size;
+        private long windowStart;
+        private MappedByteBuffer window;
+
+        MappedInputStream(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!ensureWindow()) return -1;
+            return window.get() & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (!ensureWindow()) return -1;
+            int n = Math.min(len, window.remaining());
+            window.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            if (n <= 0) return 0;
+            long pos = position();
+            long skipped = Math.min(n, size - pos);
+            long target = pos + skipped;
+            if (window != null && target < windowStart + window.limit()) {
+                window.position((int) (target - windowStart));
+            } else {
+                window = null;
+                windowStart = target;
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            long remaining = size - position();
+            return (int) Math.min(Integer.MAX_VALUE, remaining);
+        }
+
+        @Override
+        public void close() throws IOException {
+            window = null;
+            channel.close();
+        }
+
+        private long position() {
+            return window != null ? windowStart + window.position() : windowStart;
+        }
+
+        private boolean ensureWindow() throws IOException {
+            if (window != null && window.hasRemaining()) return true;
+            long next = position();
+            if (next >= size) return false;
+            windowStart = next;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, next, Math.min(WINDOW_SIZE, size - next));
+            return true;
+        }
+    }
+}
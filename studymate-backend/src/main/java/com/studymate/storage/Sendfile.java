@@ -0,0 +1,30 @@
+package com.studymate.storage;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Hands a whole file to Tomcat's sendfile support (the same mechanism its DefaultServlet uses), so
+ * the kernel copies it straight from the page cache to the socket. The caller sets the response
+ * headers, including Content-Length, and must not write a body.
+ */
+public final class Sendfile {
+    private static final String SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    private Sendfile() {}
+
+    public static boolean isSupported(HttpServletRequest request) {
+        return Boolean.TRUE.equals(request.getAttribute(SUPPORT_ATTR));
+    }
+
+    public static void send(HttpServletRequest request, File file, long length) throws IOException {
+        request.setAttribute(FILENAME_ATTR, file.getCanonicalPath());
+        request.setAttribute(START_ATTR, 0L);
+        request.setAttribute(END_ATTR, length);
+    }
+}
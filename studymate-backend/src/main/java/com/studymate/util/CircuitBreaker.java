@@ -0,0 +1,110 @@
+package com.studymate.util;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Count-based circuit breaker. Outcomes of the last {@code window} calls are kept in a ring; once at
+ * least {@code minCalls} are recorded and the failure rate reaches the threshold the breaker opens and
+ * {@link #tryAcquire()} refuses calls for {@code openDuration}. It then lets a single probe through
+ * (half-open): success closes it, failure opens it again.
+ * <p>
+ * Every acquired permit must end in exactly one of {@link #onSuccess()}, {@link #onFailure()} or
+ * {@link #onIgnored()} (for calls that never reached the upstream, e.g. cancelled ones).
+ */
+public class CircuitBreaker {
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final boolean[] outcomes;
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final LongAdder rejected = new LongAdder();
+
+    private State state = State.CLOSED;
+    private int recorded;
+    private int next;
+    private int failures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    public CircuitBreaker(int window, int minCalls, double failureRateThreshold, Duration openDuration) {
+        this.outcomes = new boolean[window];
+        this.minCalls = Math.min(minCalls, window);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+        }
+        if (state == State.CLOSED) return true;
+        if (state == State.HALF_OPEN && !probeInFlight) {
+            probeInFlight = true;
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    // outcomes of calls that started before the breaker opened are ignored while it is open
+    public synchronized void onSuccess() {
+        if (state == State.OPEN) return;
+        if (state == State.HALF_OPEN) {
+            reset();
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.OPEN) return;
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (recorded >= minCalls && (double) failures / recorded >= failureRateThreshold) {
+            open();
+        }
+    }
+
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) probeInFlight = false;
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", state.name());
+        stats.put("recentCalls", recorded);
+        stats.put("recentFailures", failures);
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == outcomes.length) {
+            if (outcomes[next]) failures--;
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failure;
+        if (failure) failures++;
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        probeInFlight = false;
+    }
+
+    private void reset() {
+        state = State.CLOSED;
+        recorded = next = failures = 0;
+        probeInFlight = false;
+    }
+}
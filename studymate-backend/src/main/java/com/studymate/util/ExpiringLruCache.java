@@ -0,0 +1,155 @@
+package com.studymate.util;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Small bounded cache with LRU eviction and per-entry expiry. Entries are spread over a fixed number
+ * of segments, each a synchronized access-ordered {@link LinkedHashMap}, so concurrent readers rarely
+ * contend and the capacity bound holds per segment (LRU order is therefore approximate overall).
+ */
+public class ExpiringLruCache<K, V> {
+    private static final int SEGMENTS = 16;
+
+    private final Segment<K, V>[] segments;
+    private final long ttlMillis;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // Java has no generic array creation; every element is a Segment<K, V> created just below
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ExpiringLruCache(int maxSize, Duration ttl) {
+        this.ttlMillis = ttl.toMillis();
+        int perSegment = Math.max(1, (maxSize + SEGMENTS - 1) / SEGMENTS);
+        this.segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) segments[i] = new Segment<>(perSegment, evictions);
+    }
+
+    public V get(K key) {
+        var segment = segmentFor(key);
+        synchronized (segment) {
+            var entry = segment.get(key);
+            if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+                hits.increment();
+                return entry.value;
+            }
+            if (entry != null) {
+                segment.remove(key);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(K key, V value) {
+        put(key, value, Long.MAX_VALUE);
+    }
+
+    /** Stores the value until the configured TTL or {@code expiresAtMillis}, whichever comes first. */
+    public void put(K key, V value, long expiresAtMillis) {
+        long now = System.currentTimeMillis();
+        long expiresAt = Math.min(expiresAtMillis, now + ttlMillis);
+        if (expiresAt <= now) return;
+        var segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, new Entry<>(value, expiresAt));
+        }
+    }
+
+    /** Atomic per key: concurrent callers for a missing key all get the single value created. */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> factory) {
+        var segment = segmentFor(key);
+        long now = System.currentTimeMillis();
+        synchronized (segment) {
+            var entry = segment.get(key);
+            if (entry != null && entry.expiresAt > now) {
+                hits.increment();
+                return entry.value;
+            }
+            misses.increment();
+            V value = factory.apply(key);
+            segment.put(key, new Entry<>(value, now + ttlMillis));
+            return value;
+        }
+    }
+
+    /** Visits live entries one segment at a time; the callback must not touch this cache. */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        long now = System.currentTimeMillis();
+        for (var segment : segments) {
+            synchronized (segment) {
+                segment.forEach((k, e) -> {
+                    if (e.expiresAt > now) action.accept(k, e.value);
+                });
+            }
+        }
+    }
+
+    public void invalidate(K key) {
+        var segment = segmentFor(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    public void clear() {
+        for (var segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (var segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public Map<String, Object> stats() {
+        long h = hits.sum(), m = misses.sum();
+        return Map.of(
+                "size", size(),
+                "hits", h,
+                "misses", m,
+                "evictions", evictions.sum(),
+                "hitRate", h + m == 0 ? 0.0 : (double) h / (h + m));
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int h = key.hashCode();
+        return segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    private record Entry<V>(V value, long expiresAt) {}
+
+    private static final class Segment<K, V> extends LinkedHashMap<K, Entry<V>> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+        private final LongAdder evictions;
+
+        Segment(int capacity, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+            if (size() <= capacity) return false;
+            evictions.increment();
+            return true;
+        }
+    }
+}
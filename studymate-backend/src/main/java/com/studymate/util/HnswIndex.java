@@ -0,0 +1,629 @@
+package com.studymate.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Approximate nearest-neighbour index (HNSW) over unit-length float vectors, scored by inner product.
+ * Vectors live in one flat {@code float[]} and the bottom layer's adjacency in one flat {@code int[]};
+ * only the few nodes promoted to upper layers carry extra arrays. Each vector has an int label chosen
+ * by the caller.
+ * <p>
+ * An index is built once by a {@link Builder} and is then immutable, so searches need no locking;
+ * replacing content means building a new index and swapping the reference. {@link #save} and
+ * {@link #load} persist it as a single little-endian file.
+ */
+public final class HnswIndex {
+    private static final int MAGIC = 0x48534e57; // "HNSW"
+    private static final int VERSION = 1;
+    private static final int IO_BLOCK = 1 << 20;
+
+    /** The {@code labels} of the nearest vectors, best first, and their inner-product {@code scores}. */
+    public record Result(int[] labels, float[] scores) {}
+
+    private final int dim;
+    private final int size;
+    private final int m;
+    private final int maxLevel;
+    private final int entry;
+    private final float[] vectors;
+    private final int[] labels;
+    private final int[] base;           // size * 2m neighbour slots of layer 0
+    private final int[] baseCounts;
+    private final int[][][] upper;      // upper[node][level - 1] = neighbours, or null below level 1
+    private final String stamp;
+
+    private HnswIndex(int dim, int size, int m, int maxLevel, int entry, float[] vectors, int[] labels, int[] base,
+                      int[] baseCounts, int[][][] upper, String stamp) {
+        this.dim = dim;
+        this.size = size;
+        this.m = m;
+        this.maxLevel = maxLevel;
+        this.entry = entry;
+        this.vectors = vectors;
+        this.labels = labels;
+        this.base = base;
+        this.baseCounts = baseCounts;
+        this.upper = upper;
+        this.stamp = stamp;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int dimensions() {
+        return dim;
+    }
+
+    /** Caller-defined version tag saved with the index (e.g. which source data it was built from). */
+    public String stamp() {
+        return stamp;
+    }
+
+    /** The {@code k} nearest vectors to {@code query}; {@code ef} (at least k) trades speed for recall. */
+    public Result search(float[] query, int k, int ef) {
+        if (query.length != dim) throw new IllegalArgumentException("Expected " + dim + " dimensions");
+        if (size == 0 || k <= 0) return new Result(new int[0], new float[0]);
+        int current = entry;
+        float currentScore = dot(query, current);
+        for (int level = maxLevel; level > 0; level--) {
+            boolean moved = true;
+            while (moved) {
+                moved = false;
+                for (int n : upper[current][level - 1]) {
+                    float s = dot(query, n);
+                    if (s > currentScore) {
+                        currentScore = s;
+                        current = n;
+                        moved = true;
+                    }
+                }
+            }
+        }
+        var found = searchBase(query, current, currentScore, Math.max(ef, k));
+        int count = Math.min(k, found.size);
+        int[] out = new int[count];
+        float[] scores = new float[count];
+        found.sortDescending();
+        for (int i = 0; i < count; i++) {
+            out[i] = labels[found.nodes[i]];
+            scores[i] = found.scores[i];
+        }
+        return new Result(out, scores);
+    }
+
+    // Best-first search of layer 0 keeping the ef best nodes seen
+    private Heap searchBase(float[] query, int start, float startScore, int ef) {
+        var seen = new VisitedSet(ef * 32);
+        var candidates = new Heap(ef * 2, true);
+        var results = new Heap(ef + 1, false);
+        seen.add(start);
+        candidates.push(start, startScore);
+        results.push(start, startScore);
+        while (candidates.size > 0) {
+            float best = candidates.topScore();
+            if (results.size >= ef && best < results.topScore()) break;
+            int node = candidates.pop();
+            int offset = node * 2 * m;
+            for (int i = 0, n = baseCounts[node]; i < n; i++) {
+                int next = base[offset + i];
+                if (!seen.add(next)) continue;
+                float s = dot(query, next);
+                if (results.size < ef || s > results.topScore()) {
+                    candidates.push(next, s);
+                    results.push(next, s);
+                    if (results.size > ef) results.pop();
+                }
+            }
+        }
+        return results;
+    }
+
+    private float dot(float[] query, int node) {
+        return dot(query, 0, vectors, node * dim, dim);
+    }
+
+    // Four independent accumulators let the JIT pipeline (and often vectorize) the loop
+    static float dot(float[] a, int oa, float[] b, int ob, int dim) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < dim; i += 4) {
+            s0 += a[oa + i] * b[ob + i];
+            s1 += a[oa + i + 1] * b[ob + i + 1];
+            s2 += a[oa + i + 2] * b[ob + i + 2];
+            s3 += a[oa + i + 3] * b[ob + i + 3];
+        }
+        for (; i < dim; i++) s0 += a[oa + i] * b[ob + i];
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    public void save(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (var ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            var out = new BlockWriter(ch);
+            byte[] stampBytes = stamp == null ? new byte[0] : stamp.getBytes(StandardCharsets.UTF_8);
+            out.ints(new int[]{MAGIC, VERSION, dim, size, m, maxLevel, entry, stampBytes.length}, 8);
+            out.bytes(stampBytes);
+            out.ints(labels, size);
+            out.floats(vectors, size * dim);
+            out.ints(baseCounts, size);
+            out.ints(base, size * 2 * m);
+            for (int node = 0; node < size; node++) {
+                int levels = upper[node] == null ? 0 : upper[node].length;
+                out.ints(new int[]{levels}, 1);
+                for (int l = 0; l < levels; l++) {
+                    out.ints(new int[]{upper[node][l].length}, 1);
+                    out.ints(upper[node][l], upper[node][l].length);
+                }
+            }
+            out.flush();
+            ch.force(false);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static HnswIndex load(Path file) throws IOException {
+        try (var ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            var in = new BlockReader(ch);
+            int[] header = in.ints(8);
+            if (header[0] != MAGIC || header[1] != VERSION) throw new IOException("Not an HNSW index file: " + file);
+            int dim = header[2], size = header[3], m = header[4], maxLevel = header[5], entry = header[6];
+            String stamp = new String(in.bytes(header[7]), StandardCharsets.UTF_8);
+            int[] labels = in.ints(size);
+            float[] vectors = in.floats(size * dim);
+            int[] baseCounts = in.ints(size);
+            int[] base = in.ints(size * 2 * m);
+            int[][][] upper = new int[size][][];
+            for (int node = 0; node < size; node++) {
+                int levels = in.ints(1)[0];
+                if (levels == 0) continue;
+                upper[node] = new int[levels][];
+                for (int l = 0; l < levels; l++) upper[node][l] = in.ints(in.ints(1)[0]);
+            }
+            return new HnswIndex(dim, size, m, maxLevel, entry, vectors, labels, base, baseCounts, upper,
+                    stamp.isEmpty() ? null : stamp);
+        }
+    }
+
+    /**
+     * Incremental construction. {@code m} is the neighbour count of upper layers (layer 0 keeps twice
+     * as many); {@code efConstruction} the candidate list size while linking a new vector. Level
+     * assignment uses a fixed seed, so the same input always yields the same graph.
+     */
+    public static final class Builder {
+        private final int dim;
+        private final int m;
+        private final int efConstruction;
+        private final double levelFactor;
+        private final SplittableRandom random = new SplittableRandom(42);
+        private float[] vectors;
+        private int[] labels;
+        private int[] base;
+        private int[] baseCounts;
+        private int[][][] upper;
+        private int[][] upperCounts;
+        private int size;
+        private int entry = -1;
+        private int maxLevel;
+        private Visited seen = new Visited(0);
+
+        public Builder(int dim, int m, int efConstruction, int expectedSize) {
+            this.dim = dim;
+            this.m = m;
+            this.efConstruction = efConstruction;
+            this.levelFactor = 1 / Math.log(m);
+            int capacity = Math.max(16, expectedSize);
+            vectors = new float[capacity * dim];
+            labels = new int[capacity];
+            base = new int[capacity * 2 * m];
+            baseCounts = new int[capacity];
+            upper = new int[capacity][][];
+            upperCounts = new int[capacity][];
+        }
+
+        public Builder add(int label, float[] vector) {
+            if (vector.length != dim) throw new IllegalArgumentException("Expected " + dim + " dimensions");
+            if (size == labels.length) grow();
+            int node = size++;
+            System.arraycopy(vector, 0, vectors, node * dim, dim);
+            labels[node] = label;
+            int level = (int) (-Math.log(1 - random.nextDouble()) * levelFactor);
+            if (level > 0) {
+                upper[node] = new int[level][m];
+                upperCounts[node] = new int[level];
+            }
+            if (entry < 0) {
+                entry = node;
+                maxLevel = level;
+                return this;
+            }
+            int current = entry;
+            float currentScore = score(node, current);
+            for (int l = maxLevel; l > level; l--) {
+                boolean moved = true;
+                while (moved) {
+                    moved = false;
+                    int[] neighbours = upper[current][l - 1];
+                    for (int i = 0, n = upperCounts[current][l - 1]; i < n; i++) {
+                        float s = score(node, neighbours[i]);
+                        if (s > currentScore) {
+                            currentScore = s;
+                            current = neighbours[i];
+                            moved = true;
+                        }
+                    }
+                }
+            }
+            for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+                var found = searchLayer(node, current, currentScore, l);
+                found.sortDescending();
+                int limit = l == 0 ? 2 * m : m;
+                int[] chosen = selectNeighbours(found, limit);
+                for (int neighbour : chosen) {
+                    link(node, neighbour, l);
+                    link(neighbour, node, l);
+                }
+                current = found.nodes[0];
+                currentScore = found.scores[0];
+            }
+            if (level > maxLevel) {
+                maxLevel = level;
+                entry = node;
+            }
+            return this;
+        }
+
+        public HnswIndex build(String stamp) {
+            int[][][] frozen = new int[size][][];
+            for (int node = 0; node < size; node++) {
+                if (upper[node] == null) continue;
+                frozen[node] = new int[upper[node].length][];
+                for (int l = 0; l < upper[node].length; l++) {
+                    frozen[node][l] = Arrays.copyOf(upper[node][l], upperCounts[node][l]);
+                }
+            }
+            return new HnswIndex(dim, size, m, maxLevel, Math.max(entry, 0), Arrays.copyOf(vectors, size * dim),
+                    Arrays.copyOf(labels, size), Arrays.copyOf(base, size * 2 * m), Arrays.copyOf(baseCounts, size),
+                    frozen, stamp);
+        }
+
+        private Heap searchLayer(int node, int start, float startScore, int level) {
+            if (seen.marks.length < size) seen = new Visited(labels.length);
+            seen.reset();
+            var candidates = new Heap(efConstruction * 2, true);
+            var results = new Heap(efConstruction + 1, false);
+            seen.add(start);
+            candidates.push(start, startScore);
+            results.push(start, startScore);
+            while (candidates.size > 0) {
+                if (results.size >= efConstruction && candidates.topScore() < results.topScore()) break;
+                int c = candidates.pop();
+                int[] neighbours = level == 0 ? base : upper[c][level - 1];
+                int offset = level == 0 ? c * 2 * m : 0;
+                int count = level == 0 ? baseCounts[c] : upperCounts[c][level - 1];
+                for (int i = 0; i < count; i++) {
+                    int next = neighbours[offset + i];
+                    if (!seen.add(next)) continue;
+                    float s = score(node, next);
+                    if (results.size < efConstruction || s > results.topScore()) {
+                        candidates.push(next, s);
+                        results.push(next, s);
+                        if (results.size > efConstruction) results.pop();
+                    }
+                }
+            }
+            return results;
+        }
+
+        // Diversity heuristic: skip a candidate that is closer to an already chosen neighbour than to the
+        // new node, then top up with the skipped ones so well-connected regions still get full lists
+        private int[] selectNeighbours(Heap sorted, int limit) {
+            int[] chosen = new int[Math.min(limit, sorted.size)];
+            int count = 0;
+            boolean[] skipped = new boolean[sorted.size];
+            for (int i = 0; i < sorted.size && count < chosen.length; i++) {
+                int candidate = sorted.nodes[i];
+                boolean keep = true;
+                for (int j = 0; j < count && keep; j++) {
+                    if (score(candidate, chosen[j]) > sorted.scores[i]) keep = false;
+                }
+                if (keep) chosen[count++] = candidate;
+                else skipped[i] = true;
+            }
+            for (int i = 0; i < sorted.size && count < chosen.length; i++) {
+                if (skipped[i]) chosen[count++] = sorted.nodes[i];
+            }
+            return chosen;
+        }
+
+        private void link(int from, int to, int level) {
+            int limit = level == 0 ? 2 * m : m;
+            int[] neighbours = level == 0 ? base : upper[from][level - 1];
+            int offset = level == 0 ? from * 2 * m : 0;
+            int count = level == 0 ? baseCounts[from] : upperCounts[from][level - 1];
+            if (count < limit) {
+                neighbours[offset + count] = to;
+                setCount(from, level, count + 1);
+                return;
+            }
+            // full: replace the weakest link if the new one is stronger
+            int weakest = -1;
+            float weakestScore = score(from, to);
+            for (int i = 0; i < count; i++) {
+                float s = score(from, neighbours[offset + i]);
+                if (s < weakestScore) {
+                    weakestScore = s;
+                    weakest = i;
+                }
+            }
+            if (weakest >= 0) neighbours[offset + weakest] = to;
+        }
+
+        private void setCount(int node, int level, int count) {
+            if (level == 0) baseCounts[node] = count;
+            else upperCounts[node][level - 1] = count;
+        }
+
+        private float score(int a, int b) {
+            return dot(vectors, a * dim, vectors, b * dim, dim);
+        }
+
+        private void grow() {
+            int capacity = labels.length * 2;
+            vectors = Arrays.copyOf(vectors, capacity * dim);
+            labels = Arrays.copyOf(labels, capacity);
+            base = Arrays.copyOf(base, capacity * 2 * m);
+            baseCounts = Arrays.copyOf(baseCounts, capacity);
+            upper = Arrays.copyOf(upper, capacity);
+            upperCounts = Arrays.copyOf(upperCounts, capacity);
+        }
+    }
+
+    // Per-query visited set: a search touches a few thousand nodes at most, so an open-addressing table
+    // is far cheaper than a per-thread array sized to the whole index
+    private static final class VisitedSet {
+        private int[] table;
+        private int count;
+
+        VisitedSet(int expected) {
+            table = new int[Integer.highestOneBit(Math.max(expected, 16) * 2 - 1) * 2];
+            Arrays.fill(table, -1);
+        }
+
+        boolean add(int node) {
+            int mask = table.length - 1;
+            int i = (node * 0x9E3779B9) >>> 7 & mask;
+            while (table[i] != -1) {
+                if (table[i] == node) return false;
+                i = (i + 1) & mask;
+            }
+            table[i] = node;
+            if (++count * 2 > table.length) grow();
+            return true;
+        }
+
+        private void grow() {
+            int[] old = table;
+            table = new int[old.length * 2];
+            Arrays.fill(table, -1);
+            count = 0;
+            for (int node : old) {
+                if (node != -1) add(node);
+            }
+        }
+    }
+
+    // Build-time visited set over node numbers that clears in O(1) by bumping a generation number
+    private static final class Visited {
+        final int[] marks;
+        int generation;
+
+        Visited(int size) {
+            marks = new int[size];
+        }
+
+        void reset() {
+            if (++generation == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                generation = 1;
+            }
+        }
+
+        boolean add(int node) {
+            if (marks[node] == generation) return false;
+            marks[node] = generation;
+            return true;
+        }
+    }
+
+    // Binary heap of (node, score) on parallel primitive arrays; a max-heap or a min-heap on score
+    private static final class Heap {
+        int[] nodes;
+        float[] scores;
+        int size;
+        final boolean max;
+
+        Heap(int capacity, boolean max) {
+            nodes = new int[capacity];
+            scores = new float[capacity];
+            this.max = max;
+        }
+
+        float topScore() {
+            return scores[0];
+        }
+
+        void push(int node, float score) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(score, scores[parent])) break;
+                nodes[i] = nodes[parent];
+                scores[i] = scores[parent];
+                i = parent;
+            }
+            nodes[i] = node;
+            scores[i] = score;
+        }
+
+        int pop() {
+            int top = nodes[0];
+            int lastNode = nodes[--size];
+            float lastScore = scores[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && before(scores[child + 1], scores[child])) child++;
+                if (!before(scores[child], lastScore)) break;
+                nodes[i] = nodes[child];
+                scores[i] = scores[child];
+                i = child;
+            }
+            nodes[i] = lastNode;
+            scores[i] = lastScore;
+            return top;
+        }
+
+        private boolean before(float a, float b) {
+            return max ? a > b : a < b;
+        }
+
+        // Empties the heap into nodes/scores ordered best first (size is kept)
+        void sortDescending() {
+            int n = size;
+            int[] sortedNodes = new int[n];
+            float[] sortedScores = new float[n];
+            for (int i = n - 1; i >= 0; i--) {
+                if (max) {
+                    sortedScores[n - 1 - i] = scores[0];
+                    sortedNodes[n - 1 - i] = pop();
+                } else {
+                    sortedScores[i] = scores[0];
+                    sortedNodes[i] = pop();
+                }
+            }
+            nodes = sortedNodes;
+            scores = sortedScores;
+            size = n;
+        }
+    }
+
+    private static final class BlockWriter {
+        private final FileChannel ch;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(IO_BLOCK).order(ByteOrder.LITTLE_ENDIAN);
+
+        BlockWriter(FileChannel ch) {
+            this.ch = ch;
+        }
+
+        void ints(int[] a, int n) throws IOException {
+            for (int i = 0; i < n; ) {
+                if (buf.remaining() < 4) drain();
+                int chunk = Math.min(n - i, buf.remaining() / 4);
+                buf.asIntBuffer().put(a, i, chunk);
+                buf.position(buf.position() + chunk * 4);
+                i += chunk;
+            }
+        }
+
+        void floats(float[] a, int n) throws IOException {
+            for (int i = 0; i < n; ) {
+                if (buf.remaining() < 4) drain();
+                int chunk = Math.min(n - i, buf.remaining() / 4);
+                buf.asFloatBuffer().put(a, i, chunk);
+                buf.position(buf.position() + chunk * 4);
+                i += chunk;
+            }
+        }
+
+        void bytes(byte[] a) throws IOException {
+            for (int i = 0; i < a.length; ) {
+                if (!buf.hasRemaining()) drain();
+                int chunk = Math.min(a.length - i, buf.remaining());
+                buf.put(a, i, chunk);
+                i += chunk;
+            }
+        }
+
+        void flush() throws IOException {
+            drain();
+        }
+
+        private void drain() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) ch.write(buf);
+            buf.clear();
+        }
+    }
+
+    private static final class BlockReader {
+        private final FileChannel ch;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(IO_BLOCK).order(ByteOrder.LITTLE_ENDIAN);
+
+        BlockReader(FileChannel ch) {
+            this.ch = ch;
+            buf.limit(0);
+        }
+
+        int[] ints(int n) throws IOException {
+            int[] a = new int[n];
+            for (int i = 0; i < n; ) {
+                fill(4);
+                int chunk = Math.min(n - i, buf.remaining() / 4);
+                buf.asIntBuffer().get(a, i, chunk);
+                buf.position(buf.position() + chunk * 4);
+                i += chunk;
+            }
+            return a;
+        }
+
+        float[] floats(int n) throws IOException {
+            float[] a = new float[n];
+            for (int i = 0; i < n; ) {
+                fill(4);
+                int chunk = Math.min(n - i, buf.remaining() / 4);
+                buf.asFloatBuffer().get(a, i, chunk);
+                buf.position(buf.position() + chunk * 4);
+                i += chunk;
+            }
+            return a;
+        }
+
+        byte[] bytes(int n) throws IOException {
+            byte[] a = new byte[n];
+            for (int i = 0; i < n; ) {
+                fill(1);
+                int chunk = Math.min(n - i, buf.remaining());
+                buf.get(a, i, chunk);
+                i += chunk;
+            }
+            return a;
+        }
+
+        // Ensures at least min bytes are buffered
+        private void fill(int min) throws IOException {
+            if (buf.remaining() >= min) return;
+            buf.compact();
+            while (buf.position() < min) {
+                if (ch.read(buf) < 0) throw new IOException("Truncated HNSW index file");
+            }
+            buf.flip();
+        }
+    }
+}
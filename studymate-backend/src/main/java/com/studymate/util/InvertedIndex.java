@@ -0,0 +1,336 @@
+package com.studymate.util;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * In-memory inverted index with BM25 ranking. Each document has a weighted title, tags and body;
+ * a term's frequency counts 3 per title occurrence, 2 per tag and 1 per body occurrence. Postings are
+ * parallel int arrays sorted by internal doc number, so a query is a linear merge into a score array.
+ * <p>
+ * Updates replace a document under its key: the old doc number is tombstoned and the index compacts
+ * itself once tombstones outnumber live documents. The last query token also matches as a prefix
+ * (search-as-you-type) at half weight. Readers share a read lock; writers are exclusive.
+ */
+public class InvertedIndex {
+    private static final int TITLE_WEIGHT = 3;
+    private static final int TAGS_WEIGHT = 2;
+    private static final int BODY_WEIGHT = 1;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double PREFIX_WEIGHT = 0.5;
+    private static final int MAX_PREFIX_EXPANSIONS = 32;
+    private static final int MIN_TOMBSTONES_TO_COMPACT = 1024;
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it", "of", "on", "or",
+            "that", "the", "this", "to", "with");
+
+    public record Document(String type, String id, UUID courseId, String title, String tags, String body) {
+        public String key() {
+            return type + ':' + id;
+        }
+    }
+
+    public record Hit(Document document, double score) {}
+
+    /** One page of hits, the number of matching documents, and the index terms that matched (for highlighting). */
+    public record Result(List<Hit> hits, long total, Set<String> terms) {}
+
+    /** A token of some text: the index term and its [start, end) offsets in the original string. */
+    public record Token(String term, int start, int end) {}
+
+    private static final class Postings {
+        int[] docs = new int[4];
+        int[] freqs = new int[4];
+        int size;
+
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final List<Document> docs = new ArrayList<>();
+    private int[] lengths = new int[1024];
+    private final BitSet deleted = new BitSet();
+    private final Map<String, Integer> byKey = new HashMap<>();
+    private int tombstones;
+    private long totalLength;
+    private int compactions;
+
+    public void upsert(Document document) {
+        lock.writeLock().lock();
+        try {
+            Integer previous = byKey.get(document.key());
+            if (previous != null) delete(previous);
+            add(document);
+            maybeCompact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(String key) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = byKey.get(key);
+            if (doc == null) return false;
+            delete(doc);
+            maybeCompact();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Removes every live document the filter accepts; a linear scan, meant for bulk replacement. */
+    public int removeIf(Predicate<Document> filter) {
+        lock.writeLock().lock();
+        try {
+            int removed = 0;
+            for (int doc = 0; doc < docs.size(); doc++) {
+                if (!deleted.get(doc) && filter.test(docs.get(doc))) {
+                    delete(doc);
+                    removed++;
+                }
+            }
+            maybeCompact();
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Result search(String query, String type, int offset, int limit) {
+        return search(query, type, null, offset, limit);
+    }
+
+    /**
+     * Ranked hits {@code offset .. offset + limit} for the query, optionally restricted to one document
+     * type and/or one course. Ties keep the most recently indexed document first.
+     */
+    public Result search(String query, String type, UUID courseId, int offset, int limit) {
+        List<Token> tokens = tokenize(query);
+        if (tokens.isEmpty()) return new Result(List.of(), 0, Set.of());
+        lock.readLock().lock();
+        try {
+            Map<String, Double> weights = new LinkedHashMap<>();
+            for (var t : tokens) {
+                if (terms.containsKey(t.term())) weights.put(t.term(), 1.0);
+            }
+            var last = tokens.get(tokens.size() - 1);
+            boolean typing = last.end() == query.length() && last.term().length() >= 2;
+            if (typing) {
+                int expanded = 0;
+                for (var term : terms.subMap(last.term(), false, last.term() + Character.MAX_VALUE, false).keySet()) {
+                    if (expanded++ == MAX_PREFIX_EXPANSIONS) break;
+                    weights.putIfAbsent(term, PREFIX_WEIGHT);
+                }
+            }
+            int live = docs.size() - tombstones;
+            if (weights.isEmpty() || live == 0) return new Result(List.of(), 0, weights.keySet());
+
+            double lengthScale = K1 * B * live / totalLength;
+            double lengthBase = K1 * (1 - B);
+            float[] scores = new float[docs.size()];
+            int[] touched = new int[Math.min(docs.size(), 1024)];
+            int matched = 0;
+            for (var w : weights.entrySet()) {
+                Postings p = terms.get(w.getKey());
+                double idf = Math.log(1 + (live - p.size + 0.5) / (p.size + 0.5));
+                double weight = w.getValue() * idf * (K1 + 1);
+                for (int i = 0; i < p.size; i++) {
+                    int doc = p.docs[i];
+                    if (deleted.get(doc) || !accepts(docs.get(doc), type, courseId)) continue;
+                    double tf = p.freqs[i];
+                    float s = (float) (weight * tf / (tf + lengthBase + lengthScale * lengths[doc]));
+                    if (scores[doc] == 0) {
+                        if (matched == touched.length) touched = Arrays.copyOf(touched, matched * 2);
+                        touched[matched++] = doc;
+                    }
+                    scores[doc] += s;
+                }
+            }
+
+            int k = offset + limit;
+            if (offset >= matched || limit <= 0) return new Result(List.of(), matched, weights.keySet());
+            // min-heap of the best k, worst on top: most candidates lose against the root without moving anything
+            int[] heap = new int[Math.min(k, matched)];
+            int heapSize = 0;
+            for (int i = 0; i < matched; i++) {
+                int doc = touched[i];
+                if (heapSize < heap.length) {
+                    heap[heapSize] = doc;
+                    siftUp(heap, heapSize++, scores);
+                } else if (better(doc, heap[0], scores)) {
+                    heap[0] = doc;
+                    siftDown(heap, heapSize, scores);
+                }
+            }
+            List<Hit> hits = new ArrayList<>(heapSize);
+            while (heapSize > 0) {
+                int doc = heap[0];
+                hits.add(new Hit(docs.get(doc), scores[doc]));
+                heap[0] = heap[--heapSize];
+                siftDown(heap, heapSize, scores);
+            }
+            Collections.reverse(hits);
+            return new Result(hits.subList(Math.min(offset, hits.size()), hits.size()), matched, weights.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean accepts(Document d, String type, UUID courseId) {
+        return (type == null || type.equals(d.type())) && (courseId == null || courseId.equals(d.courseId()));
+    }
+
+    // Higher score wins; on equal scores the more recently indexed document does
+    private static boolean better(int a, int b, float[] scores) {
+        int c = Float.compare(scores[a], scores[b]);
+        return c != 0 ? c > 0 : a > b;
+    }
+
+    private static void siftUp(int[] heap, int i, float[] scores) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!better(heap[parent], heap[i], scores)) return;
+            swap(heap, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int size, float[] scores) {
+        int i = 0;
+        while (true) {
+            int left = 2 * i + 1, right = left + 1, worst = i;
+            if (left < size && better(heap[worst], heap[left], scores)) worst = left;
+            if (right < size && better(heap[worst], heap[right], scores)) worst = right;
+            if (worst == i) return;
+            swap(heap, i, worst);
+            i = worst;
+        }
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        int t = heap[i];
+        heap[i] = heap[j];
+        heap[j] = t;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size() - tombstones;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("documents", docs.size() - tombstones);
+            stats.put("tombstones", tombstones);
+            stats.put("terms", terms.size());
+            stats.put("compactions", compactions);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Lower-cased letter/digit runs with stopwords dropped and a light plural stem, plus their offsets. */
+    public static List<Token> tokenize(String text) {
+        if (text == null || text.isEmpty()) return List.of();
+        List<Token> tokens = new ArrayList<>();
+        int i = 0, n = text.length();
+        while (i < n) {
+            int cp = text.codePointAt(i);
+            if (!Character.isLetterOrDigit(cp)) {
+                i += Character.charCount(cp);
+                continue;
+            }
+            int start = i;
+            while (i < n && Character.isLetterOrDigit(cp = text.codePointAt(i))) i += Character.charCount(cp);
+            String word = text.substring(start, i).toLowerCase(Locale.ROOT);
+            if (!STOPWORDS.contains(word)) tokens.add(new Token(stem(word), start, i));
+        }
+        return tokens;
+    }
+
+    /** Offsets of the tokens in {@code text} whose term is one of {@code terms}. */
+    public static List<Token> matches(String text, Set<String> terms) {
+        List<Token> found = new ArrayList<>();
+        for (var t : tokenize(text)) {
+            if (terms.contains(t.term())) found.add(t);
+        }
+        return found;
+    }
+
+    private static String stem(String word) {
+        int n = word.length();
+        if (n > 4 && word.endsWith("ies")) return word.substring(0, n - 3) + 'y';
+        if (n > 3 && word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us") && !word.endsWith("is")) {
+            return word.substring(0, n - 1);
+        }
+        return word;
+    }
+
+    private void add(Document document) {
+        int doc = docs.size();
+        docs.add(document);
+        byKey.put(document.key(), doc);
+        Map<String, Integer> freqs = new HashMap<>();
+        int length = count(document.title(), TITLE_WEIGHT, freqs)
+                + count(document.tags(), TAGS_WEIGHT, freqs)
+                + count(document.body(), BODY_WEIGHT, freqs);
+        if (doc == lengths.length) lengths = Arrays.copyOf(lengths, doc * 2);
+        lengths[doc] = length;
+        totalLength += length;
+        freqs.forEach((term, f) -> terms.computeIfAbsent(term, t -> new Postings()).add(doc, f));
+    }
+
+    private static int count(String text, int weight, Map<String, Integer> freqs) {
+        int length = 0;
+        for (var t : tokenize(text)) {
+            freqs.merge(t.term(), weight, Integer::sum);
+            length += weight;
+        }
+        return length;
+    }
+
+    private void delete(int doc) {
+        deleted.set(doc);
+        tombstones++;
+        totalLength -= lengths[doc];
+        byKey.remove(docs.get(doc).key());
+    }
+
+    // Re-adds the live documents from scratch once tombstones dominate, dropping dead postings
+    private void maybeCompact() {
+        if (tombstones < MIN_TOMBSTONES_TO_COMPACT || tombstones < docs.size() - tombstones) return;
+        List<Document> live = new ArrayList<>(docs.size() - tombstones);
+        for (int doc = 0; doc < docs.size(); doc++) {
+            if (!deleted.get(doc)) live.add(docs.get(doc));
+        }
+        terms.clear();
+        docs.clear();
+        deleted.clear();
+        tombstones = 0;
+        byKey.clear();
+        totalLength = 0;
+        live.forEach(this::add);
+        compactions++;
+    }
+}
@@ -0,0 +1,35 @@
+package com.studymate.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor over a (created_at, id) seek key. Clients only ever echo the
+ * string back; the encoding is url-safe base64 of "epochMicros|id".
+ */
+public record PageCursor(OffsetDateTime createdAt, String id) {
+
+    public static String encode(OffsetDateTime createdAt, Object id) {
+        Instant ts = createdAt.toInstant();
+        long micros = ChronoUnit.MICROS.between(Instant.EPOCH, ts);
+        String raw = micros + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            if (sep <= 0 || sep == raw.length() - 1) throw new IllegalArgumentException("Malformed cursor");
+            long micros = Long.parseLong(raw.substring(0, sep));
+            Instant ts = Instant.EPOCH.plus(micros, ChronoUnit.MICROS);
+            return new PageCursor(OffsetDateTime.ofInstant(ts, ZoneOffset.UTC), raw.substring(sep + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -11,8 +11,6 @@ public class SampleData {
     public static final Map<String, List<LessonDto>> lessonsByCourse = new ConcurrentHashMap<>();
     public static final Map<String, AssignmentDto> assignments = new ConcurrentHashMap<>();
     public static final Map<String, StudyPlanDto> studyPlans = new ConcurrentHashMap<>();
-    public static final Map<String, DiscussionDto> discussions = new ConcurrentHashMap<>();
-    public static final Map<String, TutorSessionDto> tutorSessions = new ConcurrentHashMap<>();
 
     static {
         seed();
@@ -79,29 +77,5 @@ public class SampleData {
         sp.status = "ACTIVE";
         sp.createdAt = OffsetDateTime.now().toString();
         studyPlans.put(sp.id, sp);
-
-        // Discussion sample
-        DiscussionDto d = new DiscussionDto();
-        d.id = UUID.randomUUID().toString();
-        d.courseId = null;
-        d.authorId = "demo-user";
-        d.authorName = "student";
-        d.title = "Welcome to StudyMate";
-        d.content = "Let's learn together!";
-        d.replies = new ArrayList<>();
-        d.likes = 3;
-        d.isLiked = false;
-        d.createdAt = OffsetDateTime.now().toString();
-        discussions.put(d.id, d);
-
-        // AI Tutor sample session
-        TutorSessionDto ts = new TutorSessionDto();
-        ts.id = UUID.randomUUID().toString();
-        ts.userId = "demo-user";
-        ts.subject = "Mathematics";
-        ts.messages = new ArrayList<>();
-        ts.createdAt = OffsetDateTime.now().toString();
-        ts.updatedAt = OffsetDateTime.now().toString();
-        tutorSessions.put(ts.id, ts);
     }
 }
@@ -0,0 +1,64 @@
+package com.studymate.util;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for reactive calls: while a call for a key is in flight, further callers with the same
+ * key subscribe to that call instead of starting their own. The entry is dropped as the call
+ * completes, so results (and errors) are never kept beyond the flight itself.
+ * <p>
+ * The shared call is not cancelled when one caller goes away; it runs to completion for the others.
+ * Flux flights replay every element to late joiners.
+ */
+public class SingleFlight<K, V> {
+    private final Map<K, Object> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder leaders = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public Mono<V> execute(K key, Supplier<Mono<V>> call) {
+        return Mono.defer(() -> {
+            boolean[] leader = new boolean[1];
+            Object shared = inFlight.computeIfAbsent(key, k -> {
+                leader[0] = true;
+                var self = new AtomicReference<Mono<V>>();
+                // dropped before the result reaches subscribers, so a caller arriving later starts a new flight
+                self.set(Mono.defer(call).doOnEach(s -> inFlight.remove(k, self.get())).cache());
+                return self.get();
+            });
+            (leader[0] ? leaders : coalesced).increment();
+            return (Mono<V>) shared;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    public Flux<V> executeMany(K key, Supplier<Flux<V>> call) {
+        return Flux.defer(() -> {
+            boolean[] leader = new boolean[1];
+            Object shared = inFlight.computeIfAbsent(key, k -> {
+                leader[0] = true;
+                var self = new AtomicReference<Flux<V>>();
+                self.set(Flux.defer(call).doOnTerminate(() -> inFlight.remove(k, self.get())).cache());
+                return self.get();
+            });
+            (leader[0] ? leaders : coalesced).increment();
+            return (Flux<V>) shared;
+        });
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("inFlight", inFlight.size());
+        stats.put("upstreamCalls", leaders.sum());
+        stats.put("coalesced", coalesced.sum());
+        return stats;
+    }
+}
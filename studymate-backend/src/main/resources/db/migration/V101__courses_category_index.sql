@@ -0,0 +1,3 @@
+-- Case-insensitive category filter + default listing order for /api/courses
+CREATE INDEX IF NOT EXISTS idx_courses_category_ci
+    ON courses (lower(category), created_at DESC, id DESC);
@@ -0,0 +1,3 @@
+-- Seek key for cursor paging on /api/courses
+CREATE INDEX IF NOT EXISTS idx_courses_created_id
+    ON courses (created_at DESC, id DESC);
@@ -0,0 +1,3 @@
+-- Version stamp for ETag / Last-Modified on PDF downloads
+ALTER TABLE course_pdfs ADD COLUMN IF NOT EXISTS updated_at TIMESTAMPTZ;
+UPDATE course_pdfs SET updated_at = now() WHERE updated_at IS NULL;
@@ -0,0 +1,7 @@
+-- PDF payloads move to the blob store; the table keeps metadata and the content key only.
+-- Legacy rows keep their BYTEA until the migrator (app.storage.migrate-legacy-pdfs) moves them out.
+ALTER TABLE course_pdfs ADD COLUMN IF NOT EXISTS blob_key VARCHAR(64);
+ALTER TABLE course_pdfs ADD COLUMN IF NOT EXISTS size_bytes BIGINT;
+ALTER TABLE course_pdfs ALTER COLUMN data DROP NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_course_pdfs_blob_key ON course_pdfs (blob_key);
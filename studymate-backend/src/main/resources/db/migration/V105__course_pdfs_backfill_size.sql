@@ -0,0 +1,2 @@
+-- Every row carries its size so metadata reads never need to look at the payload column
+UPDATE course_pdfs SET size_bytes = octet_length(data) WHERE size_bytes IS NULL AND data IS NOT NULL;
@@ -0,0 +1,27 @@
+-- AI tutor sessions and messages, previously held in memory (SampleData.tutorSessions).
+-- Messages are append-only; seq gives their order within a session.
+CREATE TABLE IF NOT EXISTS tutor_sessions (
+    id UUID PRIMARY KEY,
+    user_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    subject VARCHAR(255),
+    message_count INT NOT NULL DEFAULT 0,
+    -- rolling context summary (TutorContextBuilder): covers messages with seq <= summarized_through
+    summary TEXT,
+    summarized_through BIGINT NOT NULL DEFAULT 0,
+    created_at TIMESTAMPTZ NOT NULL,
+    updated_at TIMESTAMPTZ NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_tutor_sessions_user_updated
+    ON tutor_sessions (user_id, updated_at DESC, id DESC);
+
+CREATE TABLE IF NOT EXISTS tutor_messages (
+    id UUID PRIMARY KEY,
+    session_id UUID NOT NULL REFERENCES tutor_sessions(id) ON DELETE CASCADE,
+    seq BIGSERIAL NOT NULL,
+    role VARCHAR(16) NOT NULL,
+    content TEXT NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_tutor_messages_session_seq ON tutor_messages (session_id, seq);
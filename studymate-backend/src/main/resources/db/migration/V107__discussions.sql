@@ -0,0 +1,35 @@
+-- Community discussions, replies and per-user likes, previously held in memory (SampleData.discussions).
+CREATE TABLE IF NOT EXISTS discussions (
+    id UUID PRIMARY KEY,
+    course_id UUID REFERENCES courses(id) ON DELETE CASCADE,
+    author_id UUID REFERENCES users(id) ON DELETE SET NULL,
+    author_name VARCHAR(255),
+    title VARCHAR(255) NOT NULL,
+    content TEXT NOT NULL,
+    -- like_count is maintained by the periodic like-counter flush; discussion_likes is the source of truth
+    like_count BIGINT NOT NULL DEFAULT 0,
+    reply_count INT NOT NULL DEFAULT 0,
+    created_at TIMESTAMPTZ NOT NULL,
+    updated_at TIMESTAMPTZ NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_discussions_seek ON discussions (created_at DESC, id DESC);
+
+CREATE TABLE IF NOT EXISTS discussion_replies (
+    id UUID PRIMARY KEY,
+    discussion_id UUID NOT NULL REFERENCES discussions(id) ON DELETE CASCADE,
+    author_id UUID REFERENCES users(id) ON DELETE SET NULL,
+    author_name VARCHAR(255),
+    content TEXT NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_discussion_replies_thread ON discussion_replies (discussion_id, created_at, id);
+
+-- one row per (discussion, user): liking twice is a no-op
+CREATE TABLE IF NOT EXISTS discussion_likes (
+    discussion_id UUID NOT NULL REFERENCES discussions(id) ON DELETE CASCADE,
+    user_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    created_at TIMESTAMPTZ NOT NULL,
+    PRIMARY KEY (discussion_id, user_id)
+);
@@ -0,0 +1,3 @@
+-- Per-course listing order for /api/discussions?courseId=; also serves the course seek queries
+CREATE INDEX IF NOT EXISTS idx_discussions_course_created_id
+    ON discussions (course_id, created_at DESC, id DESC);
@@ -0,0 +1,16 @@
+-- Text extracted from course PDFs, split into page-level chunks for search (and later the tutor).
+-- text_blob_key records which blob the chunks came from; a row whose blob_key differs is pending extraction.
+ALTER TABLE course_pdfs ADD COLUMN IF NOT EXISTS text_blob_key VARCHAR(64);
+ALTER TABLE course_pdfs ADD COLUMN IF NOT EXISTS text_status VARCHAR(16);
+ALTER TABLE course_pdfs ADD COLUMN IF NOT EXISTS text_pages INT;
+
+CREATE INDEX IF NOT EXISTS idx_course_pdfs_text_pending ON course_pdfs (course_id)
+    WHERE blob_key IS NOT NULL AND blob_key IS DISTINCT FROM text_blob_key;
+
+CREATE TABLE IF NOT EXISTS course_pdf_chunks (
+    course_id UUID NOT NULL REFERENCES courses(id) ON DELETE CASCADE,
+    page INT NOT NULL,
+    chunk INT NOT NULL,
+    content TEXT NOT NULL,
+    PRIMARY KEY (course_id, page, chunk)
+);
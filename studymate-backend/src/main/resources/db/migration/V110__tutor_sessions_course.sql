@@ -0,0 +1,2 @@
+-- Tutor sessions can be tied to a course; their prompts then include excerpts of the course PDF.
+ALTER TABLE tutor_sessions ADD COLUMN IF NOT EXISTS course_id UUID REFERENCES courses(id) ON DELETE SET NULL;
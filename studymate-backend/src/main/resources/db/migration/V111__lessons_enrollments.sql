@@ -0,0 +1,41 @@
+-- Lessons, enrollments and lesson completions, previously held in memory (SampleData.lessonsByCourse).
+CREATE TABLE IF NOT EXISTS lessons (
+    id UUID PRIMARY KEY,
+    course_id UUID NOT NULL REFERENCES courses(id) ON DELETE CASCADE,
+    position INT NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    description TEXT,
+    content TEXT,
+    video_url VARCHAR(1000),
+    duration_minutes INT NOT NULL DEFAULT 0,
+    created_at TIMESTAMPTZ NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_lessons_course_position ON lessons (course_id, position, id);
+
+-- one row per (user, course): enrolling twice is a no-op
+CREATE TABLE IF NOT EXISTS course_enrollments (
+    user_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    course_id UUID NOT NULL REFERENCES courses(id) ON DELETE CASCADE,
+    enrolled_at TIMESTAMPTZ NOT NULL,
+    PRIMARY KEY (user_id, course_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_course_enrollments_course ON course_enrollments (course_id);
+
+-- one row per (user, lesson): completing twice is a no-op. course_id is denormalized so a user's
+-- progress in a course is a single index range
+CREATE TABLE IF NOT EXISTS lesson_completions (
+    user_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    lesson_id UUID NOT NULL REFERENCES lessons(id) ON DELETE CASCADE,
+    course_id UUID NOT NULL REFERENCES courses(id) ON DELETE CASCADE,
+    completed_at TIMESTAMPTZ NOT NULL,
+    PRIMARY KEY (user_id, lesson_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_lesson_completions_user_course ON lesson_completions (user_id, course_id, lesson_id);
+
+-- enrolled_students is maintained by the periodic enrollment-counter flush from now on, as deltas on
+-- top of the stored value, so it has to start from the real count (the old figures were sample data)
+UPDATE courses SET enrolled_students = (SELECT count(*) FROM course_enrollments e WHERE e.course_id = courses.id);
+ALTER TABLE courses ALTER COLUMN enrolled_students SET DEFAULT 0;
@@ -0,0 +1,2 @@
+-- Optimistic locking for the rolling summary: concurrent turns of one session must not overwrite each other's fold.
+ALTER TABLE tutor_sessions ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
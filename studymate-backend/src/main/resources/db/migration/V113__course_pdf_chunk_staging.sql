@@ -0,0 +1,14 @@
+-- Chunks of an extraction in progress, one attempt per job run. They are written in short batches
+-- while the PDF is parsed and moved into course_pdf_chunks by one short final transaction, which also
+-- clears whatever earlier or interrupted attempts of the course left behind.
+CREATE TABLE IF NOT EXISTS course_pdf_chunk_staging (
+    attempt UUID NOT NULL,
+    course_id UUID NOT NULL REFERENCES courses(id) ON DELETE CASCADE,
+    blob_key VARCHAR(64) NOT NULL,
+    page INT NOT NULL,
+    chunk INT NOT NULL,
+    content TEXT NOT NULL,
+    PRIMARY KEY (attempt, page, chunk)
+);
+
+CREATE INDEX IF NOT EXISTS idx_course_pdf_chunk_staging_course ON course_pdf_chunk_staging (course_id);
@@ -0,0 +1,156 @@
+package com.studymate.controller;
+
+import com.studymate.api.dto.ChatMessageDto;
+import com.studymate.config.GeminiClientConfig;
+import com.studymate.security.CurrentUser;
+import com.studymate.security.CurrentUserResolver;
+import com.studymate.service.GeminiService;
+import com.studymate.service.LlmCallLimiter;
+import com.studymate.service.TutorPrompt;
+import com.studymate.service.TutorRateLimiter;
+import com.studymate.service.TutorResponseCache;
+import com.studymate.service.TutorSessionService;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityFilterAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The SSE tutor endpoint against a stub Gemini that streams two chunks: the client must see both
+ * deltas as "token" events, then a "done" event with the assistant message stored from the full text.
+ */
+@SpringBootTest(classes = AiTutorControllerStreamTest.App.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class AiTutorControllerStreamTest {
+
+    private static final List<String> upstreamRequests = new CopyOnWriteArrayList<>();
+    private static final HttpServer gemini = startGemini();
+
+    @Configuration
+    @EnableAutoConfiguration(exclude = {DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class,
+            FlywayAutoConfiguration.class, SecurityAutoConfiguration.class, SecurityFilterAutoConfiguration.class,
+            UserDetailsServiceAutoConfiguration.class})
+    @Import({AiTutorController.class, GeminiService.class, GeminiClientConfig.class, LlmCallLimiter.class,
+            TutorResponseCache.class, TutorRateLimiter.class})
+    static class App {
+    }
+
+    @DynamicPropertySource
+    static void geminiStub(DynamicPropertyRegistry registry) {
+        registry.add("gemini.baseUrl", () -> "http://localhost:" + gemini.getAddress().getPort());
+        registry.add("gemini.apiKey", () -> "test-key");
+    }
+
+    @AfterAll
+    static void stopGemini() {
+        gemini.stop(0);
+    }
+
+    @Autowired
+    WebTestClient client;
+
+    @MockBean
+    TutorSessionService sessions;
+
+    @MockBean
+    CurrentUserResolver currentUser;
+
+    @Test
+    void streamsDeltasThenStoredReply() {
+        UUID userId = UUID.randomUUID();
+        UUID sessionId = UUID.randomUUID();
+        when(currentUser.current()).thenReturn(Optional.of(
+                new CurrentUser(userId, "ada", "Ada", "ada@example.com", "student", null, null, null)));
+        when(sessions.beginTurn(eq(userId), eq(sessionId.toString()), anyString())).thenReturn(Mono.just(Optional.of(
+                new TutorSessionService.Turn(sessionId, "math", new TutorPrompt("what is 2+2?", "what is 2+2?", true)))));
+        var stored = new ChatMessageDto();
+        stored.id = UUID.randomUUID().toString();
+        stored.role = "assistant";
+        stored.content = "Two plus two is four.";
+        when(sessions.appendReply(any(), anyString())).thenReturn(stored);
+
+        List<ServerSentEvent<Map<String, Object>>> events = client.post()
+                .uri("/api/ai-tutor/sessions/{id}/messages/stream", sessionId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("content", "what is 2+2?"))
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<Map<String, Object>>>() {})
+                .getResponseBody()
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertThat(events).extracting(ServerSentEvent::event).containsExactly("token", "token", "done");
+        assertThat(events.get(0).data()).containsEntry("text", "Two plus two");
+        assertThat(events.get(1).data()).containsEntry("text", " is four.");
+        assertThat(events.get(2).data())
+                .containsEntry("id", stored.id)
+                .containsEntry("role", "assistant")
+                .containsEntry("content", "Two plus two is four.");
+        verify(sessions).appendReply(sessionId, "Two plus two is four.");
+        assertThat(upstreamRequests).singleElement().satisfies(uri -> assertThat(uri)
+                .startsWith("/v1beta/models/gemini-1.5-flash:streamGenerateContent")
+                .contains("alt=sse").contains("key=test-key"));
+    }
+
+    private static HttpServer startGemini() {
+        try {
+            var server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/v1beta/models/", exchange -> {
+                upstreamRequests.add(exchange.getRequestURI().toString());
+                exchange.getRequestBody().readAllBytes();
+                exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+                exchange.sendResponseHeaders(200, 0);
+                try (var out = exchange.getResponseBody()) {
+                    for (String delta : List.of("Two plus two", " is four.")) {
+                        String chunk = "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"" + delta + "\"}]}}]}";
+                        out.write(("data: " + chunk + "\n\n").getBytes(StandardCharsets.UTF_8));
+                        out.flush();
+                    }
+                }
+            });
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.studymate.controller;
+
+import com.studymate.service.CourseService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CourseControllerUploadTest {
+    private static final String MALFORMED = "not-a-uuid";
+    private static final String UNKNOWN = UUID.randomUUID().toString();
+
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        var courses = mock(CourseService.class);
+        when(courses.getMaxPdfBytes()).thenReturn(1_000_000L);
+        var malformed = new IllegalArgumentException("Invalid UUID string: " + MALFORMED);
+        var unknown = new NoSuchElementException("Course not found: " + UNKNOWN);
+        doThrow(malformed).when(courses).uploadPdf(eq(MALFORMED), any());
+        doThrow(unknown).when(courses).uploadPdf(eq(UNKNOWN), any());
+        doThrow(malformed).when(courses).uploadPdf(eq(MALFORMED), anyString(), any(), anyLong(), any());
+        doThrow(unknown).when(courses).uploadPdf(eq(UNKNOWN), anyString(), any(), anyLong(), any());
+        mvc = MockMvcBuilders.standaloneSetup(new CourseController(courses, null, null)).build();
+    }
+
+    @Test
+    void multipartUploadMapsBadAndUnknownCourseIds() throws Exception {
+        var file = new MockMultipartFile("file", "notes.pdf", "application/pdf", new byte[]{'%', 'P', 'D', 'F'});
+        mvc.perform(multipart("/api/courses/{id}/pdf", MALFORMED).file(file)).andExpect(status().isBadRequest());
+        mvc.perform(multipart("/api/courses/{id}/pdf", UNKNOWN).file(file)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void rawUploadMapsBadAndUnknownCourseIds() throws Exception {
+        byte[] pdf = {'%', 'P', 'D', 'F'};
+        mvc.perform(put("/api/courses/{id}/pdf", MALFORMED).contentType("application/pdf").content(pdf))
+                .andExpect(status().isBadRequest());
+        mvc.perform(put("/api/courses/{id}/pdf", UNKNOWN).contentType("application/pdf").content(pdf))
+                .andExpect(status().isNotFound());
+    }
+}
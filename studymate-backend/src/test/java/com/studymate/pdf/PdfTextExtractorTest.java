@@ -0,0 +1,84 @@
+package com.studymate.pdf;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PdfTextExtractorTest {
+    private static final int MAX_STREAM_BYTES = 1 << 20;
+
+    @TempDir
+    Path dir;
+
+    private final PdfTextExtractor extractor = new PdfTextExtractor(20000, MAX_STREAM_BYTES);
+
+    @Test
+    void extractsShownText() throws IOException {
+        var pages = extract(pdf("BT /F1 12 Tf (Hello world) Tj ET", null));
+        assertThat(pages).containsExactly("Hello world");
+    }
+
+    @Test
+    void longBraceRunDoesNotOverflowTheStack() throws IOException {
+        var pages = extract(pdf("{".repeat(200_000) + " BT /F1 12 Tf (after) Tj ET", null));
+        assertThat(pages).containsExactly("after");
+    }
+
+    @Test
+    void objectStreamCountIsClampedToItsHeader() throws IOException {
+        String objStm = "<< /Type /ObjStm /N 2000000000 /First 4 /Length 8 >>\nstream\n9 0 \n<<>>\nendstream";
+        // the font is object 9, which only exists inside the object stream
+        var pages = extract(pdf("BT /F1 12 Tf (text) Tj ET", objStm, "9 0 R", null));
+        assertThat(pages).containsExactly("text");
+    }
+
+    @Test
+    void toUnicodeCMapExpansionIsCapped() throws IOException {
+        var cmap = new StringBuilder("begincodespacerange <0000> <FFFF> endcodespacerange\n");
+        for (int i = 0; i < 2000; i++) cmap.append("1 beginbfrange <0000> <FFFF> <0041> endbfrange\n");
+        String font = "<< /Type /Font /Subtype /Type0 /ToUnicode 6 0 R >>";
+        var pages = extract(pdf("BT /F1 12 Tf <00010002> Tj ET", null, font, cmap.toString()));
+        assertThat(pages).containsExactly("BC");
+    }
+
+    private List<String> extract(Path pdf) throws IOException {
+        List<String> pages = new ArrayList<>();
+        int count = extractor.extract(pdf, (page, text) -> pages.add(text));
+        assertThat(count).isEqualTo(pages.size());
+        return pages;
+    }
+
+    private Path pdf(String content, String extraObject) throws IOException {
+        return pdf(content, extraObject, "<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica >>", null);
+    }
+
+    // One page drawing {@code content} with font F1; objects are found by their headers, so no xref is needed
+    private Path pdf(String content, String extraObject, String font, String cmap) throws IOException {
+        var out = new ByteArrayOutputStream();
+        write(out, "%PDF-1.7\n");
+        write(out, "1 0 obj << /Type /Catalog /Pages 2 0 R >> endobj\n");
+        write(out, "2 0 obj << /Type /Pages /Kids [3 0 R] /Count 1 >> endobj\n");
+        write(out, "3 0 obj << /Type /Page /Parent 2 0 R /Resources << /Font << /F1 5 0 R >> >> /Contents 4 0 R >> endobj\n");
+        write(out, "4 0 obj << /Length " + content.length() + " >>\nstream\n" + content + "\nendstream endobj\n");
+        write(out, "5 0 obj " + font + " endobj\n");
+        if (cmap != null) write(out, "6 0 obj << /Length " + cmap.length() + " >>\nstream\n" + cmap + "\nendstream endobj\n");
+        if (extraObject != null) write(out, "7 0 obj " + extraObject + " endobj\n");
+        write(out, "trailer << /Root 1 0 R >>\n%%EOF\n");
+        Path file = Files.createTempFile(dir, "test-", ".pdf");
+        Files.write(file, out.toByteArray());
+        return file;
+    }
+
+    private static void write(ByteArrayOutputStream out, String s) {
+        out.writeBytes(s.getBytes(StandardCharsets.ISO_8859_1));
+    }
+}
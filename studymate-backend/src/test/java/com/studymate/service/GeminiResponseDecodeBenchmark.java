@@ -0,0 +1,95 @@
+package com.studymate.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation per decoded Gemini reply: the old Map tree walked through casts vs the typed
+ * {@link GeminiResponse} records. The payload carries the safety ratings, citations and usage metadata
+ * a real reply has. Read {@code gc.alloc.rate.norm} (bytes per op). Run with
+ * {@code mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt} and then
+ * {@code java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.studymate.service.GeminiResponseDecodeBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeminiResponseDecodeBenchmark {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private ObjectReader typed;
+    private byte[] reply;
+
+    @Setup
+    public void setup() {
+        typed = mapper.readerFor(GeminiResponse.class);
+        reply = sampleReply().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public String mapTree() throws IOException {
+        Map<String, Object> root = mapper.readValue(reply, Map.class);
+        var candidates = (List<Map<String, Object>>) root.get("candidates");
+        var content = (Map<String, Object>) candidates.get(0).get("content");
+        var parts = (List<Map<String, Object>>) content.get("parts");
+        return (String) parts.get(0).get("text");
+    }
+
+    @Benchmark
+    public String typedRecords() throws IOException {
+        GeminiResponse response = typed.readValue(reply);
+        return response.text();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GeminiResponseDecodeBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    static String sampleReply() {
+        String rating = "{\"category\":\"HARM_CATEGORY_%s\",\"probability\":\"NEGLIGIBLE\",\"blocked\":false}";
+        StringBuilder ratings = new StringBuilder();
+        for (String c : List.of("SEXUALLY_EXPLICIT", "HATE_SPEECH", "HARASSMENT", "DANGEROUS_CONTENT")) {
+            if (ratings.length() > 0) ratings.append(',');
+            ratings.append(String.format(rating, c));
+        }
+        StringBuilder citations = new StringBuilder();
+        for (int i = 0; i < 3; i++) {
+            if (i > 0) citations.append(',');
+            citations.append("{\"startIndex\":").append(i * 100).append(",\"endIndex\":").append(i * 100 + 80)
+                    .append(",\"uri\":\"https://example.edu/notes/").append(i).append("\",\"license\":\"\"}");
+        }
+        String text = ("A derivative measures how a function changes as its input changes. "
+                + "For f(x) = x^2 the derivative is 2x, so the slope at x = 3 is 6. ").repeat(8);
+        return "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"" + text + "\"}],\"role\":\"model\"},"
+                + "\"finishReason\":\"STOP\",\"index\":0,\"safetyRatings\":[" + ratings + "],"
+                + "\"citationMetadata\":{\"citationSources\":[" + citations + "]}}],"
+                + "\"usageMetadata\":{\"promptTokenCount\":412,\"candidatesTokenCount\":256,\"totalTokenCount\":668},"
+                + "\"modelVersion\":\"gemini-1.5-flash-002\"}";
+    }
+}
@@ -0,0 +1,90 @@
+package com.studymate.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+class GeminiTextEmbedderTest {
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final List<String> paths = new CopyOnWriteArrayList<>();
+    private final List<JsonNode> bodies = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private GeminiTextEmbedder embedder;
+
+    @BeforeEach
+    void startStub() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        // answers every request with 6 values (more than asked for) so truncation is exercised
+        server.createContext("/v1beta/models/", exchange -> {
+            JsonNode body = JSON.readTree(exchange.getRequestBody());
+            paths.add(exchange.getRequestURI().getPath());
+            bodies.add(body);
+            String embedding = "{\"values\":[3,4,0,0,9,9]}";
+            String reply;
+            if (body.has("requests")) {
+                List<String> all = new ArrayList<>();
+                for (int i = 0; i < body.get("requests").size(); i++) all.add(embedding);
+                reply = "{\"embeddings\":[" + String.join(",", all) + "]}";
+            } else {
+                reply = "{\"embedding\":" + embedding + "}";
+            }
+            byte[] bytes = reply.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (var out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+        var client = WebClient.create("http://localhost:" + server.getAddress().getPort());
+        embedder = new GeminiTextEmbedder(client, "test-key", "text-embedding-004", 4, Duration.ofSeconds(5),
+                Duration.ofSeconds(5), new LlmCallLimiter(4, 4, Duration.ofSeconds(5)), 20, 10, 0.5, Duration.ofSeconds(30));
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    void documentsAreEmbeddedInBatchesOfAHundred() {
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 150; i++) texts.add("chunk " + i);
+
+        List<float[]> vectors = embedder.embedDocuments(texts);
+
+        assertThat(vectors).hasSize(150);
+        assertThat(vectors.get(149)).containsExactly(new float[]{0.6f, 0.8f, 0f, 0f}, offset(1e-6f));
+        assertThat(paths).containsOnly("/v1beta/models/text-embedding-004:batchEmbedContents");
+        assertThat(bodies).extracting(b -> b.get("requests").size()).containsExactly(100, 50);
+        JsonNode first = bodies.get(0).get("requests").get(0);
+        assertThat(first.get("taskType").asText()).isEqualTo("RETRIEVAL_DOCUMENT");
+        assertThat(first.get("outputDimensionality").asInt()).isEqualTo(4);
+        assertThat(first.at("/content/parts/0/text").asText()).isEqualTo("chunk 0");
+    }
+
+    @Test
+    void queriesUseTheQueryTaskType() {
+        float[] vector = embedder.embed("what is a derivative?");
+
+        assertThat(vector).containsExactly(new float[]{0.6f, 0.8f, 0f, 0f}, offset(1e-6f));
+        assertThat(paths).containsExactly("/v1beta/models/text-embedding-004:embedContent");
+        assertThat(bodies.get(0).get("taskType").asText()).isEqualTo("RETRIEVAL_QUERY");
+        assertThat(embedder.id()).isEqualTo("gemini-text-embedding-004-4");
+    }
+}
@@ -0,0 +1,35 @@
+package com.studymate.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+class HashingTextEmbedderTest {
+
+    private final HashingTextEmbedder embedder = new HashingTextEmbedder(128);
+
+    @Test
+    void deterministicUnitVectors() {
+        float[] a = embedder.embed("The derivative of x squared is two x");
+        assertThat(a).hasSize(128).containsExactly(new HashingTextEmbedder(128).embed("The derivative of x squared is two x"));
+        assertThat(dot(a, a)).isCloseTo(1f, offset(1e-5f));
+        assertThat(embedder.embedDocuments(List.of("The derivative of x squared is two x")).get(0)).containsExactly(a);
+    }
+
+    @Test
+    void sharedTermsScoreHigherThanUnrelatedText() {
+        float[] query = embedder.embed("how do I compute a derivative?");
+        float[] related = embedder.embed("To compute the derivative of a polynomial, differentiate each term.");
+        float[] unrelated = embedder.embed("Photosynthesis converts light energy into chemical energy in plants.");
+        assertThat(dot(query, related)).isGreaterThan(dot(query, unrelated));
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float s = 0;
+        for (int i = 0; i < a.length; i++) s += a[i] * b[i];
+        return s;
+    }
+}
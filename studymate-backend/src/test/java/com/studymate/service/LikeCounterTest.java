@@ -0,0 +1,89 @@
+package com.studymate.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LikeCounterTest {
+
+    @Test
+    void concurrentLikesSurviveFlushesThatRetireEntries() throws Exception {
+        var jdbc = new StubJdbc();
+        var counter = new LikeCounter(jdbc, null, Duration.ofSeconds(1));
+        var ids = List.of(UUID.randomUUID(), UUID.randomUUID());
+        int threads = 4, likesPerThread = 20_000;
+        var done = new AtomicBoolean();
+        var flusher = new Thread(() -> {
+            while (!done.get()) counter.flush();
+        });
+        flusher.start();
+        List<Thread> likers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            var liker = new Thread(() -> {
+                for (int i = 0; i < likesPerThread; i++) counter.add(ids.get(i % 2), 1);
+            });
+            likers.add(liker);
+            liker.start();
+        }
+        for (var liker : likers) liker.join();
+        done.set(true);
+        flusher.join();
+        counter.flush();
+
+        for (var id : ids) {
+            assertThat(jdbc.likes.getOrDefault(id, 0L)).isEqualTo(threads * likesPerThread / 2L);
+            assertThat(counter.pending(id)).isZero();
+        }
+    }
+
+    @Test
+    void likeAndUnlikeLeaveNothingBehind() {
+        var jdbc = new StubJdbc();
+        var counter = new LikeCounter(jdbc, null, Duration.ofSeconds(1));
+        var id = UUID.randomUUID();
+        counter.add(id, 1);
+        counter.add(id, -1);
+        counter.flush();
+        assertThat(jdbc.updates).isZero();
+        assertThat(counter.pending(id)).isZero();
+
+        counter.add(id, 1);
+        assertThat(counter.pending(id)).isEqualTo(1);
+        counter.flush();
+        assertThat(jdbc.likes).containsEntry(id, 1L);
+    }
+
+    /** Applies like_count updates to a map; the totals query publishes nothing. */
+    private static final class StubJdbc extends JdbcTemplate {
+        final Map<UUID, Long> likes = new ConcurrentHashMap<>();
+        volatile int updates;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                       ParameterizedPreparedStatementSetter<T> pss) {
+            for (T row : batchArgs) {
+                var e = (Map.Entry<UUID, Long>) row;
+                likes.merge(e.getKey(), e.getValue(), Long::sum);
+            }
+            updates++;
+            return new int[0][];
+        }
+
+        @Override
+        public void query(String sql, RowCallbackHandler rch, Object... args) {
+        }
+    }
+}
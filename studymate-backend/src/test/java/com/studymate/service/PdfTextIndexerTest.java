@@ -0,0 +1,158 @@
+package com.studymate.service;
+
+import com.studymate.storage.BlobStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PdfTextIndexerTest {
+    private static final String BLOB = "blob-1";
+
+    private final UUID courseId = UUID.randomUUID();
+    private final TrackingTransactions transactions = new TrackingTransactions();
+    private final StubJdbc jdbc = new StubJdbc(transactions);
+    private BlobStore blobs;
+    private PdfTextIndexer indexer;
+
+    @BeforeEach
+    void setUp() {
+        blobs = mock(BlobStore.class);
+        indexer = new PdfTextIndexer(jdbc, blobs, mock(SearchService.class), mock(CourseMaterialIndex.class),
+                new TransactionTemplate(transactions), 1, 1, Duration.ofMinutes(1), 1000, 20000, 1 << 20);
+    }
+
+    @Test
+    void chunksAreStagedOutsideTheSwapTransaction() {
+        when(blobs.open(anyString())).thenReturn(Optional.of(pdf("BT /F1 12 Tf (Hello world) Tj ET")));
+
+        assertThat(indexer.extract(courseId)).isFalse();
+
+        assertThat(jdbc.statements).containsExactly(
+                "batch insert into course_pdf_chunk_staging",
+                "tx update course_pdfs DONE",
+                "tx delete from course_pdf_chunks",
+                "tx insert into course_pdf_chunks",
+                "tx delete from course_pdf_chunk_staging");
+    }
+
+    @Test
+    void unreadablePdfIsMarkedFailedInOneShortTransaction() {
+        when(blobs.open(anyString())).thenReturn(Optional.of(resource("not a pdf")));
+
+        assertThat(indexer.extract(courseId)).isFalse();
+
+        assertThat(jdbc.statements).containsExactly(
+                "tx update course_pdfs FAILED",
+                "tx delete from course_pdf_chunks",
+                "tx delete from course_pdf_chunk_staging");
+    }
+
+    @Test
+    void outOfMemoryIsNotRecordedAsAFailedPdf() {
+        when(blobs.open(anyString())).thenThrow(new OutOfMemoryError("test"));
+
+        assertThatThrownBy(() -> indexer.extract(courseId)).isInstanceOf(OutOfMemoryError.class);
+        assertThat(jdbc.statements).isEmpty();
+        assertThat(transactions.begun).isZero();
+    }
+
+    // One page drawing {@code content} with font F1, as in PdfTextExtractorTest
+    private static ByteArrayResource pdf(String content) {
+        return resource("%PDF-1.7\n"
+                + "1 0 obj << /Type /Catalog /Pages 2 0 R >> endobj\n"
+                + "2 0 obj << /Type /Pages /Kids [3 0 R] /Count 1 >> endobj\n"
+                + "3 0 obj << /Type /Page /Parent 2 0 R /Resources << /Font << /F1 5 0 R >> >> /Contents 4 0 R >> endobj\n"
+                + "4 0 obj << /Length " + content.length() + " >>\nstream\n" + content + "\nendstream endobj\n"
+                + "5 0 obj << /Type /Font /Subtype /Type1 /BaseFont /Helvetica >> endobj\n"
+                + "trailer << /Root 1 0 R >>\n%%EOF\n");
+    }
+
+    private static ByteArrayResource resource(String bytes) {
+        return new ByteArrayResource(bytes.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /** Serves the one pending course_pdfs row and records each write, prefixed with whether it ran in a transaction. */
+    private static final class StubJdbc extends JdbcTemplate {
+        final List<String> statements = new ArrayList<>();
+        private final TrackingTransactions transactions;
+
+        StubJdbc(TrackingTransactions transactions) {
+            this.transactions = transactions;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            return (List<T>) List.<Object>of((Object) new String[]{BLOB, "notes.pdf"});
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            // the status is the first argument of the course_pdfs update
+            String status = sql.startsWith("update course_pdfs") ? " " + args[0] : "";
+            statements.add((transactions.open ? "tx " : "") + head(sql) + status);
+            return 1;
+        }
+
+        @Override
+        public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                       ParameterizedPreparedStatementSetter<T> pss) {
+            statements.add((transactions.open ? "tx " : "batch ") + head(sql));
+            return new int[0][];
+        }
+
+        // verb and table: everything before the column list, SET or WHERE
+        private static String head(String sql) {
+            List<String> words = new ArrayList<>();
+            for (String w : sql.split(" ")) {
+                if (w.equals("set") || w.equals("where") || w.startsWith("(")) break;
+                words.add(w);
+            }
+            return String.join(" ", words);
+        }
+    }
+
+    private static final class TrackingTransactions implements PlatformTransactionManager {
+        boolean open;
+        int begun;
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            open = true;
+            begun++;
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            open = false;
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            open = false;
+        }
+    }
+}
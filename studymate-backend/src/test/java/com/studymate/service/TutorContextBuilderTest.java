@@ -0,0 +1,59 @@
+package com.studymate.service;
+
+import com.studymate.entity.TutorSessionEntity;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TutorContextBuilderTest {
+
+    private final UUID courseId = UUID.randomUUID();
+
+    @Test
+    void promptWithoutMaterialIsStandalone() {
+        var prompt = new TutorContextBuilder(3000, 500, 1000, 800)
+                .build(session(), List.of(), "What is a limit?", List.of());
+        assertThat(prompt.standalone()).isTrue();
+        assertThat(prompt.text()).doesNotContain("Course material").endsWith("Student: What is a limit?\nTutor:");
+    }
+
+    @Test
+    void materialIsTaggedWithPagesAndTiesThePromptToTheCourse() {
+        var material = List.of(
+                new PdfChunk(courseId, 3, 0, "A limit describes the value a function approaches."),
+                new PdfChunk(courseId, 7, 1, "Continuity means the limit equals the function value."));
+        var prompt = new TutorContextBuilder(3000, 500, 1000, 800)
+                .build(session(), List.of(), "What is a limit?", material);
+
+        assertThat(prompt.standalone()).isFalse();
+        assertThat(prompt.question()).isEqualTo("What is a limit?");
+        assertThat(prompt.text())
+                .contains("citing pages as (p. N)")
+                .contains("[p. 3] A limit describes the value a function approaches.")
+                .contains("[p. 7] Continuity means the limit equals the function value.");
+        assertThat(prompt.text().indexOf("[p. 3]")).isLessThan(prompt.text().indexOf("[p. 7]"));
+    }
+
+    @Test
+    void excerptsShareTheMaterialBudget() {
+        String longText = "Integration by parts moves the derivative from one factor to the other. ".repeat(20);
+        var material = List.of(new PdfChunk(courseId, 1, 0, longText), new PdfChunk(courseId, 2, 0, longText));
+        // 40 tokens for two excerpts: 20 tokens, i.e. about 80 characters, each
+        var prompt = new TutorContextBuilder(3000, 500, 1000, 40)
+                .build(session(), List.of(), "Explain integration by parts", material);
+
+        String excerpt = prompt.text().lines().filter(l -> l.startsWith("[p. 1] ")).findFirst().orElseThrow();
+        assertThat(excerpt).endsWith(" ...").hasSizeLessThanOrEqualTo("[p. 1] ".length() + 80 + " ...".length());
+    }
+
+    private TutorSessionEntity session() {
+        var session = new TutorSessionEntity();
+        session.setId(UUID.randomUUID());
+        session.setSubject("Calculus");
+        session.setCourseId(courseId);
+        return session;
+    }
+}
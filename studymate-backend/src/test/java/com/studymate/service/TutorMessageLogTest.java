@@ -0,0 +1,197 @@
+package com.studymate.service;
+
+import com.studymate.entity.TutorMessageEntity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TutorMessageLogTest {
+
+    private TutorMessageLog messageLog;
+
+    @AfterEach
+    void stop() {
+        if (messageLog != null) messageLog.stop();
+    }
+
+    @Test
+    void asyncRowIsRetriedAfterTransientFailure() throws Exception {
+        var failures = new AtomicInteger(2);
+        var jdbc = new StubJdbc(rows -> {
+            if (failures.getAndDecrement() > 0) throw new TransientDataAccessResourceException("connection reset");
+            return null;
+        });
+        messageLog = start(jdbc, "async");
+        var message = message();
+        messageLog.append(message);
+
+        waitFor(() -> jdbc.inserted.get() == 1);
+        assertThat(messageLog.pending(message.getSessionId())).isEmpty();
+        assertThat(messageLog.stats()).containsEntry("failedRows", 0L).containsEntry("retriedRows", 1L);
+    }
+
+    @Test
+    void asyncRowViolatingConstraintIsCountedAsFailed() throws Exception {
+        var jdbc = new StubJdbc(rows -> {
+            throw new DataIntegrityViolationException("session deleted");
+        });
+        messageLog = start(jdbc, "async");
+        var message = message();
+        messageLog.append(message);
+
+        waitFor(() -> ((Long) messageLog.stats().get("failedRows")) == 1L);
+        assertThat(messageLog.pending(message.getSessionId())).isEmpty();
+        assertThat(messageLog.stats()).containsEntry("retriedRows", 0L);
+    }
+
+    @Test
+    void laterRowsOfASessionWaitForItsRetriedRow() throws Exception {
+        var question = message();
+        var reply = message();
+        reply.setSessionId(question.getSessionId());
+        reply.setRole("assistant");
+        var failing = new AtomicBoolean(true);
+        var jdbc = new StubJdbc(ids -> {
+            if (failing.get() && ids.contains(question.getId())) {
+                throw new TransientDataAccessResourceException("connection reset");
+            }
+            return null;
+        });
+        messageLog = start(jdbc, "async", 1000);
+        messageLog.append(question);
+        waitFor(() -> ((Long) messageLog.stats().get("retriedRows")) >= 1L);
+        messageLog.append(reply);
+
+        waitFor(() -> ((Integer) messageLog.stats().get("awaitingRetry")) == 2);
+        failing.set(false);
+        waitFor(() -> jdbc.inserted.get() == 2);
+        assertThat(jdbc.ids).containsExactly(question.getId(), reply.getId());
+    }
+
+    @Test
+    void syncAppendTimesOutAsBusy() {
+        var release = new CountDownLatch(1);
+        var jdbc = new StubJdbc(rows -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+        messageLog = start(jdbc, "sync");
+        try {
+            assertThatThrownBy(() -> messageLog.append(message())).isInstanceOf(LlmBusyException.class);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static TutorMessageLog start(JdbcTemplate jdbc, String durability) {
+        return start(jdbc, durability, 5);
+    }
+
+    private static TutorMessageLog start(JdbcTemplate jdbc, String durability, int maxAttempts) {
+        var log = new TutorMessageLog(jdbc, new TransactionTemplate(new NoopTransactions()), 100, 10,
+                Duration.ofMillis(5), Duration.ofSeconds(1), Duration.ofMillis(200), Duration.ofMillis(10),
+                maxAttempts, durability);
+        log.start();
+        return log;
+    }
+
+    private static TutorMessageEntity message() {
+        var m = new TutorMessageEntity();
+        m.setId(UUID.randomUUID());
+        m.setSessionId(UUID.randomUUID());
+        m.setRole("user");
+        m.setContent("what is a derivative?");
+        m.setCreatedAt(OffsetDateTime.now());
+        return m;
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /** Runs {@code onInsert} with the message ids of every insert batch and records the rows that went through. */
+    private static final class StubJdbc extends JdbcTemplate {
+        final AtomicInteger inserted = new AtomicInteger();
+        final List<Object> ids = new CopyOnWriteArrayList<>();
+        private final Function<List<Object>, Void> onInsert;
+
+        StubJdbc(Function<List<Object>, Void> onInsert) {
+            this.onInsert = onInsert;
+        }
+
+        @Override
+        public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                       ParameterizedPreparedStatementSetter<T> pss) {
+            if (sql.startsWith("insert into tutor_messages")) {
+                List<Object> batchIds = new ArrayList<>();
+                // the id is the first parameter of the insert
+                var ps = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                        new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                            if (method.getName().equals("setObject") && args[0].equals(1)) batchIds.add(args[1]);
+                            return null;
+                        });
+                for (T row : batchArgs) {
+                    try {
+                        pss.setValues(ps, row);
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                onInsert.apply(batchIds);
+                ids.addAll(batchIds);
+                inserted.addAndGet(batchArgs.size());
+            }
+            return new int[0][];
+        }
+    }
+
+    private static final class NoopTransactions implements PlatformTransactionManager {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.studymate.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TutorRateLimiterTest {
+
+    @Test
+    void burstIsLimited() {
+        var limiter = new TutorRateLimiter(2, 1, 1_000_000, 100);
+        assertThat(limiter.tryAcquire("u").allowed()).isTrue();
+        assertThat(limiter.tryAcquire("u").allowed()).isTrue();
+        var denied = limiter.tryAcquire("u");
+        assertThat(denied.allowed()).isFalse();
+        assertThat(denied.retryAfterSeconds()).isPositive();
+        assertThat(limiter.tryAcquire("other").allowed()).isTrue();
+    }
+
+    @Test
+    void recordedUsageCountsAgainstTodaysQuota() {
+        var limiter = new TutorRateLimiter(100, 100, 10, 100);
+        var prompt = new TutorPrompt("q", "x".repeat(40), true);
+        assertThat(limiter.tryAcquire("u").allowed()).isTrue();
+        limiter.recordUsage("u", prompt, "");
+        var denied = limiter.tryAcquire("u");
+        assertThat(denied.allowed()).isFalse();
+        assertThat(denied.reason()).contains("quota");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void usageListsHeaviestUsersOfToday() {
+        var limiter = new TutorRateLimiter(100, 100, 1_000_000, 100);
+        limiter.recordUsage("light", new TutorPrompt("q", "x".repeat(8), true), "");
+        limiter.recordUsage("heavy", new TutorPrompt("q", "x".repeat(80), true), "");
+        var usage = limiter.usage(10);
+        var top = (List<Map<String, Object>>) usage.get("topUsers");
+        assertThat(top).extracting(m -> m.get("user")).containsExactly("heavy", "light");
+        assertThat(usage.get("tokensToday")).isEqualTo(22L);
+    }
+}
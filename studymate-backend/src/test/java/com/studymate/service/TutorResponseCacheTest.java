@@ -0,0 +1,43 @@
+package com.studymate.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TutorResponseCacheTest {
+    private static final String MODEL = "gemini-1.5-flash";
+
+    @Test
+    void similarityTierIsOffByDefault() {
+        var cache = new TutorResponseCache(true, 100, Duration.ofHours(1), false, 0.9);
+        cache.put(MODEL, "math", "What is the derivative of x^2?", "2x");
+        assertThat(cache.get(MODEL, "math", "what is the derivative of x^2")).contains("2x");
+        assertThat(cache.get(MODEL, "math", "so what is the derivative of x^2")).isEmpty();
+    }
+
+    @Test
+    void nearDuplicatesWithOtherNumbersMiss() {
+        var cache = new TutorResponseCache(true, 100, Duration.ofHours(1), true, 0.9);
+        cache.put(MODEL, "math", "what is the derivative of x^2", "2x");
+        assertThat(cache.get(MODEL, "math", "what is the derivative of x^3")).isEmpty();
+        assertThat(cache.get(MODEL, "math", "what is the derivative of x^2 ?")).contains("2x");
+    }
+
+    @Test
+    void nearDuplicatesWithTheSameNumbersHit() {
+        var cache = new TutorResponseCache(true, 100, Duration.ofHours(1), true, 0.9);
+        cache.put(MODEL, "history", "Explain the causes of the French Revolution of 1789 in detail", "answer");
+        assertThat(cache.get(MODEL, "history", "Explain the causes of the French revolution of 1789 in details"))
+                .contains("answer");
+        assertThat(cache.get(MODEL, "history", "Explain the causes of the French Revolution of 1830 in detail"))
+                .isEmpty();
+    }
+
+    @Test
+    void numbersKeepsDigitTokensInOrder() {
+        assertThat(TutorResponseCache.numbers("derivative of x 2 at 10")).isEqualTo("2 10 ");
+        assertThat(TutorResponseCache.numbers("no digits here")).isEmpty();
+    }
+}
@@ -0,0 +1,97 @@
+package com.studymate.service;
+
+import com.studymate.entity.TutorSessionEntity;
+import com.studymate.repository.TutorSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TutorSessionServiceTest {
+    private final UUID userId = UUID.randomUUID();
+    private final UUID sessionId = UUID.randomUUID();
+    private final UUID courseId = UUID.randomUUID();
+
+    private TutorSessionEntity session;
+    private CourseMaterialIndex materials;
+    private TransactionTemplate transactions;
+    private TutorMessageLog messageLog;
+    private TutorSessionService service;
+
+    @BeforeEach
+    void setUp() {
+        var sessions = mock(TutorSessionRepository.class);
+        session = new TutorSessionEntity();
+        session.setId(sessionId);
+        session.setUserId(userId);
+        when(sessions.findByIdAndUserId(sessionId, userId)).thenReturn(Optional.of(session));
+        transactions = mock(TransactionTemplate.class);
+        messageLog = mock(TutorMessageLog.class);
+        materials = mock(CourseMaterialIndex.class);
+        service = new TutorSessionService(sessions, null, null, transactions, messageLog, null, materials, 4);
+    }
+
+    @Test
+    void turnIsRebuiltWhenAConcurrentTurnSavedTheSummaryFirst() {
+        var turn = new TutorSessionService.Turn(sessionId, "math", null);
+        when(transactions.<Optional<TutorSessionService.Turn>>execute(any()))
+                .thenThrow(conflict())
+                .thenReturn(Optional.of(turn));
+
+        assertThat(service.beginTurn(userId, sessionId.toString(), "why?").block()).contains(turn);
+        verify(transactions, times(2)).execute(any());
+        verify(messageLog).append(any());
+    }
+
+    @Test
+    void persistentConflictsAreReportedAsBusy() {
+        when(transactions.<Optional<TutorSessionService.Turn>>execute(any())).thenThrow(conflict());
+
+        assertThatThrownBy(() -> service.beginTurn(userId, sessionId.toString(), "why?").block())
+                .isInstanceOf(LlmBusyException.class);
+        verify(transactions, times(3)).execute(any());
+        verify(messageLog, never()).append(any());
+    }
+
+    @Test
+    void courseMaterialIsRetrievedOnceBeforeTheTransaction() {
+        session.setCourseId(courseId);
+        when(materials.retrieve(eq(courseId), eq("why?"), anyInt()))
+                .thenReturn(Mono.just(List.of(new PdfChunk(courseId, 1, 0, "because"))));
+        var turn = new TutorSessionService.Turn(sessionId, "math", null);
+        when(transactions.<Optional<TutorSessionService.Turn>>execute(any()))
+                .thenThrow(conflict())
+                .thenReturn(Optional.of(turn));
+
+        assertThat(service.beginTurn(userId, sessionId.toString(), "why?").block()).contains(turn);
+        // a retried transaction reuses the excerpts instead of embedding the question again
+        verify(materials, times(1)).retrieve(eq(courseId), eq("why?"), anyInt());
+    }
+
+    @Test
+    void unknownSessionStartsNoTurn() {
+        assertThat(service.beginTurn(userId, UUID.randomUUID().toString(), "why?").block()).isEmpty();
+        verify(transactions, never()).execute(any());
+    }
+
+    private static ObjectOptimisticLockingFailureException conflict() {
+        return new ObjectOptimisticLockingFailureException("TutorSessionEntity", UUID.randomUUID());
+    }
+}
@@ -0,0 +1,56 @@
+package com.studymate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalFileBlobStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void deletesOnlyBlobsWrittenBeforeCutoff() throws Exception {
+        var store = new LocalFileBlobStore(dir.toString());
+        var blob = store.put(bytes("lecture notes"));
+
+        assertThat(store.deleteIfWrittenBefore(blob.key(), Instant.now().minus(Duration.ofHours(1)))).isFalse();
+        assertThat(store.exists(blob.key())).isTrue();
+
+        assertThat(store.deleteIfWrittenBefore(blob.key(), Instant.now().plusSeconds(5))).isTrue();
+        assertThat(store.exists(blob.key())).isFalse();
+    }
+
+    @Test
+    void dedupPutRestartsGracePeriod() throws Exception {
+        var store = new LocalFileBlobStore(dir.toString());
+        var blob = store.put(bytes("shared slides"));
+        var path = dir.resolve(blob.key().substring(0, 2)).resolve(blob.key().substring(2, 4)).resolve(blob.key());
+        Files.setLastModifiedTime(path,
+                FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+        Instant cutoff = Instant.now().minus(Duration.ofDays(1));
+
+        List<String> candidates = new ArrayList<>();
+        store.forEachWrittenBefore(cutoff, candidates::add);
+        assertThat(candidates).containsExactly(blob.key());
+
+        assertThat(store.put(bytes("shared slides")).key()).isEqualTo(blob.key());
+        assertThat(store.deleteIfWrittenBefore(blob.key(), cutoff)).isFalse();
+        assertThat(store.exists(blob.key())).isTrue();
+    }
+
+    private static ByteArrayInputStream bytes(String s) {
+        return new ByteArrayInputStream(s.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,123 @@
+package com.studymate.util;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Recall and latency harness for {@link HnswIndex}: builds an index over {@code n} synthetic unit
+ * vectors, then for each ef reports recall@10 against an exact scan and single-threaded search
+ * latency percentiles. Two data sets: {@code random} (isotropic Gaussian, the worst case for any
+ * graph index) and {@code clustered} (vectors near a low-dimensional subspace, closer to real text
+ * embeddings). Not a unit test; run it with
+ * {@code java -Xmx8g -cp target/test-classes:target/classes com.studymate.util.HnswIndexBenchmark <n> <dim> <random|clustered> [queries]}.
+ */
+public final class HnswIndexBenchmark {
+    private static final int K = 10;
+    private static final int M = 16;
+    private static final int EF_CONSTRUCTION = 100;
+    private static final int[] EF_SEARCH = {64, 128, 256};
+    private static final int LATENT_DIM = 32;
+
+    private HnswIndexBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int n = Integer.parseInt(args[0]);
+        int dim = Integer.parseInt(args[1]);
+        String data = args[2];
+        int queries = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        var source = new Source(data, dim, new Random(7));
+
+        float[][] vectors = new float[n][];
+        for (int i = 0; i < n; i++) vectors[i] = source.next();
+        float[][] probes = new float[queries][];
+        for (int i = 0; i < queries; i++) probes[i] = source.next();
+
+        long t0 = System.nanoTime();
+        var builder = new HnswIndex.Builder(dim, M, EF_CONSTRUCTION, n);
+        for (int i = 0; i < n; i++) builder.add(i, vectors[i]);
+        var index = builder.build("bench");
+        System.out.printf("%s n=%d dim=%d m=%d efConstruction=%d: built in %.1f s%n",
+                data, n, dim, M, EF_CONSTRUCTION, (System.nanoTime() - t0) / 1e9);
+
+        int[][] truth = new int[queries][];
+        for (int q = 0; q < queries; q++) truth[q] = exactTopK(vectors, probes[q]);
+
+        for (int ef : EF_SEARCH) {
+            // warm up the search path before timing it
+            for (int r = 0; r < 3; r++) for (float[] p : probes) index.search(p, K, ef);
+            long[] nanos = new long[queries];
+            int hits = 0;
+            for (int q = 0; q < queries; q++) {
+                long s = System.nanoTime();
+                var result = index.search(probes[q], K, ef);
+                nanos[q] = System.nanoTime() - s;
+                for (int label : result.labels()) {
+                    for (int t : truth[q]) {
+                        if (t == label) {
+                            hits++;
+                            break;
+                        }
+                    }
+                }
+            }
+            Arrays.sort(nanos);
+            System.out.printf("  ef=%d recall@%d=%.3f p50=%.3f ms p99=%.3f ms%n", ef, K, hits / (double) (queries * K),
+                    nanos[queries / 2] / 1e6, nanos[Math.min(queries - 1, queries * 99 / 100)] / 1e6);
+        }
+    }
+
+    private static int[] exactTopK(float[][] vectors, float[] query) {
+        int[] best = new int[K];
+        float[] scores = new float[K];
+        Arrays.fill(scores, Float.NEGATIVE_INFINITY);
+        for (int i = 0; i < vectors.length; i++) {
+            float s = 0;
+            for (int d = 0; d < query.length; d++) s += vectors[i][d] * query[d];
+            if (s <= scores[K - 1]) continue;
+            int j = K - 1;
+            while (j > 0 && scores[j - 1] < s) {
+                scores[j] = scores[j - 1];
+                best[j] = best[j - 1];
+                j--;
+            }
+            scores[j] = s;
+            best[j] = i;
+        }
+        return best;
+    }
+
+    private static final class Source {
+        private final boolean clustered;
+        private final int dim;
+        private final Random random;
+        private final float[][] basis;
+
+        Source(String kind, int dim, Random random) {
+            if (!kind.equals("random") && !kind.equals("clustered")) throw new IllegalArgumentException(kind);
+            this.clustered = kind.equals("clustered");
+            this.dim = dim;
+            this.random = random;
+            this.basis = new float[LATENT_DIM][dim];
+            for (float[] row : basis) for (int d = 0; d < dim; d++) row[d] = (float) random.nextGaussian();
+        }
+
+        float[] next() {
+            float[] v = new float[dim];
+            if (clustered) {
+                for (float[] row : basis) {
+                    float w = (float) random.nextGaussian();
+                    for (int d = 0; d < dim; d++) v[d] += w * row[d];
+                }
+                for (int d = 0; d < dim; d++) v[d] += 0.1f * (float) random.nextGaussian();
+            } else {
+                for (int d = 0; d < dim; d++) v[d] = (float) random.nextGaussian();
+            }
+            double norm = 0;
+            for (float x : v) norm += x * x;
+            float inv = (float) (1 / Math.sqrt(norm));
+            for (int d = 0; d < dim; d++) v[d] *= inv;
+            return v;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.studymate.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+class HnswIndexTest {
+    private static final int DIM = 32;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recallAgainstExactScan() {
+        var random = new Random(1);
+        float[][] basis = new float[6][DIM];
+        for (float[] row : basis) for (int d = 0; d < DIM; d++) row[d] = (float) random.nextGaussian();
+        float[][] vectors = new float[3000][];
+        for (int i = 0; i < vectors.length; i++) vectors[i] = sample(basis, random);
+        var index = build(vectors);
+
+        int hits = 0, queries = 50, k = 10;
+        for (int q = 0; q < queries; q++) {
+            float[] query = sample(basis, random);
+            int[] found = index.search(query, k, 64).labels();
+            for (int label : exact(vectors, query, k)) {
+                if (Arrays.stream(found).anyMatch(f -> f == label)) hits++;
+            }
+        }
+        assertThat(hits / (double) (queries * k)).isGreaterThanOrEqualTo(0.95);
+    }
+
+    @Test
+    void storedVectorIsItsOwnNearestNeighbour() {
+        var random = new Random(2);
+        float[][] vectors = new float[500][];
+        for (int i = 0; i < vectors.length; i++) vectors[i] = unit(random);
+        var index = build(vectors);
+
+        var result = index.search(vectors[123], 3, 32);
+        assertThat(result.labels()[0]).isEqualTo(1000 + 123);
+        assertThat(result.scores()[0]).isCloseTo(1f, offset(1e-5f));
+        assertThat(result.scores()[1]).isLessThanOrEqualTo(result.scores()[0]);
+    }
+
+    @Test
+    void saveAndLoadKeepResultsAndStamp() throws Exception {
+        var random = new Random(3);
+        float[][] vectors = new float[800][];
+        for (int i = 0; i < vectors.length; i++) vectors[i] = unit(random);
+        var index = build(vectors);
+        Path file = dir.resolve("course.hnsw");
+        index.save(file);
+
+        var loaded = HnswIndex.load(file);
+        assertThat(loaded.stamp()).isEqualTo("test-stamp");
+        assertThat(loaded.size()).isEqualTo(800);
+        assertThat(loaded.dimensions()).isEqualTo(DIM);
+        float[] query = unit(random);
+        assertThat(loaded.search(query, 5, 50).labels()).containsExactly(index.search(query, 5, 50).labels());
+    }
+
+    @Test
+    void emptyIndexAndWrongDimensions() {
+        var empty = new HnswIndex.Builder(DIM, 16, 100, 0).build(null);
+        assertThat(empty.search(unit(new Random(4)), 5, 50).labels()).isEmpty();
+        assertThatThrownBy(() -> empty.search(new float[DIM + 1], 5, 50)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static HnswIndex build(float[][] vectors) {
+        var builder = new HnswIndex.Builder(DIM, 16, 100, vectors.length);
+        for (int i = 0; i < vectors.length; i++) builder.add(1000 + i, vectors[i]);
+        return builder.build("test-stamp");
+    }
+
+    private static int[] exact(float[][] vectors, float[] query, int k) {
+        Integer[] order = new Integer[vectors.length];
+        float[] scores = new float[vectors.length];
+        for (int i = 0; i < vectors.length; i++) {
+            order[i] = i;
+            for (int d = 0; d < DIM; d++) scores[i] += vectors[i][d] * query[d];
+        }
+        Arrays.sort(order, (a, b) -> Float.compare(scores[b], scores[a]));
+        int[] labels = new int[k];
+        for (int i = 0; i < k; i++) labels[i] = 1000 + order[i];
+        return labels;
+    }
+
+    // points near a low-dimensional subspace, like text embeddings
+    private static float[] sample(float[][] basis, Random random) {
+        float[] v = new float[DIM];
+        for (float[] row : basis) {
+            float w = (float) random.nextGaussian();
+            for (int d = 0; d < DIM; d++) v[d] += w * row[d];
+        }
+        for (int d = 0; d < DIM; d++) v[d] += 0.1f * (float) random.nextGaussian();
+        return normalize(v);
+    }
+
+    private static float[] unit(Random random) {
+        float[] v = new float[DIM];
+        for (int d = 0; d < DIM; d++) v[d] = (float) random.nextGaussian();
+        return normalize(v);
+    }
+
+    private static float[] normalize(float[] v) {
+        double norm = 0;
+        for (float x : v) norm += x * x;
+        for (int d = 0; d < v.length; d++) v[d] /= (float) Math.sqrt(norm);
+        return v;
+    }
+}